@@ -17,6 +17,7 @@ import com.intellij.codeInsight.completion.CompletionResultSet;
 import com.intellij.codeInsight.completion.CompletionType;
 import com.intellij.codeInsight.completion.InsertHandler;
 import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.lang.jsgraphql.GraphQLBundle;
 import com.intellij.lang.jsgraphql.ide.resolve.GraphQLResolveUtil;
 import com.intellij.lang.jsgraphql.ide.search.GraphQLPsiSearchHelper;
 import com.intellij.lang.jsgraphql.psi.GraphQLArgument;
@@ -78,6 +79,7 @@ import com.intellij.lang.jsgraphql.schema.GraphQLKnownTypes;
 import com.intellij.lang.jsgraphql.schema.GraphQLRegistryProvider;
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaInfo;
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaProvider;
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaResult;
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaUtil;
 import com.intellij.lang.jsgraphql.schema.library.GraphQLBundledLibraryTypes;
 import com.intellij.lang.jsgraphql.types.introspection.Introspection;
@@ -355,8 +357,7 @@ public final class GraphQLCompletionContributor extends CompletionContributor {
                                     @NotNull ProcessingContext context,
                                     @NotNull CompletionResultSet result) {
         final PsiElement completionElement = parameters.getPosition();
-        GraphQLSchemaInfo schemaInfo = GraphQLSchemaProvider.getInstance(completionElement.getProject())
-          .getSchemaInfo(completionElement);
+        GraphQLSchemaInfo schemaInfo = getSchemaInfo(completionElement, result);
         final GraphQLSchema schema = schemaInfo.getSchema();
         final TypeDefinitionRegistry registry = schemaInfo.getRegistry();
         final Set<String> filteredTypes = GraphQLSchemaUtil.getSchemaOperationTypeNames(schema);
@@ -390,8 +391,7 @@ public final class GraphQLCompletionContributor extends CompletionContributor {
           return;
         }
         final Set<String> currentMembers = Sets.newHashSet();
-        GraphQLSchemaInfo schemaInfo = GraphQLSchemaProvider.getInstance(completionElement.getProject())
-          .getSchemaInfo(completionElement);
+        GraphQLSchemaInfo schemaInfo = getSchemaInfo(completionElement, result);
         currentMembers.addAll(GraphQLSchemaUtil.getSchemaOperationTypeNames(schemaInfo.getSchema()));
         unionMembers.getTypeNameList().forEach(t -> currentMembers.add(t.getName()));
         final TypeDefinitionRegistry typeDefinitionRegistry = schemaInfo.getRegistry();
@@ -793,8 +793,7 @@ public final class GraphQLCompletionContributor extends CompletionContributor {
       private void addDirectiveArguments(@NotNull CompletionResultSet result,
                                          @NotNull PsiElement completionElement,
                                          @NotNull GraphQLDirective directive) {
-        final GraphQLSchema schema = GraphQLSchemaProvider.getInstance(completionElement.getProject())
-          .getSchemaInfo(completionElement).getSchema();
+        final GraphQLSchema schema = getSchemaInfo(completionElement, result).getSchema();
         com.intellij.lang.jsgraphql.types.schema.GraphQLDirective directiveDefinition =
           schema.getFirstDirective(directive.getName());
         if (directiveDefinition == null) {
@@ -875,17 +874,19 @@ public final class GraphQLCompletionContributor extends CompletionContributor {
         final TypeDefinitionRegistry typeDefinitionRegistry = GraphQLRegistryProvider.getInstance(completionElement.getProject())
           .getRegistryInfo(parameters.getOriginalFile()).getTypeDefinitionRegistry();
 
-        final List<GraphQLFragmentDefinition> knownFragmentDefinitions = GraphQLPsiSearchHelper
-          .getInstance(completionElement.getProject()).findFragmentDefinitions(parameters.getOriginalFile());
-        for (GraphQLFragmentDefinition fragmentDefinition : knownFragmentDefinitions) {
-          final String name = fragmentDefinition.getName();
-          if (name != null) {
+        // the type conditions are taken from the index, so the files with fragments are not loaded
+        final GraphQLType requiredTypeScope = typeScope;
+        final Set<String> suggestedNames = new HashSet<>();
+        GraphQLPsiSearchHelper.getInstance(completionElement.getProject()).processFragments(
+          parameters.getOriginalFile(), (name, typeCondition) -> {
             // suggest compatible fragments based on type conditions
-            if (GraphQLSchemaUtil.isFragmentApplicableInTypeScope(typeDefinitionRegistry, fragmentDefinition, typeScope)) {
+            if (!suggestedNames.contains(name) &&
+                GraphQLSchemaUtil.isFragmentApplicableInTypeScope(typeDefinitionRegistry, typeCondition, requiredTypeScope)) {
+              suggestedNames.add(name);
               result.addElement(GraphQLCompletionUtil.createTypeNameLookupElement(name));
             }
-          }
-        }
+            return true;
+          });
       }
     };
     extend(CompletionType.BASIC, psiElement().afterLeaf(psiElement(GraphQLElementTypes.SPREAD)), provider);
@@ -1190,8 +1191,7 @@ public final class GraphQLCompletionContributor extends CompletionContributor {
           return;
         }
         final VariablesTypesMatcher variablesTypesMatcher = new VariablesTypesMatcher();
-        final GraphQLSchema schema = GraphQLSchemaProvider.getInstance(completionElement.getProject())
-          .getSchemaInfo(parameters.getOriginalFile()).getSchema();
+        final GraphQLSchema schema = getSchemaInfo(parameters.getOriginalFile(), result).getSchema();
 
         for (GraphQLVariableDefinition variableDefinition : query.getVariableDefinitions().getVariableDefinitions()) {
           if (variableDefinition.getType() == null) {
@@ -1328,6 +1328,18 @@ public final class GraphQLCompletionContributor extends CompletionContributor {
     return false;
   }
 
+  /**
+   * Completion doesn't wait for the schema being rebuilt. If the previous one is used, the variants are computed again
+   * on the next typed character instead of being filtered, so they catch up with the actual schema once it's built.
+   */
+  private static @NotNull GraphQLSchemaInfo getSchemaInfo(@NotNull PsiElement context, @NotNull CompletionResultSet result) {
+    GraphQLSchemaResult schemaResult = GraphQLSchemaProvider.getInstance(context.getProject()).getSchemaInfoAllowStale(context);
+    if (schemaResult.isStale()) {
+      result.restartCompletionOnAnyPrefixChange();
+      result.addLookupAdvertisement(GraphQLBundle.message("graphql.completion.schema.is.being.updated"));
+    }
+    return schemaResult.getSchemaInfo();
+  }
 
   private static boolean isIgnoredType(@NotNull TypeDefinition type) {
     return isIgnoredType(type.getName());
@@ -15,12 +15,14 @@ import com.intellij.lang.jsgraphql.psi.GraphQLDescriptionAware
 import com.intellij.lang.jsgraphql.psi.GraphQLDirectiveDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLElement
 import com.intellij.lang.jsgraphql.psi.GraphQLEnumValue
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumValueDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLFieldDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLInputObjectTypeDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLInputObjectTypeExtensionDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLInputValueDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLNamedElement
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLTypeNameDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLTypeSystemDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLTypedOperationDefinition
@@ -81,7 +83,7 @@ private fun createQuickNavigateDocumentation(element: PsiElement?): @NlsSafe Str
   }
 
   val typeRegistryService = GraphQLSchemaProvider.getInstance(element.project)
-  val schema = typeRegistryService.getSchemaInfo(element).schema
+  val schema = typeRegistryService.getSchemaInfoAllowStale(element).schemaInfo.schema
 
   // TODO: remove a specific check for variables after refactoring them to be proper named elements with refactoring support
   if (element !is GraphQLNamedElement && element !is GraphQLVariable) {
@@ -158,7 +160,7 @@ private fun getDirectiveDocumentation(schema: GraphQLSchema, target: GraphQLDire
     }
     append(DocumentationMarkup.DEFINITION_END)
 
-    appendDescription(schemaDirective.description)
+    appendDescription(target.description?.content ?: schemaDirective.description)
   }
 }
 
@@ -172,6 +174,12 @@ private fun getEnumValueDocumentation(schema: GraphQLSchema, target: GraphQLEnum
     append(enumName).append(".").append(enumValueName)
     append(DocumentationMarkup.DEFINITION_END)
 
+    val psiDescription = target.parentOfType<GraphQLEnumValueDefinition>()?.description?.content
+    if (psiDescription != null) {
+      appendDescription(psiDescription)
+      return@buildString
+    }
+
     for (enumValueDefinition in schemaType.values) {
       if (enumValueDefinition.name == enumValueName) {
         val description = enumValueDefinition.description ?: break
@@ -204,7 +212,7 @@ private fun getArgumentDocumentation(schema: GraphQLSchema, target: GraphQLInput
         if (fieldDefinition.name == fieldName) {
           for (argument in fieldDefinition.arguments) {
             if (argument.name == inputValueName) {
-              return getArgumentDocumentation(inputValueName, argument)
+              return getArgumentDocumentation(inputValueName, argument, target)
             }
           }
         }
@@ -215,7 +223,7 @@ private fun getArgumentDocumentation(schema: GraphQLSchema, target: GraphQLInput
       val schemaDirective = schema.getFirstDirective(directiveName.text) ?: return null
       for (argument in schemaDirective.arguments) {
         if (inputValueName == argument.name) {
-          return getArgumentDocumentation(inputValueName, argument)
+          return getArgumentDocumentation(inputValueName, argument, target)
         }
       }
     }
@@ -233,7 +241,7 @@ private fun getArgumentDocumentation(schema: GraphQLSchema, target: GraphQLInput
               .append(if (type != null) formatAsTypeReference(type) else "")
             append(DocumentationMarkup.DEFINITION_END)
 
-            appendDescription(inputObjectField.description)
+            appendDescription(target.description?.content ?: inputObjectField.description)
           }
         }
       }
@@ -243,7 +251,7 @@ private fun getArgumentDocumentation(schema: GraphQLSchema, target: GraphQLInput
   return null
 }
 
-private fun getArgumentDocumentation(inputValueName: String?, argument: GraphQLArgument): String {
+private fun getArgumentDocumentation(inputValueName: String?, argument: GraphQLArgument, target: GraphQLInputValueDefinition): String {
   return buildString {
     append(DocumentationMarkup.DEFINITION_START)
     val argumentType = argument.type
@@ -252,7 +260,7 @@ private fun getArgumentDocumentation(inputValueName: String?, argument: GraphQLA
       .append(if (argumentType != null) formatAsTypeReference(argumentType) else "")
     append(DocumentationMarkup.DEFINITION_END)
 
-    appendDescription(argument.description)
+    appendDescription(target.description?.content ?: argument.description)
   }
 }
 
@@ -287,7 +295,7 @@ private fun getFieldDocumentation(schema: GraphQLSchema, target: GraphQLFieldDef
     }
     append(DocumentationMarkup.DEFINITION_END)
 
-    appendDescription(fieldDefinition?.description)
+    appendDescription(target.description?.content ?: fieldDefinition?.description)
   }
 }
 
@@ -303,6 +311,6 @@ private fun getTypeDocumentation(targetIdentifier: PsiElement, schema: GraphQLSc
     append(targetIdentifier.text)
     append(DocumentationMarkup.DEFINITION_END)
 
-    appendDescription(getTypeDescription(schemaType))
+    appendDescription(target.parentOfType<GraphQLTypeDefinition>()?.description?.content ?: getTypeDescription(schemaType))
   }
 }
\ No newline at end of file
@@ -10,8 +10,11 @@ package com.intellij.lang.jsgraphql.ide.indexing;
 import com.intellij.lang.jsgraphql.ide.injection.GraphQLInjectionUtils;
 import com.intellij.lang.jsgraphql.ide.search.GraphQLFileTypesProvider;
 import com.intellij.lang.jsgraphql.psi.GraphQLDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFile;
 import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
-import com.intellij.openapi.util.Ref;
+import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeCondition;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeName;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -24,27 +27,78 @@ import com.intellij.util.indexing.FileBasedIndex;
 import com.intellij.util.indexing.FileBasedIndexExtension;
 import com.intellij.util.indexing.FileContent;
 import com.intellij.util.indexing.ID;
-import com.intellij.util.io.BooleanDataDescriptor;
 import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
 import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
 import com.intellij.util.io.KeyDescriptor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Index for processing files that contain one or more GraphQL fragment definitions
+ * Indexes the names of GraphQL fragment definitions with their type conditions,
+ * so a fragment spread can be resolved and the fragments applicable in a type scope can be completed without loading PSI
+ * of all the files with fragments. The offsets of the fragment names are only known for GraphQL files,
+ * the injections are indexed from their raw text, see {@link Fragment#UNKNOWN_OFFSET}.
+ * <p>
+ * Every file with fragments also has the {@link #FILES_WITH_FRAGMENTS_KEY}, so such files can be found without enumerating all the names.
  */
-public final class GraphQLFragmentNameIndex extends FileBasedIndexExtension<String, Boolean> {
+public final class GraphQLFragmentNameIndex extends FileBasedIndexExtension<String, List<GraphQLFragmentNameIndex.Fragment>> {
+
+  public static final ID<String, List<Fragment>> NAME = ID.create("GraphQLFragmentNameIndex");
 
-  public static final ID<String, Boolean> NAME = ID.create("GraphQLFragmentNameIndex");
+  public static final int VERSION = 3;
 
-  public static final String HAS_FRAGMENTS = "fragments";
-  public static final int VERSION = 1;
+  /**
+   * An empty string is never a fragment name, the key has no fragments as its value.
+   */
+  public static final String FILES_WITH_FRAGMENTS_KEY = "";
 
   private static final String FRAGMENT_MARKER = "fragment ";
 
-  private final DataIndexer<String, Boolean, FileContent> myDataIndexer = inputData -> {
+  /**
+   * @param typeCondition the name of the type in the type condition, or an empty string if it's missing
+   */
+  public record Fragment(@NotNull String typeCondition, int offset) {
+    /**
+     * The offset of the fragments in injections, whose location isn't known by the index
+     */
+    public static final int UNKNOWN_OFFSET = -1;
+  }
+
+  private static final DataExternalizer<List<Fragment>> VALUE_EXTERNALIZER = new DataExternalizer<>() {
+    @Override
+    public void save(@NotNull DataOutput out, List<Fragment> value) throws IOException {
+      DataInputOutputUtil.writeINT(out, value.size());
+      for (Fragment fragment : value) {
+        IOUtil.writeUTF(out, fragment.typeCondition());
+        // shifted by one, so the unknown offset is written as zero
+        DataInputOutputUtil.writeINT(out, fragment.offset() + 1);
+      }
+    }
+
+    @Override
+    public List<Fragment> read(@NotNull DataInput in) throws IOException {
+      int size = DataInputOutputUtil.readINT(in);
+      List<Fragment> fragments = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        String typeCondition = IOUtil.readUTF(in);
+        fragments.add(new Fragment(typeCondition, DataInputOutputUtil.readINT(in) - 1));
+      }
+      return fragments;
+    }
+  };
+
+  private final DataIndexer<String, List<Fragment>, FileContent> myDataIndexer = inputData -> {
     if (!StringUtil.contains(inputData.getContentAsText(), FRAGMENT_MARKER)) {
       return Collections.emptyMap();
     }
@@ -54,17 +108,19 @@ public final class GraphQLFragmentNameIndex extends FileBasedIndexExtension<Stri
       return Collections.emptyMap();
     }
 
-    Ref<Boolean> hasFragments = Ref.create(false);
-    PsiRecursiveElementVisitor identifierVisitor = new PsiRecursiveElementVisitor() {
+    final Map<String, List<Fragment>> fragments = new HashMap<>();
+    final boolean isGraphQLFile = psiFile instanceof GraphQLFile;
+    PsiRecursiveElementVisitor visitor = new PsiRecursiveElementVisitor() {
       @Override
       public void visitElement(@NotNull PsiElement element) {
-        if (hasFragments.get()) {
-          // done
-          return;
-        }
         if (element instanceof GraphQLDefinition) {
-          if (element instanceof GraphQLFragmentDefinition) {
-            hasFragments.set(true);
+          if (element instanceof GraphQLFragmentDefinition fragmentDefinition) {
+            GraphQLIdentifier nameIdentifier = fragmentDefinition.getNameIdentifier();
+            if (nameIdentifier != null) {
+              int offset = isGraphQLFile ? nameIdentifier.getTextOffset() : Fragment.UNKNOWN_OFFSET;
+              fragments.computeIfAbsent(nameIdentifier.getText(), __ -> new ArrayList<>(1))
+                .add(new Fragment(StringUtil.notNullize(getTypeConditionName(fragmentDefinition)), offset));
+            }
           }
           return; // no need to visit deeper than definitions since fragments are top level
         }
@@ -78,23 +134,27 @@ public final class GraphQLFragmentNameIndex extends FileBasedIndexExtension<Stri
       }
     };
 
-    psiFile.accept(identifierVisitor);
+    psiFile.accept(visitor);
 
-    if (hasFragments.get()) {
-      return Collections.singletonMap(HAS_FRAGMENTS, true);
-    }
-    else {
-      return Collections.emptyMap();
+    if (!fragments.isEmpty()) {
+      fragments.put(FILES_WITH_FRAGMENTS_KEY, Collections.emptyList());
     }
+    return fragments;
   };
 
+  private static @Nullable String getTypeConditionName(@NotNull GraphQLFragmentDefinition fragmentDefinition) {
+    GraphQLTypeCondition typeCondition = fragmentDefinition.getTypeCondition();
+    GraphQLTypeName typeName = typeCondition != null ? typeCondition.getTypeName() : null;
+    return typeName != null ? typeName.getName() : null;
+  }
+
   @Override
-  public @NotNull ID<String, Boolean> getName() {
+  public @NotNull ID<String, List<Fragment>> getName() {
     return NAME;
   }
 
   @Override
-  public @NotNull DataIndexer<String, Boolean, FileContent> getIndexer() {
+  public @NotNull DataIndexer<String, List<Fragment>, FileContent> getIndexer() {
     return myDataIndexer;
   }
 
@@ -104,8 +164,8 @@ public final class GraphQLFragmentNameIndex extends FileBasedIndexExtension<Stri
   }
 
   @Override
-  public @NotNull DataExternalizer<Boolean> getValueExternalizer() {
-    return BooleanDataDescriptor.INSTANCE;
+  public @NotNull DataExternalizer<List<Fragment>> getValueExternalizer() {
+    return VALUE_EXTERNALIZER;
   }
 
   @Override
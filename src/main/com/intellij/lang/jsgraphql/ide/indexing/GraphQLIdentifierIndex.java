@@ -14,7 +14,17 @@ import com.intellij.json.psi.JsonProperty;
 import com.intellij.json.psi.JsonStringLiteral;
 import com.intellij.lang.jsgraphql.ide.injection.GraphQLInjectionUtils;
 import com.intellij.lang.jsgraphql.ide.search.GraphQLFileTypesProvider;
+import com.intellij.lang.jsgraphql.psi.GraphQLDirectiveDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumValueDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFieldDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFile;
+import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
 import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
+import com.intellij.lang.jsgraphql.psi.GraphQLInputValueDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLNamedTypeExtension;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeName;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeNameDefinition;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -28,41 +38,128 @@ import com.intellij.util.indexing.FileBasedIndexExtension;
 import com.intellij.util.indexing.FileContent;
 import com.intellij.util.indexing.ID;
 import com.intellij.util.io.DataExternalizer;
-import com.intellij.util.io.EnumDataDescriptor;
+import com.intellij.util.io.DataInputOutputUtil;
 import com.intellij.util.io.EnumeratorStringDescriptor;
 import com.intellij.util.io.KeyDescriptor;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Indexes GraphQL identifiers in GraphQL files, GraphQL injections, and JSON GraphQL introspection query result files.
+ * <p>
+ * Each identifier is mapped to its definitions in the file and a flag telling whether the file uses it anywhere else,
+ * so the files which only use a name can be skipped when its definition is looked for. The usages are far more common
+ * than the definitions and are never looked up by their location, so only the offsets of the definitions are stored.
+ * The offsets are only known for GraphQL files, the injections are indexed from their raw text, see {@link Definition#UNKNOWN_OFFSET}.
  */
-public final class GraphQLIdentifierIndex extends FileBasedIndexExtension<String, GraphQLIdentifierIndex.IdentifierKind> {
+public final class GraphQLIdentifierIndex extends FileBasedIndexExtension<String, GraphQLIdentifierIndex.Identifiers> {
 
-  public static final ID<String, IdentifierKind> NAME = ID.create("GraphQLIdentifierIndex");
-  public static final int VERSION = 3;
+  public static final ID<String, Identifiers> NAME = ID.create("GraphQLIdentifierIndex");
+  public static final int VERSION = 6;
 
   public enum IdentifierKind {
-    IDENTIFIER_NAME
+    TYPE_DEFINITION,
+    /**
+     * The name of the extended type in a type extension, e.g. {@code User} in {@code extend type User}
+     */
+    TYPE_EXTENSION,
+    FIELD_DEFINITION,
+    /**
+     * An argument of a field or directive, or a field of an input object type
+     */
+    INPUT_VALUE_DEFINITION,
+    ENUM_VALUE_DEFINITION,
+    DIRECTIVE_DEFINITION,
+    FRAGMENT_DEFINITION,
+    /**
+     * Any other identifier, e.g. a reference to a type, a selected field or a name from an introspection result
+     */
+    USAGE
+  }
+
+  /**
+   * A definition of the identifier, its kind is never {@link IdentifierKind#USAGE}.
+   */
+  public record Definition(@NotNull IdentifierKind kind, int offset) {
+    /**
+     * The offset of the identifiers in injections and introspection results, whose location isn't known by the index
+     */
+    public static final int UNKNOWN_OFFSET = -1;
   }
 
-  private final DataIndexer<String, IdentifierKind, FileContent> myDataIndexer = inputData -> {
+  /**
+   * The identifiers with the same name in a single file.
+   */
+  public record Identifiers(@NotNull List<Definition> definitions, boolean hasUsages) {
+    public boolean hasAnyOf(@NotNull Set<IdentifierKind> kinds) {
+      if (hasUsages && kinds.contains(IdentifierKind.USAGE)) return true;
+      for (Definition definition : definitions) {
+        if (kinds.contains(definition.kind())) return true;
+      }
+      return false;
+    }
+  }
+
+  private static final DataExternalizer<Identifiers> VALUE_EXTERNALIZER = new DataExternalizer<>() {
+    private static final IdentifierKind[] KINDS = IdentifierKind.values();
+
+    @Override
+    public void save(@NotNull DataOutput out, Identifiers value) throws IOException {
+      out.writeBoolean(value.hasUsages());
+      DataInputOutputUtil.writeINT(out, value.definitions().size());
+      for (Definition definition : value.definitions()) {
+        DataInputOutputUtil.writeINT(out, definition.kind().ordinal());
+        // shifted by one, so the unknown offset is written as zero
+        DataInputOutputUtil.writeINT(out, definition.offset() + 1);
+      }
+    }
+
+    @Override
+    public Identifiers read(@NotNull DataInput in) throws IOException {
+      boolean hasUsages = in.readBoolean();
+      int size = DataInputOutputUtil.readINT(in);
+      List<Definition> definitions = size == 0 ? Collections.emptyList() : new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        IdentifierKind kind = KINDS[DataInputOutputUtil.readINT(in)];
+        definitions.add(new Definition(kind, DataInputOutputUtil.readINT(in) - 1));
+      }
+      return new Identifiers(definitions, hasUsages);
+    }
+  };
+
+  private final DataIndexer<String, Identifiers, FileContent> myDataIndexer = inputData -> {
     PsiFile psiFile = inputData.getPsiFile();
     if (psiFile instanceof XmlFile && BlockSupport.isTooDeep(psiFile)) {
       return Collections.emptyMap();
     }
 
-    final Map<String, IdentifierKind> identifiers = new HashMap<>();
+    final Map<String, List<Definition>> definitions = new HashMap<>();
+    final Set<String> usages = new HashSet<>();
+    final boolean isGraphQLFile = psiFile instanceof GraphQLFile;
     PsiRecursiveElementVisitor visitor = new PsiRecursiveElementVisitor() {
       @Override
       public void visitElement(@NotNull PsiElement element) {
         if (element instanceof GraphQLIdentifier) {
           if (!GraphQLInjectionUtils.isTemplatePlaceholder(element)) {
-            identifiers.put(element.getText(), IdentifierKind.IDENTIFIER_NAME);
+            IdentifierKind kind = getIdentifierKind(element);
+            if (kind == IdentifierKind.USAGE) {
+              usages.add(element.getText());
+            }
+            else {
+              int offset = isGraphQLFile ? element.getTextOffset() : Definition.UNKNOWN_OFFSET;
+              definitions.computeIfAbsent(element.getText(), __ -> new ArrayList<>(1)).add(new Definition(kind, offset));
+            }
           }
           return; // no need to visit deeper
         }
@@ -78,10 +175,7 @@ public final class GraphQLIdentifierIndex extends FileBasedIndexExtension<String
             // https://graphql.github.io/graphql-spec/June2018/#sec-Schema-Introspection
             if ("name".equals(jsonProperty.getName())) {
               if (jsonProperty.getValue() instanceof JsonStringLiteral) {
-                identifiers.put(
-                  ((JsonStringLiteral)jsonProperty.getValue()).getValue(),
-                  IdentifierKind.IDENTIFIER_NAME
-                );
+                usages.add(((JsonStringLiteral)jsonProperty.getValue()).getValue());
               }
             }
           }
@@ -98,9 +192,31 @@ public final class GraphQLIdentifierIndex extends FileBasedIndexExtension<String
 
     psiFile.accept(visitor);
 
+    final Map<String, Identifiers> identifiers = new HashMap<>();
+    definitions.forEach((name, nameDefinitions) -> identifiers.put(name, new Identifiers(nameDefinitions, usages.contains(name))));
+    for (String name : usages) {
+      identifiers.putIfAbsent(name, new Identifiers(Collections.emptyList(), true));
+    }
     return identifiers;
   };
 
+  /**
+   * @return the role of the identifier defined by its parent, the same one as used by the index
+   */
+  public static @NotNull IdentifierKind getIdentifierKind(@NotNull PsiElement identifier) {
+    PsiElement parent = identifier.getParent();
+    if (parent instanceof GraphQLTypeNameDefinition) return IdentifierKind.TYPE_DEFINITION;
+    if (parent instanceof GraphQLTypeName && parent.getParent() instanceof GraphQLNamedTypeExtension) return IdentifierKind.TYPE_EXTENSION;
+    if (parent instanceof GraphQLFieldDefinition) return IdentifierKind.FIELD_DEFINITION;
+    if (parent instanceof GraphQLInputValueDefinition) return IdentifierKind.INPUT_VALUE_DEFINITION;
+    if (parent instanceof GraphQLDirectiveDefinition) return IdentifierKind.DIRECTIVE_DEFINITION;
+    if (parent instanceof GraphQLFragmentDefinition) return IdentifierKind.FRAGMENT_DEFINITION;
+    if (parent instanceof GraphQLEnumValue && parent.getParent() instanceof GraphQLEnumValueDefinition) {
+      return IdentifierKind.ENUM_VALUE_DEFINITION;
+    }
+    return IdentifierKind.USAGE;
+  }
+
   private static boolean isIntrospectionJsonFile(@NotNull JsonFile jsonFile) {
     for (PsiElement child : jsonFile.getChildren()) {
       if (child instanceof JsonObject) {
@@ -120,12 +236,12 @@ public final class GraphQLIdentifierIndex extends FileBasedIndexExtension<String
   }
 
   @Override
-  public @NotNull ID<String, IdentifierKind> getName() {
+  public @NotNull ID<String, Identifiers> getName() {
     return NAME;
   }
 
   @Override
-  public @NotNull DataIndexer<String, IdentifierKind, FileContent> getIndexer() {
+  public @NotNull DataIndexer<String, Identifiers, FileContent> getIndexer() {
     return myDataIndexer;
   }
 
@@ -135,8 +251,8 @@ public final class GraphQLIdentifierIndex extends FileBasedIndexExtension<String
   }
 
   @Override
-  public @NotNull DataExternalizer<IdentifierKind> getValueExternalizer() {
-    return new EnumDataDescriptor<>(IdentifierKind.class);
+  public @NotNull DataExternalizer<Identifiers> getValueExternalizer() {
+    return VALUE_EXTERNALIZER;
   }
 
   @Override
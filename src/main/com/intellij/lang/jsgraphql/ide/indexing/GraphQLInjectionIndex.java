@@ -9,9 +9,14 @@ package com.intellij.lang.jsgraphql.ide.indexing;
 
 import com.intellij.lang.jsgraphql.GraphQLFileType;
 import com.intellij.lang.jsgraphql.ide.injection.GraphQLInjectedLanguage;
+import com.intellij.lang.jsgraphql.ide.injection.GraphQLInjectionUtils;
 import com.intellij.lang.jsgraphql.ide.search.GraphQLFileTypesProvider;
+import com.intellij.lang.jsgraphql.psi.GraphQLDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFile;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeSystemDefinition;
 import com.intellij.openapi.util.Ref;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiLanguageInjectionHost;
 import com.intellij.psi.PsiRecursiveElementVisitor;
@@ -31,14 +36,19 @@ import java.util.Map;
 
 /**
  * Indexes files which contain GraphQL Injection to enable discovery of type definitions written using injected Schema IDL.
+ * The files whose injections contain type system definitions are additionally marked with {@link #TYPE_SYSTEM_MARKER},
+ * so the files with only operations and fragments can be told apart without parsing them.
  */
 public final class GraphQLInjectionIndex extends ScalarIndexExtension<String> {
 
   public static final ID<String, Void> NAME = ID.create(GraphQLInjectionIndex.class.getName());
   public static final String INJECTION_MARKER = "true";
 
+  public static final String TYPE_SYSTEM_MARKER = "typeSystem";
+
   private static final Map<String, Void> INJECTED_KEY = Collections.singletonMap(INJECTION_MARKER, null);
-  public static final int VERSION = 3;
+  private static final Map<String, Void> TYPE_SYSTEM_KEYS = Map.of(INJECTION_MARKER, null, TYPE_SYSTEM_MARKER, null);
+  public static final int VERSION = 4;
 
   private final DataIndexer<String, Void, FileContent> myDataIndexer = inputData -> {
     PsiFile psiFile = inputData.getPsiFile();
@@ -47,24 +57,49 @@ public final class GraphQLInjectionIndex extends ScalarIndexExtension<String> {
     }
 
     final Ref<Boolean> isInjected = new Ref<>(Boolean.FALSE);
+    final Ref<Boolean> hasTypeSystemDefinitions = new Ref<>(Boolean.FALSE);
     psiFile.accept(new PsiRecursiveElementVisitor() {
       @Override
       public void visitElement(@NotNull PsiElement element) {
-        if (element instanceof PsiLanguageInjectionHost) {
+        if (element instanceof PsiLanguageInjectionHost host) {
           GraphQLInjectedLanguage injectedLanguage = GraphQLInjectedLanguage.forElement(element);
           if (injectedLanguage != null && injectedLanguage.isLanguageInjectionTarget(element)) {
             isInjected.set(Boolean.TRUE);
+            if (hasTypeSystemDefinitions(host)) {
+              hasTypeSystemDefinitions.set(Boolean.TRUE);
+            }
           }
         }
-        else if (isInjected.get() == Boolean.FALSE) {
-          // visit deeper until injection found
+        else if (hasTypeSystemDefinitions.get() == Boolean.FALSE) {
+          // visit deeper until an injection with type system definitions found
           super.visitElement(element);
         }
       }
     });
-    return isInjected.get() == Boolean.FALSE ? Collections.emptyMap() : INJECTED_KEY;
+    if (isInjected.get() == Boolean.FALSE) {
+      return Collections.emptyMap();
+    }
+    return hasTypeSystemDefinitions.get() == Boolean.TRUE ? TYPE_SYSTEM_KEYS : INJECTED_KEY;
   };
 
+  private static boolean hasTypeSystemDefinitions(@NotNull PsiLanguageInjectionHost host) {
+    final Ref<Boolean> result = new Ref<>(Boolean.FALSE);
+    GraphQLInjectionUtils.visitInjectionAsRawText(host, new PsiElementVisitor() {
+      @Override
+      public void visitFile(@NotNull PsiFile file) {
+        if (file instanceof GraphQLFile graphQLFile) {
+          for (GraphQLDefinition definition : graphQLFile.getDefinitions()) {
+            if (definition instanceof GraphQLTypeSystemDefinition) {
+              result.set(Boolean.TRUE);
+              return;
+            }
+          }
+        }
+      }
+    });
+    return result.get();
+  }
+
   @Override
   public @NotNull ID<String, Void> getName() {
     return NAME;
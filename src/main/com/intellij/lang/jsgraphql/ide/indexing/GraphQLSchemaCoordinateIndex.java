@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2019-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.indexing;
+
+import com.intellij.lang.jsgraphql.ide.injection.GraphQLInjectionUtils;
+import com.intellij.lang.jsgraphql.ide.search.GraphQLFileTypesProvider;
+import com.intellij.lang.jsgraphql.psi.GraphQLArgumentsDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLDirectiveDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumValue;
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumValueDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFieldDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFile;
+import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
+import com.intellij.lang.jsgraphql.psi.GraphQLInputValueDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeExtension;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeName;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeNameDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeSystemDefinition;
+import com.intellij.lang.jsgraphql.types.schema.FieldCoordinates;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiLanguageInjectionHost;
+import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.text.BlockSupport;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.xml.XmlFile;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes the definitions of fields, arguments, input fields and enum values by their schema coordinates,
+ * e.g. {@code Query.user}, {@code Query.user(id:)}, {@code Role.ADMIN} or {@code @include(if:)}, see {@link FieldCoordinates}.
+ * The members of type extensions are indexed under the extended type.
+ * <p>
+ * The values are the offsets of the defining identifiers, they are only known for GraphQL files,
+ * the injections are indexed from their raw text, see {@link #UNKNOWN_OFFSET}.
+ */
+public final class GraphQLSchemaCoordinateIndex extends FileBasedIndexExtension<String, List<Integer>> {
+
+  public static final ID<String, List<Integer>> NAME = ID.create("GraphQLSchemaCoordinateIndex");
+  public static final int VERSION = 1;
+
+  public static final int UNKNOWN_OFFSET = -1;
+
+  private static final DataExternalizer<List<Integer>> VALUE_EXTERNALIZER = new DataExternalizer<>() {
+    @Override
+    public void save(@NotNull DataOutput out, List<Integer> value) throws IOException {
+      DataInputOutputUtil.writeINT(out, value.size());
+      for (Integer offset : value) {
+        // shifted by one, so the unknown offset is written as zero
+        DataInputOutputUtil.writeINT(out, offset + 1);
+      }
+    }
+
+    @Override
+    public List<Integer> read(@NotNull DataInput in) throws IOException {
+      int size = DataInputOutputUtil.readINT(in);
+      List<Integer> offsets = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        offsets.add(DataInputOutputUtil.readINT(in) - 1);
+      }
+      return offsets;
+    }
+  };
+
+  private final DataIndexer<String, List<Integer>, FileContent> myDataIndexer = inputData -> {
+    PsiFile psiFile = inputData.getPsiFile();
+    if (psiFile instanceof XmlFile && BlockSupport.isTooDeep(psiFile)) {
+      return Collections.emptyMap();
+    }
+
+    final Map<String, List<Integer>> coordinates = new HashMap<>();
+    final boolean isGraphQLFile = psiFile instanceof GraphQLFile;
+    PsiRecursiveElementVisitor visitor = new PsiRecursiveElementVisitor() {
+      @Override
+      public void visitElement(@NotNull PsiElement element) {
+        if (element instanceof GraphQLIdentifier) {
+          String coordinate = getSchemaCoordinate(element);
+          if (coordinate != null) {
+            int offset = isGraphQLFile ? element.getTextOffset() : UNKNOWN_OFFSET;
+            coordinates.computeIfAbsent(coordinate, __ -> new ArrayList<>(1)).add(offset);
+          }
+          return; // no need to visit deeper
+        }
+        else if (element instanceof PsiLanguageInjectionHost host) {
+          if (GraphQLInjectionUtils.visitInjectionAsRawText(host, this)) {
+            return;
+          }
+        }
+
+        super.visitElement(element);
+      }
+    };
+
+    psiFile.accept(visitor);
+
+    return coordinates;
+  };
+
+  /**
+   * @return the schema coordinate of the member defined by the identifier, or null if it doesn't define a member of a type or directive
+   */
+  public static @Nullable String getSchemaCoordinate(@NotNull PsiElement identifier) {
+    PsiElement parent = identifier.getParent();
+    String name = identifier.getText();
+    if (parent instanceof GraphQLFieldDefinition) {
+      String typeName = getContainingTypeName(parent);
+      return typeName != null ? FieldCoordinates.coordinates(typeName, name).toSchemaCoordinate() : null;
+    }
+    if (parent instanceof GraphQLEnumValue && parent.getParent() instanceof GraphQLEnumValueDefinition) {
+      String typeName = getContainingTypeName(parent);
+      return typeName != null ? FieldCoordinates.coordinates(typeName, name).toSchemaCoordinate() : null;
+    }
+    if (parent instanceof GraphQLInputValueDefinition) {
+      if (parent.getParent() instanceof GraphQLArgumentsDefinition argumentsDefinition) {
+        PsiElement owner = argumentsDefinition.getParent();
+        if (owner instanceof GraphQLFieldDefinition fieldDefinition) {
+          String typeName = getContainingTypeName(fieldDefinition);
+          String fieldName = fieldDefinition.getName();
+          return typeName != null && fieldName != null
+                 ? FieldCoordinates.coordinates(typeName, fieldName).toSchemaCoordinate(name)
+                 : null;
+        }
+        if (owner instanceof GraphQLDirectiveDefinition directiveDefinition) {
+          GraphQLIdentifier directiveName = directiveDefinition.getNameIdentifier();
+          return directiveName != null ? getDirectiveArgumentCoordinate(directiveName.getText(), name) : null;
+        }
+        return null;
+      }
+      String typeName = getContainingTypeName(parent);
+      return typeName != null ? FieldCoordinates.coordinates(typeName, name).toSchemaCoordinate() : null;
+    }
+    return null;
+  }
+
+  /**
+   * @return the schema coordinate of the directive argument, e.g. {@code @include(if:)}
+   */
+  public static @NotNull String getDirectiveArgumentCoordinate(@NotNull String directiveName, @NotNull String argumentName) {
+    return "@" + directiveName + "(" + argumentName + ":)";
+  }
+
+  private static @Nullable String getContainingTypeName(@NotNull PsiElement element) {
+    GraphQLTypeSystemDefinition definition = PsiTreeUtil.getParentOfType(element, GraphQLTypeDefinition.class, GraphQLTypeExtension.class);
+    if (definition instanceof GraphQLTypeDefinition) {
+      GraphQLTypeNameDefinition typeNameDefinition = PsiTreeUtil.findChildOfType(definition, GraphQLTypeNameDefinition.class);
+      return typeNameDefinition != null ? typeNameDefinition.getName() : null;
+    }
+    if (definition instanceof GraphQLTypeExtension) {
+      GraphQLTypeName typeName = PsiTreeUtil.findChildOfType(definition, GraphQLTypeName.class);
+      return typeName != null ? typeName.getName() : null;
+    }
+    return null;
+  }
+
+  @Override
+  public @NotNull ID<String, List<Integer>> getName() {
+    return NAME;
+  }
+
+  @Override
+  public @NotNull DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+    return myDataIndexer;
+  }
+
+  @Override
+  public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+    return new EnumeratorStringDescriptor();
+  }
+
+  @Override
+  public @NotNull DataExternalizer<List<Integer>> getValueExternalizer() {
+    return VALUE_EXTERNALIZER;
+  }
+
+  @Override
+  public int getVersion() {
+    return GraphQLIndexUtil.INDEX_BASE_VERSION + VERSION;
+  }
+
+  @Override
+  public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+    return file -> GraphQLFileTypesProvider.getService().isAcceptedFile(file);
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  @Override
+  public @NotNull Collection<FileType> getFileTypesWithSizeLimitNotApplicable() {
+    return GraphQLIndexUtil.FILE_TYPES_WITH_IGNORED_SIZE_LIMIT;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.indexing;
+
+import com.intellij.lang.jsgraphql.GraphQLFileType;
+import com.intellij.lang.jsgraphql.psi.GraphQLFile;
+import com.intellij.lang.jsgraphql.schema.GraphQLDocumentExternalizer;
+import com.intellij.lang.jsgraphql.schema.GraphQLPsiDocumentBuilder;
+import com.intellij.lang.jsgraphql.schema.library.GraphQLLibraryManager;
+import com.intellij.lang.jsgraphql.types.language.Document;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.SingleEntryFileBasedIndexExtension;
+import com.intellij.util.indexing.SingleEntryIndexer;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.UnsyncByteArrayInputStream;
+import com.intellij.util.io.UnsyncByteArrayOutputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Stores the type system definitions of GraphQL files in a serialized form,
+ * so the schema can be assembled without building PSI for files that aren't opened.
+ * The stored documents have neither a source name nor library markers, they are added on read,
+ * because a file can be moved without being reindexed, and libraries are only known in the context of a project.
+ */
+public final class GraphQLSchemaDocumentIndex extends SingleEntryFileBasedIndexExtension<byte[]> {
+
+  private static final Logger LOG = Logger.getInstance(GraphQLSchemaDocumentIndex.class);
+
+  public static final ID<Integer, byte[]> NAME = ID.create("GraphQLSchemaDocumentIndex");
+  public static final int VERSION = 1;
+
+  private static final Key<CachedDocument> CACHED_DOCUMENT_KEY = Key.create("graphql.schema.document.index.cached");
+
+  private final SingleEntryIndexer<byte[]> myIndexer = new SingleEntryIndexer<>(false) {
+    @Override
+    protected byte @Nullable [] computeValue(@NotNull FileContent inputData) {
+      PsiFile psiFile = inputData.getPsiFile();
+      if (!(psiFile instanceof GraphQLFile graphQLFile)) {
+        return null;
+      }
+
+      Document document = GraphQLPsiDocumentBuilder.createTypeSystemDocument(graphQLFile, inputData.getContentAsText());
+      if (document.getDefinitions().isEmpty()) {
+        return null;
+      }
+
+      try {
+        UnsyncByteArrayOutputStream bytes = new UnsyncByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+          GraphQLDocumentExternalizer.INSTANCE.save(output, document);
+        }
+        return bytes.toByteArray();
+      }
+      catch (IOException e) {
+        LOG.warn("Unable to serialize type definitions: " + inputData.getFile().getPath(), e);
+        return null;
+      }
+    }
+  };
+
+  /**
+   * Returns a document with the type system definitions of the file as they were on the last indexing.
+   * Subsequent calls return the same instance until the file is changed.
+   * The documents of the bundled libraries are never released, so all the projects share the same instance.
+   *
+   * @return null if the file contains no type system definitions
+   */
+  public static @Nullable Document getTypeSystemDocument(@NotNull Project project, @NotNull VirtualFile file) {
+    String path = file.getPath();
+    long modificationStamp = file.getModificationStamp();
+    GraphQLLibraryManager libraryManager = GraphQLLibraryManager.getInstance(project);
+    boolean isInLibrary = libraryManager.isLibraryRoot(file);
+
+    CachedDocument cachedDocument = file.getUserData(CACHED_DOCUMENT_KEY);
+    if (cachedDocument != null && cachedDocument.isUpToDate(path, modificationStamp, isInLibrary)) {
+      Document document = cachedDocument.getDocument();
+      if (document != null) {
+        return document;
+      }
+    }
+
+    Map<Integer, byte[]> data = FileBasedIndex.getInstance().getFileData(NAME, file, project);
+    byte[] bytes = data.isEmpty() ? null : data.values().iterator().next();
+    if (bytes == null) {
+      return null;
+    }
+
+    Document document;
+    try (DataInputStream input = new DataInputStream(new UnsyncByteArrayInputStream(bytes))) {
+      document = GraphQLDocumentExternalizer.INSTANCE.read(input, path, isInLibrary);
+    }
+    catch (ProcessCanceledException e) {
+      throw e;
+    }
+    catch (Exception e) {
+      LOG.warn("Unable to deserialize type definitions: " + path, e);
+      return null;
+    }
+
+    CachedDocument newCachedDocument =
+      new CachedDocument(path, modificationStamp, isInLibrary, document, libraryManager.isBundledLibraryRoot(file));
+    boolean isStored = cachedDocument != null
+                       ? file.replace(CACHED_DOCUMENT_KEY, cachedDocument, newCachedDocument)
+                       : file.putUserDataIfAbsent(CACHED_DOCUMENT_KEY, newCachedDocument) == newCachedDocument;
+    if (!isStored) {
+      // keep the instance stored by a concurrent call, so the builds still end up with the same document
+      CachedDocument storedDocument = file.getUserData(CACHED_DOCUMENT_KEY);
+      if (storedDocument != null && storedDocument.isUpToDate(path, modificationStamp, isInLibrary)) {
+        Document storedInstance = storedDocument.getDocument();
+        if (storedInstance != null) {
+          return storedInstance;
+        }
+      }
+    }
+    return document;
+  }
+
+  @Override
+  public @NotNull ID<Integer, byte[]> getName() {
+    return NAME;
+  }
+
+  @Override
+  public @NotNull SingleEntryIndexer<byte[]> getIndexer() {
+    return myIndexer;
+  }
+
+  @Override
+  public @NotNull DataExternalizer<byte[]> getValueExternalizer() {
+    return ByteArrayExternalizer.INSTANCE;
+  }
+
+  @Override
+  public int getVersion() {
+    return GraphQLIndexUtil.INDEX_BASE_VERSION + VERSION + GraphQLDocumentExternalizer.VERSION * 100;
+  }
+
+  @Override
+  public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+    return new DefaultFileTypeSpecificInputFilter(GraphQLFileType.INSTANCE);
+  }
+
+  @Override
+  public @NotNull Collection<FileType> getFileTypesWithSizeLimitNotApplicable() {
+    return GraphQLIndexUtil.FILE_TYPES_WITH_IGNORED_SIZE_LIMIT;
+  }
+
+  private static final class CachedDocument {
+    private final String myPath;
+    private final long myModificationStamp;
+    private final boolean myIsInLibrary;
+    private final SoftReference<Document> myDocument;
+    // the bundled definitions don't change while the IDE is running, so they are kept as long as the file
+    private final @Nullable Document myBundledDocument;
+
+    private CachedDocument(@NotNull String path,
+                           long modificationStamp,
+                           boolean isInLibrary,
+                           @NotNull Document document,
+                           boolean isBundled) {
+      myPath = path;
+      myModificationStamp = modificationStamp;
+      myIsInLibrary = isInLibrary;
+      myDocument = new SoftReference<>(document);
+      myBundledDocument = isBundled ? document : null;
+    }
+
+    boolean isUpToDate(@NotNull String path, long modificationStamp, boolean isInLibrary) {
+      return myModificationStamp == modificationStamp && myIsInLibrary == isInLibrary && myPath.equals(path);
+    }
+
+    @Nullable Document getDocument() {
+      return myBundledDocument != null ? myBundledDocument : myDocument.get();
+    }
+  }
+
+  private static final class ByteArrayExternalizer implements DataExternalizer<byte[]> {
+    private static final ByteArrayExternalizer INSTANCE = new ByteArrayExternalizer();
+
+    @Override
+    public void save(@NotNull DataOutput out, byte[] value) throws IOException {
+      DataInputOutputUtil.writeINT(out, value.length);
+      out.write(value);
+    }
+
+    @Override
+    public byte[] read(@NotNull DataInput in) throws IOException {
+      byte[] value = new byte[DataInputOutputUtil.readINT(in)];
+      in.readFully(value);
+      return value;
+    }
+  }
+}
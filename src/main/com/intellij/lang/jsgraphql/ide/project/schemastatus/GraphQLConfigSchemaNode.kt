@@ -12,6 +12,7 @@ import com.intellij.lang.jsgraphql.GraphQLBundle
 import com.intellij.lang.jsgraphql.icons.GraphQLIcons
 import com.intellij.lang.jsgraphql.ide.config.model.GraphQLConfig
 import com.intellij.lang.jsgraphql.ide.config.model.GraphQLProjectConfig
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaCacheStatistics
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaInfo
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaProvider
 import com.intellij.openapi.application.runReadAction
@@ -33,6 +34,7 @@ class GraphQLConfigSchemaNode(
 
   private val usedProjectConfig: GraphQLProjectConfig?
   private val schemaInfo: GraphQLSchemaInfo?
+  private val cacheStatistics: GraphQLSchemaCacheStatistics?
   private val performSchemaDiscovery: Boolean
   private val isProjectLevelNode: Boolean
 
@@ -55,10 +57,13 @@ class GraphQLConfigSchemaNode(
     if (performSchemaDiscovery) {
       usedProjectConfig = projectConfig ?: defaultProjectConfig
       val scope = runReadAction { usedProjectConfig!!.schemaScope }
-      schemaInfo = GraphQLSchemaProvider.getInstance(myProject).getCachedSchemaInfo(scope)
+      val schemaProvider = GraphQLSchemaProvider.getInstance(myProject)
+      schemaInfo = schemaProvider.getCachedSchemaInfo(scope)
+      cacheStatistics = schemaProvider.getCacheStatistics(scope)
     }
     else {
       schemaInfo = null
+      cacheStatistics = null
       usedProjectConfig = null
     }
   }
@@ -71,6 +76,9 @@ class GraphQLConfigSchemaNode(
     if (performSchemaDiscovery && schemaInfo != null) {
       children.add(GraphQLSchemaContentNode(this, schemaInfo))
       children.add(GraphQLSchemaErrorsListNode(this, schemaInfo))
+      if (cacheStatistics != null) {
+        children.add(GraphQLSchemaStatisticsNode(this, schemaInfo, cacheStatistics))
+      }
     }
     if (!isProjectLevelNode && !config.hasOnlyDefaultProject()) {
       children.add(GraphQLConfigProjectsNode(this))
@@ -10,6 +10,7 @@ package com.intellij.lang.jsgraphql.ide.project.schemastatus
 import com.intellij.lang.jsgraphql.GraphQLBundle
 import com.intellij.lang.jsgraphql.icons.GraphQLIcons
 import com.intellij.lang.jsgraphql.ide.resolve.GraphQLScopeProvider
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaCacheStatistics
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaInfo
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaProvider
 import com.intellij.openapi.application.runReadAction
@@ -22,6 +23,7 @@ import com.intellij.ui.treeStructure.SimpleNode
  */
 class GraphQLDefaultSchemaNode(project: Project, parent: GraphQLSchemasRootNode) : CachingSimpleNode(project, parent) {
   private val schemaInfo: GraphQLSchemaInfo
+  private val cacheStatistics: GraphQLSchemaCacheStatistics
 
   init {
     myName = GraphQLBundle.message("graphql.toolwindow.default.schema.node.name")
@@ -29,12 +31,15 @@ class GraphQLDefaultSchemaNode(project: Project, parent: GraphQLSchemasRootNode)
     presentation.setIcon(GraphQLIcons.Files.GraphQLSchema)
 
     val globalScope = runReadAction { GraphQLScopeProvider.getInstance(project).globalScope }
-    schemaInfo = GraphQLSchemaProvider.getInstance(myProject).getCachedSchemaInfo(globalScope)
+    val schemaProvider = GraphQLSchemaProvider.getInstance(myProject)
+    schemaInfo = schemaProvider.getCachedSchemaInfo(globalScope)
+    cacheStatistics = schemaProvider.getCacheStatistics(globalScope)
   }
 
   public override fun buildChildren(): Array<SimpleNode> {
     val children: MutableList<SimpleNode> = mutableListOf(GraphQLSchemaContentNode(this, schemaInfo))
     children.add(GraphQLSchemaErrorsListNode(this, schemaInfo))
+    children.add(GraphQLSchemaStatisticsNode(this, schemaInfo, cacheStatistics))
     children.add(GraphQLSchemaEndpointsListNode(this, null))
     return children.toTypedArray()
   }
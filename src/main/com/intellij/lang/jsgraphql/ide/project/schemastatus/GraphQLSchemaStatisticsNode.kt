@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.ide.project.schemastatus
+
+import com.intellij.icons.AllIcons
+import com.intellij.lang.jsgraphql.GraphQLBundle
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaBuildPhase
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaCacheStatistics
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaInfo
+import com.intellij.openapi.util.NlsSafe
+import com.intellij.ui.treeStructure.CachingSimpleNode
+import com.intellij.ui.treeStructure.SimpleNode
+import org.jetbrains.annotations.Nls
+
+/**
+ * Tree node with the timings of the last schema build and the cache counters of the scope
+ */
+class GraphQLSchemaStatisticsNode(
+  parent: SimpleNode,
+  private val schemaInfo: GraphQLSchemaInfo,
+  private val cacheStatistics: GraphQLSchemaCacheStatistics,
+) : CachingSimpleNode(parent) {
+
+  init {
+    myName = GraphQLBundle.message("graphql.toolwindow.schema.statistics.node.name")
+
+    val statistics = schemaInfo.statistics
+    val locationDelimiter = "- "
+    templatePresentation.locationString = locationDelimiter + if (statistics.filesCount > 0) {
+      GraphQLBundle.message(
+        "graphql.toolwindow.schema.statistics.summary",
+        statistics.totalDuration.inWholeMilliseconds,
+        statistics.filesCount,
+        statistics.definitionsCount,
+        statistics.extensionsCount
+      )
+    }
+    else {
+      GraphQLBundle.message("graphql.toolwindow.schema.statistics.empty")
+    }
+    icon = AllIcons.Actions.Profile
+  }
+
+  public override fun buildChildren(): Array<SimpleNode> {
+    val children = mutableListOf<SimpleNode>()
+    val statistics = schemaInfo.statistics
+    for (phase in GraphQLSchemaBuildPhase.values()) {
+      children.add(StatisticsEntryNode(
+        this,
+        getPhaseName(phase),
+        GraphQLBundle.message("graphql.toolwindow.schema.statistics.phase.duration", statistics.getDuration(phase).inWholeMilliseconds)
+      ))
+    }
+    children.add(StatisticsEntryNode(
+      this,
+      GraphQLBundle.message("graphql.toolwindow.schema.statistics.cache.node.name"),
+      GraphQLBundle.message(
+        "graphql.toolwindow.schema.statistics.cache.counters",
+        cacheStatistics.hitsCount,
+        cacheStatistics.missesCount,
+        cacheStatistics.buildsCount,
+        cacheStatistics.cancellationsCount,
+        cacheStatistics.evictionsCount
+      )
+    ))
+    return children.toTypedArray()
+  }
+
+  private fun getPhaseName(phase: GraphQLSchemaBuildPhase): @Nls String {
+    return when (phase) {
+      GraphQLSchemaBuildPhase.DOCUMENTS_COLLECTION -> GraphQLBundle.message("graphql.toolwindow.schema.statistics.phase.documents.collection")
+      GraphQLSchemaBuildPhase.PSI_TO_AST -> GraphQLBundle.message("graphql.toolwindow.schema.statistics.phase.psi.to.ast")
+      GraphQLSchemaBuildPhase.COMPOSITE_MERGE -> GraphQLBundle.message("graphql.toolwindow.schema.statistics.phase.composite.merge")
+      GraphQLSchemaBuildPhase.TYPE_CHECKING -> GraphQLBundle.message("graphql.toolwindow.schema.statistics.phase.type.checking")
+      GraphQLSchemaBuildPhase.SCHEMA_GENERATION -> GraphQLBundle.message("graphql.toolwindow.schema.statistics.phase.schema.generation")
+      GraphQLSchemaBuildPhase.SCHEMA_VALIDATION -> GraphQLBundle.message("graphql.toolwindow.schema.statistics.phase.schema.validation")
+      GraphQLSchemaBuildPhase.ERRORS_FILTERING -> GraphQLBundle.message("graphql.toolwindow.schema.statistics.phase.errors.filtering")
+    }
+  }
+
+  private class StatisticsEntryNode(parent: SimpleNode, @Nls name: String, @NlsSafe value: String) : SimpleNode(parent) {
+    init {
+      myName = name
+      templatePresentation.locationString = "- $value"
+    }
+
+    override fun getChildren(): Array<SimpleNode> {
+      return NO_CHILDREN
+    }
+
+    override fun isAlwaysLeaf(): Boolean {
+      return true
+    }
+  }
+}
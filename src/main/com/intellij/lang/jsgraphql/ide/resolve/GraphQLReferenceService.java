@@ -7,32 +7,27 @@
  */
 package com.intellij.lang.jsgraphql.ide.resolve;
 
-import com.google.common.collect.Maps;
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex;
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex.IdentifierKind;
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLSchemaCoordinateIndex;
+import com.intellij.lang.jsgraphql.ide.injection.GraphQLInjectedLanguage;
 import com.intellij.lang.jsgraphql.ide.search.GraphQLPsiSearchHelper;
 import com.intellij.lang.jsgraphql.psi.GraphQLArgument;
 import com.intellij.lang.jsgraphql.psi.GraphQLArgumentsDefinition;
 import com.intellij.lang.jsgraphql.psi.GraphQLDirective;
-import com.intellij.lang.jsgraphql.psi.GraphQLDirectiveDefinition;
 import com.intellij.lang.jsgraphql.psi.GraphQLElement;
-import com.intellij.lang.jsgraphql.psi.GraphQLElementTypes;
-import com.intellij.lang.jsgraphql.psi.GraphQLEnumTypeDefinition;
 import com.intellij.lang.jsgraphql.psi.GraphQLEnumValue;
 import com.intellij.lang.jsgraphql.psi.GraphQLField;
 import com.intellij.lang.jsgraphql.psi.GraphQLFieldDefinition;
-import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLFile;
 import com.intellij.lang.jsgraphql.psi.GraphQLFragmentSpread;
 import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
 import com.intellij.lang.jsgraphql.psi.GraphQLImplementsInterfaces;
-import com.intellij.lang.jsgraphql.psi.GraphQLInputObjectTypeDefinition;
 import com.intellij.lang.jsgraphql.psi.GraphQLInputValueDefinition;
 import com.intellij.lang.jsgraphql.psi.GraphQLObjectField;
-import com.intellij.lang.jsgraphql.psi.GraphQLPsiUtil;
 import com.intellij.lang.jsgraphql.psi.GraphQLRecursiveVisitor;
 import com.intellij.lang.jsgraphql.psi.GraphQLReferenceElement;
-import com.intellij.lang.jsgraphql.psi.GraphQLTypeDefinition;
-import com.intellij.lang.jsgraphql.psi.GraphQLTypeExtension;
 import com.intellij.lang.jsgraphql.psi.GraphQLTypeName;
-import com.intellij.lang.jsgraphql.psi.GraphQLTypeNameDefinition;
 import com.intellij.lang.jsgraphql.psi.GraphQLTypeScopeProvider;
 import com.intellij.lang.jsgraphql.psi.GraphQLTypeSystemDefinition;
 import com.intellij.lang.jsgraphql.psi.impl.GraphQLDirectiveImpl;
@@ -40,64 +35,105 @@ import com.intellij.lang.jsgraphql.psi.impl.GraphQLFieldImpl;
 import com.intellij.lang.jsgraphql.psi.impl.GraphQLReferenceMixin;
 import com.intellij.lang.jsgraphql.schema.GraphQLSchemaUtil;
 import com.intellij.lang.jsgraphql.schema.library.GraphQLBundledLibraryTypes;
+import com.intellij.lang.jsgraphql.types.schema.FieldCoordinates;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLType;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiLanguageInjectionHost;
+import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiNamedElement;
 import com.intellij.psi.PsiReference;
 import com.intellij.psi.PsiReferenceBase;
-import com.intellij.psi.impl.AnyPsiChangeListener;
-import com.intellij.psi.impl.PsiManagerImpl;
-import com.intellij.psi.impl.source.tree.LeafPsiElement;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 public class GraphQLReferenceService implements Disposable {
 
-  private final Map<String, PsiReference> logicalTypeNameToReference = Maps.newConcurrentMap();
-  private final GraphQLPsiSearchHelper myPsiSearchHelper;
-
   /**
-   * Sentinel reference for use in concurrent maps which don't allow nulls
+   * Type names are resolved the same way for all the references in a scope, so the definitions are cached by the scope and the name.
+   * A found definition is kept while it's valid and still has the same name, while an unresolved name is looked up again
+   * after any change of GraphQL files, injections or the identifier index, see {@link #myDefinitionsModificationTracker}.
+   * All the entries are dropped once the scopes can change, see {@link GraphQLScopeDependency}.
    */
-  private static final PsiReference NULL_REFERENCE = new PsiReferenceBase<PsiElement>(
-    new LeafPsiElement(GraphQLElementTypes.TYPE, "type"), true
-  ) {
-    @Override
-    public @Nullable PsiElement resolve() {
-      return null;
-    }
+  private final Map<TypeNameKey, TypeNameResolution> myTypeNameResolutions = ContainerUtil.createConcurrentSoftValueMap();
+  private final AtomicLong myScopeModificationStamp = new AtomicLong(-1);
+  private final SimpleModificationTracker myDefinitionsModificationTracker = new SimpleModificationTracker();
 
-    @Override
-    public Object @NotNull [] getVariants() {
-      return PsiReference.EMPTY_ARRAY;
-    }
-  };
+  private final Project myProject;
+  private final GraphQLPsiSearchHelper myPsiSearchHelper;
 
   public static GraphQLReferenceService getService(@NotNull Project project) {
     return project.getService(GraphQLReferenceService.class);
   }
 
   public GraphQLReferenceService(final @NotNull Project project) {
+    myProject = project;
     myPsiSearchHelper = GraphQLPsiSearchHelper.getInstance(project);
 
-    project.getMessageBus().connect(this).subscribe(PsiManagerImpl.ANY_PSI_CHANGE_TOPIC, new AnyPsiChangeListener() {
+    PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
       @Override
-      public void beforePsiChanged(boolean isPhysical) {
-        // clear the cache on each PSI change
-        logicalTypeNameToReference.clear();
+      public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        onPsiChanged(event);
       }
-    });
+
+      @Override
+      public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        onPsiChanged(event);
+      }
+
+      @Override
+      public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        onPsiChanged(event);
+      }
+
+      @Override
+      public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        onPsiChanged(event);
+      }
+
+      @Override
+      public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        onPsiChanged(event);
+      }
+
+      @Override
+      public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+        onPsiChanged(event);
+      }
+    }, this);
+  }
+
+  private void onPsiChanged(@NotNull PsiTreeChangeEvent event) {
+    // changes in other languages can't add GraphQL definitions unless they're made in the injections
+    if (event.getFile() instanceof GraphQLFile || isInGraphQLInjection(event.getParent())) {
+      myDefinitionsModificationTracker.incModificationCount();
+    }
+  }
+
+  private static boolean isInGraphQLInjection(@Nullable PsiElement element) {
+    PsiLanguageInjectionHost host = PsiTreeUtil.getParentOfType(element, PsiLanguageInjectionHost.class, false);
+    if (host == null) return false;
+    GraphQLInjectedLanguage injectedLanguage = GraphQLInjectedLanguage.forElement(host);
+    return injectedLanguage != null && injectedLanguage.isLanguageInjectionTarget(host);
   }
 
   public @Nullable PsiElement resolveReference(@NotNull GraphQLReferenceMixin element) {
@@ -176,27 +212,22 @@ public class GraphQLReferenceService implements Disposable {
       if (directive != null) {
         final GraphQLIdentifier directiveNameIdentifier = directive.getNameIdentifier();
         if (directiveNameIdentifier != null) {
-          final PsiReference directiveReference = directiveNameIdentifier.getReference();
-          if (directiveReference != null) {
-            final PsiElement directiveIdentifier = directiveReference.resolve();
-            if (directiveIdentifier != null) {
-              final GraphQLArgumentsDefinition arguments =
-                PsiTreeUtil.getNextSiblingOfType(directiveIdentifier, GraphQLArgumentsDefinition.class);
-              if (arguments != null) {
-                for (GraphQLInputValueDefinition inputValueDefinition : arguments.getInputValueDefinitionList()) {
-                  if (name.equals(inputValueDefinition.getName())) {
-                    return createInputValueDefinitionReference(element, inputValueDefinition);
-                  }
-                }
-              }
-            }
-          }
+          final String coordinate = GraphQLSchemaCoordinateIndex.getDirectiveArgumentCoordinate(directiveNameIdentifier.getText(), name);
+          return resolveUsingCoordinate(element, name, coordinate);
         }
         return null;
       }
       // field argument
       final GraphQLFieldImpl field = PsiTreeUtil.getParentOfType(element, GraphQLFieldImpl.class);
       if (field != null) {
+        final String coordinate = getFieldArgumentCoordinate(field, name);
+        if (coordinate != null) {
+          final PsiReference reference = resolveUsingCoordinate(element, name, coordinate);
+          if (reference != null) {
+            return reference;
+          }
+        }
+        // the introspection fields, e.g. __type(name:), are declared in the specification under their own meta types
         final PsiReference fieldPsiReference = field.getNameIdentifier().getReference();
         if (fieldPsiReference != null) {
           final PsiElement resolvedPsiReference = fieldPsiReference.resolve();
@@ -218,6 +249,23 @@ public class GraphQLReferenceService implements Disposable {
     return null;
   }
 
+  /**
+   * @return the schema coordinate of the argument definition, e.g. {@code User.friends(after:)}, based on the type scope of the field
+   */
+  private static @Nullable String getFieldArgumentCoordinate(@NotNull GraphQLFieldImpl field, @NotNull String argumentName) {
+    final String fieldName = field.getNameIdentifier().getText();
+    final GraphQLTypeScopeProvider typeScopeProvider = PsiTreeUtil.getParentOfType(field, GraphQLTypeScopeProvider.class);
+    if (typeScopeProvider == null) {
+      return null;
+    }
+    final GraphQLType typeScope = typeScopeProvider.getTypeScope();
+    if (typeScope == null) {
+      return null;
+    }
+    final String typeName = GraphQLSchemaUtil.getTypeName(GraphQLSchemaUtil.getUnmodified(typeScope));
+    return FieldCoordinates.coordinates(typeName, fieldName).toSchemaCoordinate(argumentName);
+  }
+
   @NotNull
   PsiReference createInputValueDefinitionReference(@NotNull GraphQLReferenceMixin element,
                                                    @NotNull GraphQLInputValueDefinition inputValueDefinition) {
@@ -254,37 +302,11 @@ public class GraphQLReferenceService implements Disposable {
       if (reference.isNull() && typeScopeProvider != null) {
         GraphQLType typeScope = typeScopeProvider.getTypeScope();
         if (typeScope != null) {
-          final GraphQLType fieldType = GraphQLSchemaUtil.getUnmodified(typeScope);
-          myPsiSearchHelper.processNamedElements(element, name, psiNamedElement -> {
-            if (psiNamedElement.getParent() instanceof GraphQLFieldDefinition fieldDefinition) {
-              if (!Objects.equals(fieldDefinition.getName(), name)) {
-                // field name doesn't match, keep looking
-                return true;
-              }
-              boolean isTypeMatch = false;
-              final GraphQLTypeDefinition typeDefinition =
-                PsiTreeUtil.getParentOfType(psiNamedElement, GraphQLTypeDefinition.class);
-              if (typeDefinition != null) {
-                final GraphQLTypeNameDefinition typeNameDefinition =
-                  PsiTreeUtil.findChildOfType(typeDefinition, GraphQLTypeNameDefinition.class);
-                isTypeMatch = typeNameDefinition != null &&
-                              GraphQLSchemaUtil.getTypeName(fieldType).equals(typeNameDefinition.getName());
-              }
-              if (!isTypeMatch) {
-                // check type extension
-                final GraphQLTypeExtension typeExtension =
-                  PsiTreeUtil.getParentOfType(psiNamedElement, GraphQLTypeExtension.class);
-                if (typeExtension != null) {
-                  final GraphQLTypeName typeName = PsiTreeUtil.findChildOfType(typeExtension, GraphQLTypeName.class);
-                  isTypeMatch = typeName != null && GraphQLSchemaUtil.getTypeName(fieldType).equals(typeName.getName());
-                }
-              }
-              if (isTypeMatch) {
-                reference.set(createReference(element, psiNamedElement));
-                return false; // done searching
-              }
-            }
-            return true;
+          final String typeName = GraphQLSchemaUtil.getTypeName(GraphQLSchemaUtil.getUnmodified(typeScope));
+          final String coordinate = FieldCoordinates.coordinates(typeName, name).toSchemaCoordinate();
+          myPsiSearchHelper.processDefinitionsByCoordinate(element, coordinate, name, fieldIdentifier -> {
+            reference.set(createReference(element, fieldIdentifier));
+            return false; // done searching
           });
         }
       }
@@ -310,27 +332,61 @@ public class GraphQLReferenceService implements Disposable {
 
   @Nullable
   PsiReference resolveTypeName(@NotNull GraphQLReferenceMixin element) {
-    final String logicalTypeName = GraphQLPsiUtil.getPhysicalFileName(element.getContainingFile()) + ":" + element.getName();
+    final String name = element.getName();
+    if (name == null) return null;
+    if (DumbService.isDumb(myProject)) {
+      return resolveUsingIndex(element, IdentifierKind.TYPE_DEFINITION, psiNamedElement -> true);
+    }
+
+    long scopeModificationStamp = GraphQLScopeDependency.getInstance(myProject).getModificationCount();
+    if (myScopeModificationStamp.getAndSet(scopeModificationStamp) != scopeModificationStamp) {
+      myTypeNameResolutions.clear();
+    }
+
+    final TypeNameKey key = new TypeNameKey(GraphQLScopeProvider.getInstance(myProject).getResolveScope(element), name);
     // intentionally not using computeIfAbsent here to avoid locking during long-running write actions
     // it's better to compute multiple times in certain rare cases than blocking
-    // NOTE: concurrent hash map doesn't allow nulls, so using the NULL_REFERENCE sentinel value to avoid re-computation of unresolvable references
-    PsiReference psiReference = logicalTypeNameToReference.get(logicalTypeName);
-    if (psiReference == null) {
-      psiReference = resolveUsingIndex(element,
-                                       psiNamedElement -> psiNamedElement instanceof GraphQLIdentifier &&
-                                                          psiNamedElement.getParent() instanceof GraphQLTypeNameDefinition);
-      // use sentinel to avoid nulls
-      logicalTypeNameToReference.putIfAbsent(logicalTypeName, psiReference != null ? psiReference : NULL_REFERENCE);
+    TypeNameResolution resolution = myTypeNameResolutions.get(key);
+    if (resolution == null || !isUpToDate(resolution, name)) {
+      long definitionsModificationStamp = getDefinitionsModificationCount();
+      PsiReference reference = resolveUsingIndex(element, IdentifierKind.TYPE_DEFINITION, psiNamedElement -> true);
+      resolution = new TypeNameResolution(reference != null ? reference.resolve() : null, definitionsModificationStamp);
+      myTypeNameResolutions.put(key, resolution);
+    }
+    return resolution.definition() != null ? createReference(element, resolution.definition()) : null;
+  }
+
+  private boolean isUpToDate(@NotNull TypeNameResolution resolution, @NotNull String name) {
+    PsiElement definition = resolution.definition();
+    if (definition == null) {
+      return resolution.modificationStamp() == getDefinitionsModificationCount();
     }
-    return psiReference != NULL_REFERENCE ? psiReference : null;
+    return definition.isValid() &&
+           name.equals(definition.getText()) &&
+           GraphQLIdentifierIndex.getIdentifierKind(definition) == IdentifierKind.TYPE_DEFINITION;
+  }
+
+  private long getDefinitionsModificationCount() {
+    // the index also changes for the files modified outside the editor, e.g. by VCS
+    return myDefinitionsModificationTracker.getModificationCount() +
+           FileBasedIndex.getInstance().getIndexModificationStamp(GraphQLIdentifierIndex.NAME, myProject);
   }
 
   @Nullable
   PsiReference resolveFragmentDefinition(@NotNull GraphQLReferenceMixin element) {
-    return resolveUsingIndex(element,
-                             psiNamedElement -> psiNamedElement instanceof GraphQLIdentifier &&
-                                                psiNamedElement.getParent() instanceof GraphQLFragmentDefinition
-    );
+    final String name = element.getName();
+    Ref<PsiReference> reference = new Ref<>();
+    if (name != null) {
+      myPsiSearchHelper.processFragmentDefinitions(element, name, fragmentDefinition -> {
+        final GraphQLIdentifier nameIdentifier = fragmentDefinition.getNameIdentifier();
+        if (nameIdentifier == null) {
+          return true;
+        }
+        reference.set(createReference(element, nameIdentifier));
+        return false; // done searching
+      });
+    }
+    return reference.get();
   }
 
   private @Nullable PsiReference resolveObjectField(@NotNull GraphQLReferenceMixin element, @NotNull GraphQLObjectField field) {
@@ -341,16 +397,7 @@ public class GraphQLReferenceService implements Disposable {
         GraphQLType typeScope = fieldTypeScopeProvider.getTypeScope();
         if (typeScope != null) {
           final String namedTypeScope = GraphQLSchemaUtil.getUnmodified(typeScope).getName();
-          return resolveUsingIndex(element, psiNamedElement -> {
-            if (psiNamedElement.getParent() instanceof GraphQLInputValueDefinition) {
-              final GraphQLInputObjectTypeDefinition inputTypeDefinition =
-                PsiTreeUtil.getParentOfType(psiNamedElement, GraphQLInputObjectTypeDefinition.class);
-              if (inputTypeDefinition != null && inputTypeDefinition.getTypeNameDefinition() != null) {
-                return namedTypeScope.equals(inputTypeDefinition.getTypeNameDefinition().getName());
-              }
-            }
-            return false;
-          });
+          return resolveUsingCoordinate(element, name, FieldCoordinates.coordinates(namedTypeScope, name).toSchemaCoordinate());
         }
       }
     }
@@ -365,16 +412,7 @@ public class GraphQLReferenceService implements Disposable {
         GraphQLType typeScope = enumTypeScopeProvider.getTypeScope();
         if (typeScope != null) {
           final String namedTypeScope = GraphQLSchemaUtil.getUnmodified(typeScope).getName();
-          return resolveUsingIndex(element, psiNamedElement -> {
-            if (psiNamedElement.getParent() instanceof GraphQLEnumValue) {
-              final GraphQLEnumTypeDefinition enumTypeDefinition =
-                PsiTreeUtil.getParentOfType(psiNamedElement, GraphQLEnumTypeDefinition.class);
-              if (enumTypeDefinition != null && enumTypeDefinition.getTypeNameDefinition() != null) {
-                return namedTypeScope.equals(enumTypeDefinition.getTypeNameDefinition().getName());
-              }
-            }
-            return false;
-          });
+          return resolveUsingCoordinate(element, name, FieldCoordinates.coordinates(namedTypeScope, name).toSchemaCoordinate());
         }
       }
     }
@@ -382,16 +420,27 @@ public class GraphQLReferenceService implements Disposable {
   }
 
   private @Nullable PsiReference resolveDirective(GraphQLReferenceMixin element) {
-    return resolveUsingIndex(element, psiNamedElement ->
-      psiNamedElement instanceof GraphQLIdentifier && psiNamedElement.getParent() instanceof GraphQLDirectiveDefinition);
+    return resolveUsingIndex(element, IdentifierKind.DIRECTIVE_DEFINITION, psiNamedElement -> true);
+  }
+
+  private @Nullable PsiReference resolveUsingCoordinate(@NotNull GraphQLReferenceMixin element,
+                                                        @NotNull String name,
+                                                        @NotNull String schemaCoordinate) {
+    Ref<PsiReference> reference = new Ref<>();
+    myPsiSearchHelper.processDefinitionsByCoordinate(element, schemaCoordinate, name, identifier -> {
+      reference.set(createReference(element, identifier));
+      return false; // done searching
+    });
+    return reference.get();
   }
 
   private @Nullable PsiReference resolveUsingIndex(@NotNull GraphQLReferenceMixin element,
-                                                   @NotNull Predicate<? super PsiNamedElement> predicate) {
+                                                   @NotNull IdentifierKind kind,
+                                                   @NotNull Predicate<? super GraphQLIdentifier> predicate) {
     final String name = element.getName();
     Ref<PsiReference> reference = new Ref<>();
     if (name != null) {
-      myPsiSearchHelper.processNamedElements(element, name, psiNamedElement -> {
+      myPsiSearchHelper.processNamedElements(element, name, EnumSet.of(kind), psiNamedElement -> {
         ProgressManager.checkCanceled();
         if (predicate.test(psiNamedElement)) {
           reference.set(new PsiReferenceBase<PsiNamedElement>(element, TextRange.from(0, element.getTextLength())) {
@@ -416,4 +465,14 @@ public class GraphQLReferenceService implements Disposable {
   @Override
   public void dispose() {
   }
+
+  private record TypeNameKey(@NotNull GlobalSearchScope scope, @NotNull String name) {
+  }
+
+  /**
+   * @param modificationStamp the value of {@link #getDefinitionsModificationCount()} before the lookup,
+   *                          only checked for the unresolved names
+   */
+  private record TypeNameResolution(@Nullable PsiElement definition, long modificationStamp) {
+  }
 }
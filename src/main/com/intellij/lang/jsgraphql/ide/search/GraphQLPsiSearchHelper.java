@@ -11,17 +11,23 @@ package com.intellij.lang.jsgraphql.ide.search;
 import com.intellij.lang.injection.InjectedLanguageManager;
 import com.intellij.lang.jsgraphql.ide.indexing.GraphQLFragmentNameIndex;
 import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex;
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex.Definition;
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex.IdentifierKind;
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex.Identifiers;
 import com.intellij.lang.jsgraphql.ide.indexing.GraphQLInjectionIndex;
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLSchemaCoordinateIndex;
 import com.intellij.lang.jsgraphql.ide.injection.GraphQLInjectedLanguage;
 import com.intellij.lang.jsgraphql.ide.resolve.GraphQLScopeProvider;
 import com.intellij.lang.jsgraphql.psi.GraphQLFile;
 import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition;
+import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.IndexNotReadyException;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiLanguageInjectionHost;
@@ -31,16 +37,21 @@ import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.PairProcessor;
 import com.intellij.util.Processor;
+import com.intellij.util.SmartList;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.containers.MultiMap;
 import com.intellij.util.indexing.FileBasedIndex;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -63,7 +74,8 @@ public class GraphQLPsiSearchHelper implements Disposable {
   }
 
   /**
-   * Finds all fragment definitions inside the scope of the specified element
+   * Finds all fragment definitions inside the scope of the specified element.
+   * PSI of all the files with fragments is loaded, so prefer {@link #processFragments} and {@link #processFragmentDefinitions}.
    *
    * @param context the starting point for finding known fragment definitions
    * @return a list of known fragment definitions, or an empty list if the index is not yet ready
@@ -72,28 +84,110 @@ public class GraphQLPsiSearchHelper implements Disposable {
     if (DumbService.isDumb(context.getProject())) return Collections.emptyList();
 
     try {
+      GlobalSearchScope scope = GraphQLScopeProvider.getInstance(myProject).getResolveScope(context, false);
       List<GraphQLFragmentDefinition> fragmentDefinitions = new ArrayList<>();
+      for (VirtualFile virtualFile : getFilesWithFragments(scope)) {
+        PsiFile psiFile = myPsiManager.findFile(virtualFile);
+        if (psiFile != null) {
+          fragmentDefinitions.addAll(collectFragmentDefinitions(psiFile));
+        }
+      }
+      return fragmentDefinitions;
+    }
+    catch (IndexNotReadyException e) {
+      LOG.warn(e);
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Processes the names and the type conditions of the fragments inside the scope of the specified element
+   * using {@link GraphQLFragmentNameIndex}, so no PSI is loaded. A name is processed for each of its definitions.
+   *
+   * @param processor receives the name of a fragment and the type name of its type condition, which is empty if missing
+   */
+  public void processFragments(@NotNull PsiElement context, @NotNull PairProcessor<? super String, ? super String> processor) {
+    if (DumbService.isDumb(context.getProject())) return;
+
+    try {
       GlobalSearchScope scope = GraphQLScopeProvider.getInstance(myProject).getResolveScope(context, false);
-      PsiManager psiManager = PsiManager.getInstance(myProject);
-      FileBasedIndex.getInstance().processFilesContainingAllKeys(
-        GraphQLFragmentNameIndex.NAME,
-        Collections.singleton(GraphQLFragmentNameIndex.HAS_FRAGMENTS),
-        scope,
-        null,
-        virtualFile -> {
-          PsiFile psiFile = psiManager.findFile(virtualFile);
-          if (psiFile != null) {
-            fragmentDefinitions.addAll(collectFragmentDefinitions(psiFile));
+      for (VirtualFile virtualFile : getFilesWithFragments(scope)) {
+        ProgressManager.checkCanceled();
+        Map<String, List<GraphQLFragmentNameIndex.Fragment>> fileFragments =
+          FileBasedIndex.getInstance().getFileData(GraphQLFragmentNameIndex.NAME, virtualFile, myProject);
+        for (Map.Entry<String, List<GraphQLFragmentNameIndex.Fragment>> entry : fileFragments.entrySet()) {
+          for (GraphQLFragmentNameIndex.Fragment fragment : entry.getValue()) {
+            if (!processor.process(entry.getKey(), fragment.typeCondition())) return;
           }
-          return true; // process all known fragments
-        });
+        }
+      }
+    }
+    catch (IndexNotReadyException e) {
+      LOG.warn(e);
+    }
+  }
 
-      return fragmentDefinitions;
+  /**
+   * Processes the definitions of the fragment with the specified name inside the scope of the specified element
+   * using {@link GraphQLFragmentNameIndex}, so only the files defining it are loaded.
+   */
+  public void processFragmentDefinitions(@NotNull PsiElement context,
+                                         @NotNull String name,
+                                         @NotNull Processor<? super GraphQLFragmentDefinition> processor) {
+    if (DumbService.isDumb(context.getProject())) return;
+
+    try {
+      GlobalSearchScope scope = GraphQLScopeProvider.getInstance(myProject).getResolveScope(context, false);
+      FileBasedIndex.getInstance().processValues(GraphQLFragmentNameIndex.NAME, name, null, (virtualFile, fragments) -> {
+        ProgressManager.checkCanceled();
+        PsiFile psiFile = myPsiManager.findFile(virtualFile);
+        if (psiFile == null) {
+          return true;
+        }
+        if (psiFile instanceof GraphQLFile) {
+          List<GraphQLFragmentDefinition> fragmentDefinitions = findIndexedFragmentDefinitions((GraphQLFile)psiFile, name, fragments);
+          if (fragmentDefinitions != null) {
+            return ContainerUtil.process(fragmentDefinitions, processor);
+          }
+        }
+
+        for (GraphQLFragmentDefinition fragmentDefinition : collectFragmentDefinitions(psiFile)) {
+          if (name.equals(fragmentDefinition.getName()) && !processor.process(fragmentDefinition)) return false;
+        }
+        return true;
+      }, scope);
     }
     catch (IndexNotReadyException e) {
       LOG.warn(e);
     }
-    return Collections.emptyList();
+  }
+
+  /**
+   * @return the fragment definitions found at the indexed offsets, or null if any of them doesn't match,
+   * e.g. the index is outdated for an uncommitted document, then all the fragments of the file have to be checked instead
+   */
+  private static @Nullable List<GraphQLFragmentDefinition> findIndexedFragmentDefinitions(@NotNull GraphQLFile file,
+                                                                                          @NotNull String name,
+                                                                                          @NotNull List<GraphQLFragmentNameIndex.Fragment> fragments) {
+    List<GraphQLFragmentDefinition> result = new SmartList<>();
+    for (GraphQLFragmentNameIndex.Fragment fragment : fragments) {
+      if (fragment.offset() == GraphQLFragmentNameIndex.Fragment.UNKNOWN_OFFSET) return null;
+
+      GraphQLFragmentDefinition fragmentDefinition =
+        PsiTreeUtil.getParentOfType(file.findElementAt(fragment.offset()), GraphQLFragmentDefinition.class);
+      if (fragmentDefinition == null || !name.equals(fragmentDefinition.getName())) {
+        return null;
+      }
+      result.add(fragmentDefinition);
+    }
+    return result;
+  }
+
+  /**
+   * A single lookup of the marker key instead of enumerating all the fragment names, see {@link GraphQLFragmentNameIndex#FILES_WITH_FRAGMENTS_KEY}.
+   */
+  private static @NotNull Collection<VirtualFile> getFilesWithFragments(@NotNull GlobalSearchScope scope) {
+    return FileBasedIndex.getInstance().getContainingFiles(GraphQLFragmentNameIndex.NAME, GraphQLFragmentNameIndex.FILES_WITH_FRAGMENTS_KEY, scope);
   }
 
   private static @NotNull Collection<GraphQLFragmentDefinition> collectFragmentDefinitions(@NotNull PsiFile file) {
@@ -175,6 +269,139 @@ public class GraphQLPsiSearchHelper implements Disposable {
     }
   }
 
+  public void processNamedElements(@NotNull PsiElement context,
+                                   @NotNull String name,
+                                   @NotNull Set<IdentifierKind> kinds,
+                                   @NotNull Processor<? super GraphQLIdentifier> processor) {
+    GlobalSearchScope scope = GraphQLScopeProvider.getInstance(context.getProject()).getResolveScope(context);
+    processNamedElements(context.getProject(), name, kinds, scope, processor);
+  }
+
+  /**
+   * Processes the identifiers with the specified name and one of the given kinds, e.g. the definitions of a type.
+   * Only the files having such identifiers according to {@link GraphQLIdentifierIndex} are loaded,
+   * and the definitions in GraphQL files are found by their indexed offsets without traversing the whole file.
+   * The usages aren't indexed by offset, so looking for {@link IdentifierKind#USAGE} traverses the files using the name.
+   */
+  public void processNamedElements(@NotNull Project project,
+                                   @NotNull String name,
+                                   @NotNull Set<IdentifierKind> kinds,
+                                   @NotNull GlobalSearchScope scope,
+                                   @NotNull Processor<? super GraphQLIdentifier> processor) {
+    if (DumbService.isDumb(project)) return;
+
+    try {
+      FileBasedIndex.getInstance().processValues(GraphQLIdentifierIndex.NAME, name, null, (virtualFile, identifiers) -> {
+        ProgressManager.checkCanceled();
+        if (!identifiers.hasAnyOf(kinds)) {
+          return true;
+        }
+
+        PsiFile psiFile = myPsiManager.findFile(virtualFile);
+        if (psiFile == null) {
+          return true;
+        }
+        if (psiFile instanceof GraphQLFile && !kinds.contains(IdentifierKind.USAGE)) {
+          List<GraphQLIdentifier> definitions = findIndexedDefinitions((GraphQLFile)psiFile, name, kinds, identifiers);
+          if (definitions != null) {
+            return ContainerUtil.process(definitions, processor);
+          }
+        }
+
+        for (GraphQLFile graphQLFile : collectGraphQLFilesIncludingInjections(psiFile)) {
+          for (PsiNamedElement namedElement : graphQLFile.getNamedElements().get(name)) {
+            if (namedElement instanceof GraphQLIdentifier identifier &&
+                kinds.contains(GraphQLIdentifierIndex.getIdentifierKind(identifier)) &&
+                !processor.process(identifier)) {
+              return false;
+            }
+          }
+        }
+        return true;
+      }, scope);
+    }
+    catch (IndexNotReadyException e) {
+      LOG.warn(e);
+    }
+  }
+
+  /**
+   * @return the definitions found at the indexed offsets, or null if any of them doesn't match,
+   * e.g. the index is outdated for an uncommitted document, then the file has to be traversed instead
+   */
+  private static @Nullable List<GraphQLIdentifier> findIndexedDefinitions(@NotNull GraphQLFile file,
+                                                                          @NotNull String name,
+                                                                          @NotNull Set<IdentifierKind> kinds,
+                                                                          @NotNull Identifiers identifiers) {
+    List<GraphQLIdentifier> result = new SmartList<>();
+    for (Definition definition : identifiers.definitions()) {
+      if (!kinds.contains(definition.kind())) continue;
+      if (definition.offset() == Definition.UNKNOWN_OFFSET) return null;
+
+      GraphQLIdentifier identifier = PsiTreeUtil.getParentOfType(file.findElementAt(definition.offset()), GraphQLIdentifier.class);
+      if (identifier == null ||
+          !name.equals(identifier.getText()) ||
+          GraphQLIdentifierIndex.getIdentifierKind(identifier) != definition.kind()) {
+        return null;
+      }
+      result.add(identifier);
+    }
+    return result;
+  }
+
+  /**
+   * Processes the definitions of the member with the specified schema coordinate using {@link GraphQLSchemaCoordinateIndex},
+   * so only the files defining it are loaded.
+   *
+   * @param schemaCoordinate the coordinate of a field, argument, input field or enum value, e.g. {@code Query.user}
+   * @param name             the name of the member, e.g. {@code user}
+   */
+  public void processDefinitionsByCoordinate(@NotNull PsiElement context,
+                                             @NotNull String schemaCoordinate,
+                                             @NotNull String name,
+                                             @NotNull Processor<? super GraphQLIdentifier> processor) {
+    Project project = context.getProject();
+    if (DumbService.isDumb(project)) return;
+
+    GlobalSearchScope scope = GraphQLScopeProvider.getInstance(project).getResolveScope(context);
+    try {
+      FileBasedIndex.getInstance().processValues(GraphQLSchemaCoordinateIndex.NAME, schemaCoordinate, null, (virtualFile, offsets) -> {
+        ProgressManager.checkCanceled();
+        PsiFile psiFile = myPsiManager.findFile(virtualFile);
+        if (psiFile == null) {
+          return true;
+        }
+        if (psiFile instanceof GraphQLFile) {
+          for (Integer offset : offsets) {
+            if (offset == GraphQLSchemaCoordinateIndex.UNKNOWN_OFFSET) continue;
+            GraphQLIdentifier identifier = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), GraphQLIdentifier.class);
+            // the index can be outdated for the uncommitted documents
+            if (identifier != null &&
+                schemaCoordinate.equals(GraphQLSchemaCoordinateIndex.getSchemaCoordinate(identifier)) &&
+                !processor.process(identifier)) {
+              return false;
+            }
+          }
+          return true;
+        }
+
+        for (GraphQLFile graphQLFile : collectGraphQLFilesIncludingInjections(psiFile)) {
+          for (PsiNamedElement namedElement : graphQLFile.getNamedElements().get(name)) {
+            if (namedElement instanceof GraphQLIdentifier identifier &&
+                schemaCoordinate.equals(GraphQLSchemaCoordinateIndex.getSchemaCoordinate(identifier)) &&
+                !processor.process(identifier)) {
+              return false;
+            }
+          }
+        }
+        return true;
+      }, scope);
+    }
+    catch (IndexNotReadyException e) {
+      LOG.warn(e);
+    }
+  }
+
   /**
    * Process injected GraphQL files
    *
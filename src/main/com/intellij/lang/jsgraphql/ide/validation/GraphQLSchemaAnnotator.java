@@ -66,8 +66,14 @@ public final class GraphQLSchemaAnnotator implements Annotator {
     }
 
     try {
-      GraphQLSchemaInfo schemaInfo = GraphQLSchemaProvider.getInstance(project).getSchemaInfo(psiElement);
+      GraphQLSchemaProvider schemaProvider = GraphQLSchemaProvider.getInstance(project);
+      GraphQLSchemaInfo schemaInfo = schemaProvider.getSchemaInfo(psiElement);
       if (schemaInfo.isTooComplex() && !Registry.is("graphql.error.validation.for.complex.schemas")) {
+        // the schema itself isn't checked, but the operations are validated against the types reachable from them
+        GraphQLSchemaInfo partialSchemaInfo = schemaProvider.getPartialSchemaInfo(file, schemaInfo);
+        if (partialSchemaInfo != null) {
+          showDocumentErrors(annotationHolder, partialSchemaInfo, file);
+        }
         return;
       }
 
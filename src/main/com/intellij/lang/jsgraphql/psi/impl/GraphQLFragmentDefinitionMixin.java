@@ -15,6 +15,7 @@ import com.intellij.lang.jsgraphql.schema.GraphQLSchemaProvider;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class GraphQLFragmentDefinitionMixin extends GraphQLNamedElementImpl
   implements GraphQLFragmentDefinition, GraphQLTypeScopeProvider {
@@ -24,6 +25,10 @@ public abstract class GraphQLFragmentDefinitionMixin extends GraphQLNamedElement
 
   @Override
   public GraphQLType getTypeScope() {
+    return GraphQLTypeScopeCache.getTypeScope(this, this::computeTypeScope);
+  }
+
+  private @Nullable GraphQLType computeTypeScope() {
     final GraphQLSchema schema = GraphQLSchemaProvider.getInstance(getProject()).getSchemaInfo(this).getSchema();
     if (getTypeCondition() != null) {
       final GraphQLTypeName typeName = getTypeCondition().getTypeName();
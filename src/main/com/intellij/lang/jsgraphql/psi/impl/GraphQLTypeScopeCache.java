@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.psi.impl;
+
+import com.intellij.lang.jsgraphql.psi.GraphQLTypeScopeProvider;
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaProvider;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLType;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Supplier;
+
+/**
+ * Caches the type scopes of the elements until either their file or the schema changes.
+ * The type scope of a nested selection is computed from the type scope of its parent,
+ * so without the cache each lookup would walk up to the operation and resolve the whole path again.
+ */
+final class GraphQLTypeScopeCache {
+
+  private static final Key<CachedValue<GraphQLType>> TYPE_SCOPE_KEY = Key.create("graphql.type.scope");
+
+  private GraphQLTypeScopeCache() {
+  }
+
+  static @Nullable GraphQLType getTypeScope(@NotNull GraphQLTypeScopeProvider element,
+                                            @NotNull Supplier<? extends GraphQLType> computation) {
+    final PsiElement psiElement = (PsiElement)element;
+    return CachedValuesManager.getCachedValue(psiElement, TYPE_SCOPE_KEY, () -> {
+      final ModificationTracker schemaTracker =
+        GraphQLSchemaProvider.getInstance(psiElement.getProject()).getSchemaCacheModificationTracker();
+      final long schemaStamp = schemaTracker.getModificationCount();
+      final GraphQLType typeScope = computation.get();
+      // the schema could be replaced while computing, then the result may refer to the previous one and shouldn't be kept
+      final Object schemaDependency = schemaStamp == schemaTracker.getModificationCount()
+                                      ? schemaTracker
+                                      : ModificationTracker.EVER_CHANGED;
+      return CachedValueProvider.Result.create(typeScope, psiElement, schemaDependency);
+    });
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.util.Disposer
+import com.intellij.util.containers.Interner
+import org.jetbrains.annotations.TestOnly
+
+/**
+ * Shares the strings retained by the AST nodes of the cached schemas, e.g. type and field names or source file paths.
+ * The same names are repeated in every reference to a type and in every file of a large schema,
+ * while PSI and the index provide a new instance for each occurrence.
+ */
+object GraphQLAstInterner {
+  private val strings: Interner<String> = Interner.createWeakInterner()
+
+  @Volatile
+  private var isEnabled = true
+
+  @JvmStatic
+  fun intern(value: String?): String? = if (isEnabled) value?.let { strings.intern(it) } else value
+
+  /**
+   * Lets the tests compare the footprint of the documents with and without the shared strings.
+   */
+  @TestOnly
+  fun disableInTests(parentDisposable: Disposable) {
+    isEnabled = false
+    Disposer.register(parentDisposable) { isEnabled = true }
+  }
+}
@@ -0,0 +1,806 @@
+package com.intellij.lang.jsgraphql.schema;
+
+import com.intellij.lang.jsgraphql.types.language.Argument;
+import com.intellij.lang.jsgraphql.types.language.ArrayValue;
+import com.intellij.lang.jsgraphql.types.language.BooleanValue;
+import com.intellij.lang.jsgraphql.types.language.Definition;
+import com.intellij.lang.jsgraphql.types.language.DescribedNode;
+import com.intellij.lang.jsgraphql.types.language.Description;
+import com.intellij.lang.jsgraphql.types.language.Directive;
+import com.intellij.lang.jsgraphql.types.language.DirectiveDefinition;
+import com.intellij.lang.jsgraphql.types.language.DirectiveLocation;
+import com.intellij.lang.jsgraphql.types.language.Document;
+import com.intellij.lang.jsgraphql.types.language.EnumTypeDefinition;
+import com.intellij.lang.jsgraphql.types.language.EnumTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.types.language.EnumValue;
+import com.intellij.lang.jsgraphql.types.language.EnumValueDefinition;
+import com.intellij.lang.jsgraphql.types.language.FieldDefinition;
+import com.intellij.lang.jsgraphql.types.language.FloatValue;
+import com.intellij.lang.jsgraphql.types.language.InputObjectTypeDefinition;
+import com.intellij.lang.jsgraphql.types.language.InputObjectTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.types.language.InputValueDefinition;
+import com.intellij.lang.jsgraphql.types.language.IntValue;
+import com.intellij.lang.jsgraphql.types.language.InterfaceTypeDefinition;
+import com.intellij.lang.jsgraphql.types.language.InterfaceTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.types.language.ListType;
+import com.intellij.lang.jsgraphql.types.language.Node;
+import com.intellij.lang.jsgraphql.types.language.NodeBuilder;
+import com.intellij.lang.jsgraphql.types.language.NonNullType;
+import com.intellij.lang.jsgraphql.types.language.NullValue;
+import com.intellij.lang.jsgraphql.types.language.ObjectField;
+import com.intellij.lang.jsgraphql.types.language.ObjectTypeDefinition;
+import com.intellij.lang.jsgraphql.types.language.ObjectTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.types.language.ObjectValue;
+import com.intellij.lang.jsgraphql.types.language.OperationTypeDefinition;
+import com.intellij.lang.jsgraphql.types.language.SDLDefinition;
+import com.intellij.lang.jsgraphql.types.language.ScalarTypeDefinition;
+import com.intellij.lang.jsgraphql.types.language.ScalarTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.types.language.SchemaDefinition;
+import com.intellij.lang.jsgraphql.types.language.SchemaExtensionDefinition;
+import com.intellij.lang.jsgraphql.types.language.SourceLocation;
+import com.intellij.lang.jsgraphql.types.language.StringValue;
+import com.intellij.lang.jsgraphql.types.language.Type;
+import com.intellij.lang.jsgraphql.types.language.TypeName;
+import com.intellij.lang.jsgraphql.types.language.UnionTypeDefinition;
+import com.intellij.lang.jsgraphql.types.language.UnionTypeExtensionDefinition;
+import com.intellij.lang.jsgraphql.types.language.Value;
+import com.intellij.lang.jsgraphql.types.language.VariableReference;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary representation of the type system part of a {@link Document}.
+ * Executable definitions, comments and ignored chars are not preserved. Source locations and additional data are kept,
+ * so restored nodes can still be matched to PSI elements and library definitions are recognized as such.
+ * <p>
+ * Strings are written once per stream and then referenced by index, type and field names are heavily repeated in large schemas.
+ */
+@SuppressWarnings("rawtypes")
+public final class GraphQLDocumentExternalizer implements DataExternalizer<Document> {
+
+  public static final GraphQLDocumentExternalizer INSTANCE = new GraphQLDocumentExternalizer();
+
+  /**
+   * Should be incremented on any change to the binary format.
+   */
+  public static final int VERSION = 1;
+
+  private static final int NULL_STRING = 0;
+
+  private static final byte SCHEMA = 1;
+  private static final byte SCHEMA_EXTENSION = 2;
+  private static final byte OBJECT = 3;
+  private static final byte OBJECT_EXTENSION = 4;
+  private static final byte INTERFACE = 5;
+  private static final byte INTERFACE_EXTENSION = 6;
+  private static final byte UNION = 7;
+  private static final byte UNION_EXTENSION = 8;
+  private static final byte ENUM = 9;
+  private static final byte ENUM_EXTENSION = 10;
+  private static final byte INPUT_OBJECT = 11;
+  private static final byte INPUT_OBJECT_EXTENSION = 12;
+  private static final byte SCALAR = 13;
+  private static final byte SCALAR_EXTENSION = 14;
+  private static final byte DIRECTIVE = 15;
+
+  private static final byte TYPE_NAME = 1;
+  private static final byte LIST_TYPE = 2;
+  private static final byte NON_NULL_TYPE = 3;
+
+  private static final byte NULL_VALUE = 0;
+  private static final byte INT_VALUE = 1;
+  private static final byte FLOAT_VALUE = 2;
+  private static final byte STRING_VALUE = 3;
+  private static final byte BOOLEAN_VALUE = 4;
+  private static final byte ENUM_VALUE = 5;
+  private static final byte ARRAY_VALUE = 6;
+  private static final byte OBJECT_VALUE = 7;
+  private static final byte VARIABLE_REFERENCE = 8;
+  private static final byte ABSENT_VALUE = 9;
+
+  private GraphQLDocumentExternalizer() {
+  }
+
+  @Override
+  public void save(@NotNull DataOutput out, Document document) throws IOException {
+    new Writer(out).writeDocument(document);
+  }
+
+  @Override
+  public Document read(@NotNull DataInput in) throws IOException {
+    return new Reader(in, null, false).readDocument();
+  }
+
+  /**
+   * Reads a document stored without the file specific data, e.g. in the index.
+   *
+   * @param sourceName   replaces the source names of all non-empty source locations
+   * @param isInLibrary  marks all the nodes as library ones, see {@link GraphQLPsiDocumentBuilder#isInLibrary}
+   */
+  public @NotNull Document read(@NotNull DataInput in, @Nullable String sourceName, boolean isInLibrary) throws IOException {
+    return new Reader(in, sourceName, isInLibrary).readDocument();
+  }
+
+  private static final class Writer {
+    private final DataOutput myOut;
+    private final Map<String, Integer> myStrings = new HashMap<>();
+
+    private Writer(@NotNull DataOutput out) {
+      myOut = out;
+    }
+
+    void writeDocument(@NotNull Document document) throws IOException {
+      writeCommon(document);
+      List<SDLDefinition> definitions = document.getDefinitionsOfType(SDLDefinition.class);
+      writeInt(definitions.size());
+      for (SDLDefinition definition : definitions) {
+        writeDefinition(definition);
+      }
+    }
+
+    private void writeDefinition(@NotNull SDLDefinition<?> definition) throws IOException {
+      // extensions extend the corresponding definitions, so they should be checked first
+      if (definition instanceof SchemaExtensionDefinition extension) {
+        myOut.writeByte(SCHEMA_EXTENSION);
+        writeCommon(extension);
+        writeDirectives(extension.getDirectives());
+        writeOperationTypeDefinitions(extension.getOperationTypeDefinitions());
+      }
+      else if (definition instanceof SchemaDefinition schema) {
+        myOut.writeByte(SCHEMA);
+        writeCommon(schema);
+        writeDescription(schema.getDescription());
+        writeDirectives(schema.getDirectives());
+        writeOperationTypeDefinitions(schema.getOperationTypeDefinitions());
+      }
+      else if (definition instanceof ObjectTypeDefinition objectType) {
+        myOut.writeByte(objectType instanceof ObjectTypeExtensionDefinition ? OBJECT_EXTENSION : OBJECT);
+        writeNamedDescribed(objectType, objectType.getName());
+        writeDirectives(objectType.getDirectives());
+        writeTypes(objectType.getImplements());
+        writeFieldDefinitions(objectType.getFieldDefinitions());
+      }
+      else if (definition instanceof InterfaceTypeDefinition interfaceType) {
+        myOut.writeByte(interfaceType instanceof InterfaceTypeExtensionDefinition ? INTERFACE_EXTENSION : INTERFACE);
+        writeNamedDescribed(interfaceType, interfaceType.getName());
+        writeDirectives(interfaceType.getDirectives());
+        writeTypes(interfaceType.getImplements());
+        writeFieldDefinitions(interfaceType.getFieldDefinitions());
+      }
+      else if (definition instanceof UnionTypeDefinition unionType) {
+        myOut.writeByte(unionType instanceof UnionTypeExtensionDefinition ? UNION_EXTENSION : UNION);
+        writeNamedDescribed(unionType, unionType.getName());
+        writeDirectives(unionType.getDirectives());
+        writeTypes(unionType.getMemberTypes());
+      }
+      else if (definition instanceof EnumTypeDefinition enumType) {
+        myOut.writeByte(enumType instanceof EnumTypeExtensionDefinition ? ENUM_EXTENSION : ENUM);
+        writeNamedDescribed(enumType, enumType.getName());
+        writeDirectives(enumType.getDirectives());
+        writeInt(enumType.getEnumValueDefinitions().size());
+        for (EnumValueDefinition valueDefinition : enumType.getEnumValueDefinitions()) {
+          writeNamedDescribed(valueDefinition, valueDefinition.getName());
+          writeDirectives(valueDefinition.getDirectives());
+        }
+      }
+      else if (definition instanceof InputObjectTypeDefinition inputType) {
+        myOut.writeByte(inputType instanceof InputObjectTypeExtensionDefinition ? INPUT_OBJECT_EXTENSION : INPUT_OBJECT);
+        writeNamedDescribed(inputType, inputType.getName());
+        writeDirectives(inputType.getDirectives());
+        writeInputValueDefinitions(inputType.getInputValueDefinitions());
+      }
+      else if (definition instanceof ScalarTypeDefinition scalarType) {
+        myOut.writeByte(scalarType instanceof ScalarTypeExtensionDefinition ? SCALAR_EXTENSION : SCALAR);
+        writeNamedDescribed(scalarType, scalarType.getName());
+        writeDirectives(scalarType.getDirectives());
+      }
+      else if (definition instanceof DirectiveDefinition directive) {
+        myOut.writeByte(DIRECTIVE);
+        writeNamedDescribed(directive, directive.getName());
+        myOut.writeBoolean(directive.isRepeatable());
+        writeInputValueDefinitions(directive.getInputValueDefinitions());
+        writeInt(directive.getDirectiveLocations().size());
+        for (DirectiveLocation location : directive.getDirectiveLocations()) {
+          writeString(location.getName());
+          writeCommon(location);
+        }
+      }
+      else {
+        throw new IOException("Unknown definition type: " + definition.getClass().getName());
+      }
+    }
+
+    private void writeOperationTypeDefinitions(@NotNull List<OperationTypeDefinition> definitions) throws IOException {
+      writeInt(definitions.size());
+      for (OperationTypeDefinition definition : definitions) {
+        writeString(definition.getName());
+        writeCommon(definition);
+        writeType(definition.getTypeName());
+      }
+    }
+
+    private void writeFieldDefinitions(@NotNull List<FieldDefinition> definitions) throws IOException {
+      writeInt(definitions.size());
+      for (FieldDefinition definition : definitions) {
+        writeNamedDescribed(definition, definition.getName());
+        writeType(definition.getType());
+        writeDirectives(definition.getDirectives());
+        writeInputValueDefinitions(definition.getInputValueDefinitions());
+      }
+    }
+
+    private void writeInputValueDefinitions(@NotNull List<InputValueDefinition> definitions) throws IOException {
+      writeInt(definitions.size());
+      for (InputValueDefinition definition : definitions) {
+        writeNamedDescribed(definition, definition.getName());
+        writeType(definition.getType());
+        writeValue(definition.getDefaultValue());
+        writeDirectives(definition.getDirectives());
+      }
+    }
+
+    private void writeDirectives(@NotNull List<Directive> directives) throws IOException {
+      writeInt(directives.size());
+      for (Directive directive : directives) {
+        writeString(directive.getName());
+        writeCommon(directive);
+        writeInt(directive.getArguments().size());
+        for (Argument argument : directive.getArguments()) {
+          writeString(argument.getName());
+          writeCommon(argument);
+          writeValue(argument.getValue());
+        }
+      }
+    }
+
+    private void writeTypes(@NotNull List<Type> types) throws IOException {
+      writeInt(types.size());
+      for (Type type : types) {
+        writeType(type);
+      }
+    }
+
+    private void writeType(@NotNull Type<?> type) throws IOException {
+      if (type instanceof TypeName typeName) {
+        myOut.writeByte(TYPE_NAME);
+        writeString(typeName.getName());
+      }
+      else if (type instanceof ListType listType) {
+        myOut.writeByte(LIST_TYPE);
+        writeType(listType.getType());
+      }
+      else if (type instanceof NonNullType nonNullType) {
+        myOut.writeByte(NON_NULL_TYPE);
+        writeType(nonNullType.getType());
+      }
+      else {
+        throw new IOException("Unknown type: " + type.getClass().getName());
+      }
+      writeCommon(type);
+    }
+
+    private void writeValue(@Nullable Value<?> value) throws IOException {
+      if (value == null) {
+        myOut.writeByte(ABSENT_VALUE);
+        return;
+      }
+
+      if (value instanceof IntValue intValue) {
+        myOut.writeByte(INT_VALUE);
+        writeString(intValue.getValue().toString());
+      }
+      else if (value instanceof FloatValue floatValue) {
+        myOut.writeByte(FLOAT_VALUE);
+        writeString(floatValue.getValue().toString());
+      }
+      else if (value instanceof StringValue stringValue) {
+        myOut.writeByte(STRING_VALUE);
+        writeString(stringValue.getValue());
+      }
+      else if (value instanceof BooleanValue booleanValue) {
+        myOut.writeByte(BOOLEAN_VALUE);
+        myOut.writeBoolean(booleanValue.isValue());
+      }
+      else if (value instanceof EnumValue enumValue) {
+        myOut.writeByte(ENUM_VALUE);
+        writeString(enumValue.getName());
+      }
+      else if (value instanceof ArrayValue arrayValue) {
+        myOut.writeByte(ARRAY_VALUE);
+        writeInt(arrayValue.getValues().size());
+        for (Value item : arrayValue.getValues()) {
+          writeValue(item);
+        }
+      }
+      else if (value instanceof ObjectValue objectValue) {
+        myOut.writeByte(OBJECT_VALUE);
+        writeInt(objectValue.getObjectFields().size());
+        for (ObjectField field : objectValue.getObjectFields()) {
+          writeString(field.getName());
+          writeCommon(field);
+          writeValue(field.getValue());
+        }
+      }
+      else if (value instanceof VariableReference variableReference) {
+        myOut.writeByte(VARIABLE_REFERENCE);
+        writeString(variableReference.getName());
+      }
+      else if (value instanceof NullValue) {
+        myOut.writeByte(NULL_VALUE);
+      }
+      else {
+        throw new IOException("Unknown value: " + value.getClass().getName());
+      }
+      writeCommon(value);
+    }
+
+    private void writeNamedDescribed(@NotNull DescribedNode<?> node, @Nullable String name) throws IOException {
+      writeString(name);
+      writeCommon(node);
+      writeDescription(node.getDescription());
+    }
+
+    private void writeDescription(@Nullable Description description) throws IOException {
+      myOut.writeBoolean(description != null);
+      if (description != null) {
+        writeString(description.getContent());
+        myOut.writeBoolean(description.isMultiLine());
+        writeSourceLocation(description.getSourceLocation());
+      }
+    }
+
+    private void writeCommon(@NotNull Node<?> node) throws IOException {
+      writeSourceLocation(node.getSourceLocation());
+
+      Map<String, String> additionalData = node.getAdditionalData();
+      writeInt(additionalData.size());
+      for (Map.Entry<String, String> entry : additionalData.entrySet()) {
+        writeString(entry.getKey());
+        writeString(entry.getValue());
+      }
+    }
+
+    private void writeSourceLocation(@Nullable SourceLocation location) throws IOException {
+      myOut.writeBoolean(location != null);
+      if (location != null) {
+        // EMPTY location uses -1 for both
+        writeInt(location.getLine() + 1);
+        writeInt(location.getColumn() + 1);
+        writeString(location.getSourceName());
+      }
+    }
+
+    private void writeString(@Nullable String value) throws IOException {
+      if (value == null) {
+        writeInt(NULL_STRING);
+        return;
+      }
+
+      Integer existingIndex = myStrings.get(value);
+      if (existingIndex != null) {
+        writeInt(existingIndex);
+        return;
+      }
+
+      int index = myStrings.size() + 1;
+      myStrings.put(value, index);
+      writeInt(index);
+      IOUtil.writeUTF(myOut, value);
+    }
+
+    private void writeInt(int value) throws IOException {
+      DataInputOutputUtil.writeINT(myOut, value);
+    }
+  }
+
+  private static final class Reader {
+    private final DataInput myIn;
+    private final List<String> myStrings = new ArrayList<>();
+    private final @Nullable String mySourceName;
+    private final boolean myIsInLibrary;
+
+    private Reader(@NotNull DataInput in, @Nullable String sourceName, boolean isInLibrary) {
+      myIn = in;
+      mySourceName = sourceName;
+      myIsInLibrary = isInLibrary;
+    }
+
+    @NotNull Document readDocument() throws IOException {
+      Document.Builder document = Document.newDocument();
+      readCommon(document);
+      int count = readInt();
+      List<Definition> definitions = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        definitions.add(readDefinition());
+      }
+      document.definitions(definitions);
+      return document.build();
+    }
+
+    private @NotNull SDLDefinition<?> readDefinition() throws IOException {
+      byte kind = myIn.readByte();
+      switch (kind) {
+        case SCHEMA -> {
+          SchemaDefinition.Builder builder = SchemaDefinition.newSchemaDefinition();
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.operationTypeDefinitions(readOperationTypeDefinitions());
+          return builder.build();
+        }
+        case SCHEMA_EXTENSION -> {
+          SchemaExtensionDefinition.Builder builder = SchemaExtensionDefinition.newSchemaExtensionDefinition();
+          readCommon(builder);
+          builder.directives(readDirectives());
+          builder.operationTypeDefinitions(readOperationTypeDefinitions());
+          return builder.build();
+        }
+        case OBJECT -> {
+          ObjectTypeDefinition.Builder builder = ObjectTypeDefinition.newObjectTypeDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.implementz(readTypes());
+          builder.fieldDefinitions(readFieldDefinitions());
+          return builder.build();
+        }
+        case OBJECT_EXTENSION -> {
+          ObjectTypeExtensionDefinition.Builder builder = ObjectTypeExtensionDefinition.newObjectTypeExtensionDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.implementz(readTypes());
+          builder.fieldDefinitions(readFieldDefinitions());
+          return builder.build();
+        }
+        case INTERFACE -> {
+          InterfaceTypeDefinition.Builder builder = InterfaceTypeDefinition.newInterfaceTypeDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.implementz(readTypes());
+          builder.definitions(readFieldDefinitions());
+          return builder.build();
+        }
+        case INTERFACE_EXTENSION -> {
+          InterfaceTypeExtensionDefinition.Builder builder = InterfaceTypeExtensionDefinition.newInterfaceTypeExtensionDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.implementz(readTypes());
+          builder.definitions(readFieldDefinitions());
+          return builder.build();
+        }
+        case UNION -> {
+          UnionTypeDefinition.Builder builder = UnionTypeDefinition.newUnionTypeDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.memberTypes(readTypes());
+          return builder.build();
+        }
+        case UNION_EXTENSION -> {
+          UnionTypeExtensionDefinition.Builder builder = UnionTypeExtensionDefinition.newUnionTypeExtensionDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.memberTypes(readTypes());
+          return builder.build();
+        }
+        case ENUM -> {
+          EnumTypeDefinition.Builder builder = EnumTypeDefinition.newEnumTypeDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.enumValueDefinitions(readEnumValueDefinitions());
+          return builder.build();
+        }
+        case ENUM_EXTENSION -> {
+          EnumTypeExtensionDefinition.Builder builder = EnumTypeExtensionDefinition.newEnumTypeExtensionDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.enumValueDefinitions(readEnumValueDefinitions());
+          return builder.build();
+        }
+        case INPUT_OBJECT -> {
+          InputObjectTypeDefinition.Builder builder = InputObjectTypeDefinition.newInputObjectDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.inputValueDefinitions(readInputValueDefinitions());
+          return builder.build();
+        }
+        case INPUT_OBJECT_EXTENSION -> {
+          InputObjectTypeExtensionDefinition.Builder builder =
+            InputObjectTypeExtensionDefinition.newInputObjectTypeExtensionDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          builder.inputValueDefinitions(readInputValueDefinitions());
+          return builder.build();
+        }
+        case SCALAR -> {
+          ScalarTypeDefinition.Builder builder = ScalarTypeDefinition.newScalarTypeDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          return builder.build();
+        }
+        case SCALAR_EXTENSION -> {
+          ScalarTypeExtensionDefinition.Builder builder = ScalarTypeExtensionDefinition.newScalarTypeExtensionDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.directives(readDirectives());
+          return builder.build();
+        }
+        case DIRECTIVE -> {
+          DirectiveDefinition.Builder builder = DirectiveDefinition.newDirectiveDefinition();
+          builder.name(readString());
+          readCommon(builder);
+          builder.description(readDescription());
+          builder.repeatable(myIn.readBoolean());
+          builder.inputValueDefinitions(readInputValueDefinitions());
+          int count = readInt();
+          List<DirectiveLocation> locations = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            DirectiveLocation.Builder location = DirectiveLocation.newDirectiveLocation().name(readString());
+            readCommon(location);
+            locations.add(location.build());
+          }
+          builder.directiveLocations(locations);
+          return builder.build();
+        }
+        default -> throw new IOException("Unknown definition kind: " + kind);
+      }
+    }
+
+    private @NotNull List<OperationTypeDefinition> readOperationTypeDefinitions() throws IOException {
+      int count = readInt();
+      List<OperationTypeDefinition> definitions = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        OperationTypeDefinition.Builder builder = OperationTypeDefinition.newOperationTypeDefinition().name(readString());
+        readCommon(builder);
+        builder.typeName((TypeName)readType());
+        definitions.add(builder.build());
+      }
+      return definitions;
+    }
+
+    private @NotNull List<FieldDefinition> readFieldDefinitions() throws IOException {
+      int count = readInt();
+      List<FieldDefinition> definitions = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        FieldDefinition.Builder builder = FieldDefinition.newFieldDefinition().name(readString());
+        readCommon(builder);
+        builder.description(readDescription());
+        builder.type(readType());
+        builder.directives(readDirectives());
+        builder.inputValueDefinitions(readInputValueDefinitions());
+        definitions.add(builder.build());
+      }
+      return definitions;
+    }
+
+    private @NotNull List<InputValueDefinition> readInputValueDefinitions() throws IOException {
+      int count = readInt();
+      if (count == 0) return Collections.emptyList();
+
+      List<InputValueDefinition> definitions = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        InputValueDefinition.Builder builder = InputValueDefinition.newInputValueDefinition().name(readString());
+        readCommon(builder);
+        builder.description(readDescription());
+        builder.type(readType());
+        builder.defaultValue(readValue());
+        builder.directives(readDirectives());
+        definitions.add(builder.build());
+      }
+      return definitions;
+    }
+
+    private @NotNull List<EnumValueDefinition> readEnumValueDefinitions() throws IOException {
+      int count = readInt();
+      List<EnumValueDefinition> definitions = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        EnumValueDefinition.Builder builder = EnumValueDefinition.newEnumValueDefinition().name(readString());
+        readCommon(builder);
+        builder.description(readDescription());
+        builder.directives(readDirectives());
+        definitions.add(builder.build());
+      }
+      return definitions;
+    }
+
+    private @NotNull List<Directive> readDirectives() throws IOException {
+      int count = readInt();
+      if (count == 0) return Collections.emptyList();
+
+      List<Directive> directives = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        Directive.Builder builder = Directive.newDirective().name(readString());
+        readCommon(builder);
+        int argumentsCount = readInt();
+        List<Argument> arguments = new ArrayList<>(argumentsCount);
+        for (int j = 0; j < argumentsCount; j++) {
+          Argument.Builder argument = Argument.newArgument().name(readString());
+          readCommon(argument);
+          argument.value(readValue());
+          arguments.add(argument.build());
+        }
+        builder.arguments(arguments);
+        directives.add(builder.build());
+      }
+      return directives;
+    }
+
+    private @NotNull List<Type> readTypes() throws IOException {
+      int count = readInt();
+      if (count == 0) return Collections.emptyList();
+
+      List<Type> types = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        types.add(readType());
+      }
+      return types;
+    }
+
+    private @NotNull Type<?> readType() throws IOException {
+      byte kind = myIn.readByte();
+      switch (kind) {
+        case TYPE_NAME -> {
+          TypeName.Builder builder = TypeName.newTypeName(readString());
+          readCommon(builder);
+          return builder.build();
+        }
+        case LIST_TYPE -> {
+          ListType.Builder builder = ListType.newListType(readType());
+          readCommon(builder);
+          return builder.build();
+        }
+        case NON_NULL_TYPE -> {
+          NonNullType.Builder builder = NonNullType.newNonNullType(readType());
+          readCommon(builder);
+          return builder.build();
+        }
+        default -> throw new IOException("Unknown type kind: " + kind);
+      }
+    }
+
+    private @Nullable Value<?> readValue() throws IOException {
+      byte kind = myIn.readByte();
+      NodeBuilder builder;
+      switch (kind) {
+        case ABSENT_VALUE -> {
+          return null;
+        }
+        case INT_VALUE -> builder = IntValue.newIntValue(new BigInteger(readString()));
+        case FLOAT_VALUE -> builder = FloatValue.newFloatValue(new BigDecimal(readString()));
+        case STRING_VALUE -> builder = StringValue.newStringValue(readString());
+        case BOOLEAN_VALUE -> builder = BooleanValue.newBooleanValue(myIn.readBoolean());
+        case ENUM_VALUE -> builder = EnumValue.newEnumValue(readString());
+        case ARRAY_VALUE -> {
+          int count = readInt();
+          List<Value> values = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            values.add(readValue());
+          }
+          builder = ArrayValue.newArrayValue().values(values);
+        }
+        case OBJECT_VALUE -> {
+          int count = readInt();
+          List<ObjectField> fields = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            ObjectField.Builder field = ObjectField.newObjectField().name(readString());
+            readCommon(field);
+            field.value(readValue());
+            fields.add(field.build());
+          }
+          builder = ObjectValue.newObjectValue().objectFields(fields);
+        }
+        case VARIABLE_REFERENCE -> builder = VariableReference.newVariableReference().name(readString());
+        case NULL_VALUE -> builder = NullValue.newNullValue();
+        default -> throw new IOException("Unknown value kind: " + kind);
+      }
+      readCommon(builder);
+      return buildValue(builder);
+    }
+
+    private static @NotNull Value<?> buildValue(@NotNull NodeBuilder builder) {
+      if (builder instanceof IntValue.Builder b) return b.build();
+      if (builder instanceof FloatValue.Builder b) return b.build();
+      if (builder instanceof StringValue.Builder b) return b.build();
+      if (builder instanceof BooleanValue.Builder b) return b.build();
+      if (builder instanceof EnumValue.Builder b) return b.build();
+      if (builder instanceof ArrayValue.Builder b) return b.build();
+      if (builder instanceof ObjectValue.Builder b) return b.build();
+      if (builder instanceof VariableReference.Builder b) return b.build();
+      return ((NullValue.Builder)builder).build();
+    }
+
+    private @Nullable Description readDescription() throws IOException {
+      if (!myIn.readBoolean()) {
+        return null;
+      }
+      String content = readString();
+      boolean multiLine = myIn.readBoolean();
+      return new Description(content, readSourceLocation(), multiLine);
+    }
+
+    private void readCommon(@NotNull NodeBuilder builder) throws IOException {
+      builder.sourceLocation(readSourceLocation());
+
+      int count = readInt();
+      if (count == 0 && !myIsInLibrary) return;
+
+      Map<String, String> additionalData = new LinkedHashMap<>(count + 1);
+      for (int i = 0; i < count; i++) {
+        additionalData.put(readString(), readString());
+      }
+      if (myIsInLibrary) {
+        additionalData.put(GraphQLPsiDocumentBuilder.IS_IN_LIBRARY_KEY, "");
+      }
+      builder.additionalData(additionalData);
+    }
+
+    private @Nullable SourceLocation readSourceLocation() throws IOException {
+      if (!myIn.readBoolean()) {
+        return null;
+      }
+      int line = readInt() - 1;
+      int column = readInt() - 1;
+      String sourceName = readString();
+      if (mySourceName != null && line >= 0 && column >= 0) {
+        sourceName = mySourceName;
+      }
+      return new SourceLocation(line, column, sourceName);
+    }
+
+    private @Nullable String readString() throws IOException {
+      int index = readInt();
+      if (index == NULL_STRING) {
+        return null;
+      }
+      if (index <= myStrings.size()) {
+        return myStrings.get(index - 1);
+      }
+      if (index != myStrings.size() + 1) {
+        throw new IOException("Corrupted string table, unexpected index: " + index);
+      }
+      String value = GraphQLAstInterner.intern(IOUtil.readUTF(myIn));
+      myStrings.add(value);
+      return value;
+    }
+
+    private int readInt() throws IOException {
+      return DataInputOutputUtil.readINT(myIn);
+    }
+  }
+}
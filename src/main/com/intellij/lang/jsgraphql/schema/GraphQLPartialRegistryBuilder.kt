@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema
+
+import com.intellij.lang.jsgraphql.types.language.DirectiveDefinition
+import com.intellij.lang.jsgraphql.types.language.DirectivesContainer
+import com.intellij.lang.jsgraphql.types.language.Document
+import com.intellij.lang.jsgraphql.types.language.Field
+import com.intellij.lang.jsgraphql.types.language.FieldDefinition
+import com.intellij.lang.jsgraphql.types.language.FragmentDefinition
+import com.intellij.lang.jsgraphql.types.language.FragmentSpread
+import com.intellij.lang.jsgraphql.types.language.ImplementingTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.InlineFragment
+import com.intellij.lang.jsgraphql.types.language.InputObjectTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.InputValueDefinition
+import com.intellij.lang.jsgraphql.types.language.InterfaceTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.ObjectTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.OperationDefinition
+import com.intellij.lang.jsgraphql.types.language.OperationTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.SDLDefinition
+import com.intellij.lang.jsgraphql.types.language.SelectionSet
+import com.intellij.lang.jsgraphql.types.language.TypeDefinition
+import com.intellij.lang.jsgraphql.types.language.UnionTypeDefinition
+import com.intellij.lang.jsgraphql.types.schema.idl.ScalarInfo
+import com.intellij.lang.jsgraphql.types.schema.idl.TypeDefinitionRegistry
+import com.intellij.lang.jsgraphql.types.schema.idl.TypeUtil
+import com.intellij.openapi.progress.ProgressManager
+
+internal const val PARTIAL_SCHEMA_ENABLED_KEY = "graphql.schema.partial.enabled"
+
+/**
+ * Builds a registry for the schemas exceeding [SCHEMA_SIZE_DEFINITIONS_LIMIT], so their operations can still be validated.
+ * Only the root operation types and the types reachable from the selections of the given operations and fragments
+ * are taken with their fields, the other object and interface types they refer to are replaced with empty stubs.
+ * Fragment spreads are followed to the fragments defined in other files using [fragmentResolver].
+ * Input objects, enums, scalars, unions and directives referenced from the taken types are always complete,
+ * so the arguments, variables and type conditions of the operations are validated as usual.
+ *
+ * The [source] registry is built within the definitions limit, it provides the schema definition and the directives.
+ * The definitions of the reached types, and of the directives used by the operations but missing from the source,
+ * are looked up by name with [definitionsResolver], so the definitions skipped because of the limit are loaded
+ * only when they are reachable, and the complete registry of the scope is never built.
+ *
+ * The schema built from such a registry is only suitable for validating the given operations,
+ * e.g. it's not validated itself, because the stubs don't conform to the specification.
+ */
+internal class GraphQLPartialRegistryBuilder(
+  private val source: TypeDefinitionRegistry,
+  private val definitionsResolver: (String) -> List<SDLDefinition<*>>,
+  private val fragmentResolver: (String) -> FragmentDefinition?,
+) {
+
+  private val namedDefinitions = HashMap<String, NamedDefinitions>()
+
+  private val completeTypes = LinkedHashSet<String>()
+  private val referencedTypes = LinkedHashSet<String>()
+  private val pendingTypes = ArrayDeque<String>()
+
+  private val directives = LinkedHashMap<String, DirectiveDefinition>()
+  private val resolvedDirectives = LinkedHashSet<String>()
+
+  private val fragments = HashMap<String, FragmentDefinition?>()
+  private val visitedFragments = HashSet<String>()
+
+  /**
+   * The types taken with their members, the types replaced with stubs and the directives missing from the source,
+   * they define the content of the registry, so the registries of the operations reaching the same types are the same.
+   */
+  val reachableTypes: ReachableTypes
+    get() = ReachableTypes(
+      completeTypes.toSet(),
+      referencedTypes.filterTo(HashSet()) { it !in completeTypes },
+      resolvedDirectives.toSet(),
+    )
+
+  fun collect(operationDocuments: Collection<Document>): GraphQLPartialRegistryBuilder {
+    for (document in operationDocuments) {
+      document.getDefinitionsOfType(FragmentDefinition::class.java).forEach { fragments.putIfAbsent(it.name, it) }
+    }
+
+    val rootOperationTypes = getRootOperationTypes()
+    rootOperationTypes.values.forEach(::complete)
+    source.directiveDefinitions.values.forEach(::addDirective)
+
+    for (document in operationDocuments) {
+      for (definition in document.definitions) {
+        when (definition) {
+          is OperationDefinition -> {
+            useDirectives(definition)
+            definition.variableDefinitions.forEach {
+              useDirectives(it)
+              complete(TypeUtil.unwrapAll(it.type).name)
+            }
+            val rootTypeName = rootOperationTypes[definition.operation.name.lowercase()] ?: continue
+            collectSelections(definition.selectionSet, rootTypeName)
+          }
+          is FragmentDefinition -> collectFragment(definition)
+        }
+      }
+    }
+
+    while (pendingTypes.isNotEmpty()) {
+      ProgressManager.checkCanceled()
+      collectMembers(pendingTypes.removeFirst())
+    }
+    return this
+  }
+
+  fun build(): TypeDefinitionRegistry = createRegistry()
+
+  private fun getRootOperationTypes(): Map<String, String> {
+    val operationTypeDefinitions = mutableListOf<OperationTypeDefinition>()
+    source.schemaDefinition().ifPresent { operationTypeDefinitions.addAll(it.operationTypeDefinitions) }
+    source.schemaExtensionDefinitions.forEach { operationTypeDefinitions.addAll(it.operationTypeDefinitions) }
+
+    if (operationTypeDefinitions.isEmpty()) {
+      return mapOf("query" to "Query", "mutation" to "Mutation", "subscription" to "Subscription")
+        .filterValues { hasType(it) }
+    }
+    return operationTypeDefinitions.associate { it.name to it.typeName.name }
+  }
+
+  private fun collectSelections(selectionSet: SelectionSet?, typeName: String) {
+    if (selectionSet == null || !hasType(typeName)) return
+    complete(typeName)
+
+    for (selection in selectionSet.selections) {
+      (selection as? DirectivesContainer<*>)?.let(::useDirectives)
+      when (selection) {
+        is Field -> {
+          val fieldDefinition = findFieldDefinition(typeName, selection.name) ?: continue
+          collectSelections(selection.selectionSet, TypeUtil.unwrapAll(fieldDefinition.type).name)
+        }
+        is InlineFragment -> collectSelections(selection.selectionSet, selection.typeCondition?.name ?: typeName)
+        is FragmentSpread -> fragments.getOrPut(selection.name) { fragmentResolver(selection.name) }?.let(::collectFragment)
+      }
+    }
+  }
+
+  private fun collectFragment(definition: FragmentDefinition) {
+    val typeCondition = definition.typeCondition?.name ?: return
+    if (visitedFragments.add(definition.name)) {
+      useDirectives(definition)
+      collectSelections(definition.selectionSet, typeCondition)
+    }
+  }
+
+  private fun findFieldDefinition(typeName: String, fieldName: String): FieldDefinition? {
+    return getImplementingDefinitions(typeName)
+      .flatMap { it.fieldDefinitions }
+      .firstOrNull { it.name == fieldName }
+  }
+
+  private fun getImplementingDefinitions(typeName: String): Sequence<ImplementingTypeDefinition<*>> {
+    return getDefinitions(typeName).all.filterIsInstance<ImplementingTypeDefinition<*>>()
+  }
+
+  private fun collectMembers(typeName: String) {
+    for (definition in getImplementingDefinitions(typeName)) {
+      definition.implements.forEach { reference(TypeUtil.unwrapAll(it).name) }
+      for (fieldDefinition in definition.fieldDefinitions) {
+        reference(TypeUtil.unwrapAll(fieldDefinition.type).name)
+        fieldDefinition.inputValueDefinitions.forEach(::addInputValue)
+      }
+    }
+
+    // the extensions of unions and input objects are subclasses of their definitions
+    getDefinitions(typeName).all
+      .filterIsInstance<UnionTypeDefinition>()
+      .flatMap { it.memberTypes }
+      .forEach { reference(TypeUtil.unwrapAll(it).name) }
+
+    getDefinitions(typeName).all
+      .filterIsInstance<InputObjectTypeDefinition>()
+      .flatMap { it.inputValueDefinitions }
+      .forEach(::addInputValue)
+  }
+
+  private fun addInputValue(inputValueDefinition: InputValueDefinition) {
+    complete(TypeUtil.unwrapAll(inputValueDefinition.type).name)
+  }
+
+  private fun addDirective(directive: DirectiveDefinition) {
+    if (directives.putIfAbsent(directive.name, directive) == null) {
+      directive.inputValueDefinitions.forEach(::addInputValue)
+    }
+  }
+
+  private fun useDirectives(container: DirectivesContainer<*>) {
+    for (directive in container.directives) {
+      if (directive.name in directives) continue
+      val definition = getDefinitions(directive.name).directive ?: continue
+      resolvedDirectives.add(directive.name)
+      addDirective(definition)
+    }
+  }
+
+  private fun reference(typeName: String) {
+    val definition = getDefinitions(typeName).type
+    if (definition is ObjectTypeDefinition || definition is InterfaceTypeDefinition) {
+      referencedTypes.add(typeName)
+    }
+    else {
+      complete(typeName)
+    }
+  }
+
+  private fun complete(typeName: String) {
+    if (completeTypes.add(typeName)) {
+      pendingTypes.add(typeName)
+    }
+  }
+
+  private fun hasType(typeName: String): Boolean = getDefinitions(typeName).all.any { it is ImplementingTypeDefinition<*> }
+
+  /**
+   * The definitions of the name found by the [definitionsResolver], or the ones from the [source] if there are none,
+   * e.g. for the bundled libraries which aren't indexed.
+   */
+  private fun getDefinitions(name: String): NamedDefinitions = namedDefinitions.getOrPut(name) {
+    val definitions = definitionsResolver(name).ifEmpty { getSourceDefinitions(name) }
+    NamedDefinitions(
+      // the user's definitions take precedence over the library ones, the same way as in the composite registry
+      definitions.filterIsInstance<TypeDefinition<*>>()
+        .filter { !isExtensionDefinition(it) }
+        .minByOrNull { GraphQLPsiDocumentBuilder.isInLibrary(it) },
+      definitions.filter { isExtensionDefinition(it) },
+      definitions.filterIsInstance<DirectiveDefinition>().firstOrNull(),
+    )
+  }
+
+  private fun getSourceDefinitions(name: String): List<SDLDefinition<*>> {
+    return buildList {
+      source.getType(name).ifPresent { add(it) }
+      source.getDirectiveDefinition(name).ifPresent { add(it) }
+      addAll(source.objectTypeExtensions()[name].orEmpty())
+      addAll(source.interfaceTypeExtensions()[name].orEmpty())
+      addAll(source.unionTypeExtensions()[name].orEmpty())
+      addAll(source.enumTypeExtensions()[name].orEmpty())
+      addAll(source.scalarTypeExtensions()[name].orEmpty())
+      addAll(source.inputObjectTypeExtensions()[name].orEmpty())
+    }
+  }
+
+  private fun createRegistry(): TypeDefinitionRegistry {
+    val registry = TypeDefinitionRegistry()
+    source.errors.forEach(registry::addError)
+
+    val definitions = mutableListOf<SDLDefinition<*>>()
+    source.schemaDefinition().ifPresent { definitions.add(it) }
+    definitions.addAll(source.schemaExtensionDefinitions)
+    definitions.addAll(directives.values)
+    // built-in scalars are always added by the registry itself
+    source.scalars().values.filterTo(definitions) {
+      it.name !in completeTypes && ScalarInfo.GRAPHQL_SPECIFICATION_SCALARS_DEFINITIONS[it.name] !== it
+    }
+
+    for (typeName in completeTypes) {
+      val typeDefinitions = getDefinitions(typeName)
+      typeDefinitions.type?.let { definitions.add(it) }
+      definitions.addAll(typeDefinitions.extensions)
+    }
+    for (typeName in referencedTypes) {
+      if (typeName in completeTypes) continue
+      getDefinitions(typeName).type?.let { definitions.add(createStub(it)) }
+    }
+
+    definitions.forEach(registry::add)
+    return registry
+  }
+
+  private fun createStub(definition: TypeDefinition<*>): TypeDefinition<*> {
+    return when (definition) {
+      is ObjectTypeDefinition -> definition.transform { it.implementz(emptyList()).fieldDefinitions(emptyList()) }
+      is InterfaceTypeDefinition -> definition.transform { it.implementz(emptyList()).definitions(emptyList()) }
+      else -> definition
+    }
+  }
+
+  private class NamedDefinitions(
+    val type: TypeDefinition<*>?,
+    val extensions: List<SDLDefinition<*>>,
+    val directive: DirectiveDefinition?,
+  ) {
+    val all: Sequence<SDLDefinition<*>>
+      get() = sequenceOf(type).filterNotNull().plus(extensions)
+  }
+
+  data class ReachableTypes(val completeTypes: Set<String>, val stubTypes: Set<String>, val directives: Set<String>)
+}
@@ -135,6 +135,7 @@ import org.jetbrains.annotations.Nullable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -147,11 +148,12 @@ import static com.intellij.lang.jsgraphql.types.collect.ImmutableKit.mapNotNull;
 public final class GraphQLPsiDocumentBuilder {
   private static final Logger LOG = Logger.getInstance(GraphQLPsiDocumentBuilder.class);
 
-  private static final String IS_IN_LIBRARY_KEY = "is.in.library";
+  static final String IS_IN_LIBRARY_KEY = "is.in.library";
   private static final String TYPE_DEFINITIONS_COUNT = "type.definitions.count";
 
   private final GraphQLFile myFile;
   private final boolean myIsInLibrary;
+  private final int @Nullable [] myLineStartOffsets;
 
   public static boolean isInLibrary(@NotNull Node<?> node) {
     return node.getAdditionalData().containsKey(IS_IN_LIBRARY_KEY);
@@ -175,6 +177,53 @@ public final class GraphQLPsiDocumentBuilder {
   public GraphQLPsiDocumentBuilder(@NotNull GraphQLFile file) {
     myFile = file;
     myIsInLibrary = GraphQLLibraryManager.getInstance(file.getProject()).isLibraryRoot(file.getVirtualFile());
+    myLineStartOffsets = null;
+  }
+
+  /**
+   * Used during indexing, when neither the project nor the file document is available.
+   * Source locations are computed from the provided file text and have no source name,
+   * library nodes aren't marked, see {@link GraphQLDocumentExternalizer#read(java.io.DataInput, String, boolean)}.
+   */
+  private GraphQLPsiDocumentBuilder(@NotNull GraphQLFile file, @NotNull CharSequence text) {
+    myFile = file;
+    myIsInLibrary = false;
+    myLineStartOffsets = computeLineStartOffsets(text);
+  }
+
+  /**
+   * Creates a document containing only type system definitions and extensions, without operations and fragments.
+   */
+  public static @NotNull Document createTypeSystemDocument(@NotNull GraphQLFile file, @NotNull CharSequence text) {
+    GraphQLPsiDocumentBuilder builder = new GraphQLPsiDocumentBuilder(file, text);
+    Document.Builder document = Document.newDocument();
+    builder.addCommonData(document, file);
+
+    var definitions = new ArrayList<Definition>();
+    for (GraphQLDefinition psiDefinition : file.getDefinitions()) {
+      if (psiDefinition instanceof GraphQLOperationDefinition || psiDefinition instanceof GraphQLFragmentDefinition) {
+        continue;
+      }
+      Definition definition = builder.createDefinition(psiDefinition);
+      if (definition != null) {
+        definitions.add(definition);
+      }
+    }
+    document.definitions(definitions);
+    document.additionalData(TYPE_DEFINITIONS_COUNT, String.valueOf(definitions.size()));
+
+    return document.build();
+  }
+
+  private static int @NotNull [] computeLineStartOffsets(@NotNull CharSequence text) {
+    var offsets = new ArrayList<Integer>();
+    offsets.add(0);
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') {
+        offsets.add(i + 1);
+      }
+    }
+    return offsets.stream().mapToInt(Integer::intValue).toArray();
   }
 
   public @NotNull Document createDocument() {
@@ -229,7 +278,7 @@ public final class GraphQLPsiDocumentBuilder {
     }
     else if (definition instanceof GraphQLTypedOperationDefinition typedOperation) {
       operationDefinition.operation(parseOperation(typedOperation));
-      operationDefinition.name(typedOperation.getName());
+      operationDefinition.name(intern(typedOperation.getName()));
 
       operationDefinition.variableDefinitions(createVariableDefinitions(typedOperation.getVariableDefinitions()));
       operationDefinition.directives(createDirectives(typedOperation.getDirectives()));
@@ -252,7 +301,7 @@ public final class GraphQLPsiDocumentBuilder {
   }
 
   private @Nullable FragmentSpread createFragmentSpread(@NotNull GraphQLFragmentSpread fragment) {
-    FragmentSpread.Builder fragmentSpread = FragmentSpread.newFragmentSpread().name(fragment.getName());
+    FragmentSpread.Builder fragmentSpread = FragmentSpread.newFragmentSpread().name(intern(fragment.getName()));
     addCommonData(fragmentSpread, fragment);
     fragmentSpread.directives(createDirectives(fragment.getDirectives()));
     return checkNode(fragmentSpread.build());
@@ -268,7 +317,7 @@ public final class GraphQLPsiDocumentBuilder {
   private @Nullable VariableDefinition createVariableDefinition(@NotNull GraphQLVariableDefinition definition) {
     VariableDefinition.Builder variableDefinition = VariableDefinition.newVariableDefinition();
     addCommonData(variableDefinition, definition);
-    variableDefinition.name(definition.getVariable().getName());
+    variableDefinition.name(intern(definition.getVariable().getName()));
     GraphQLDefaultValue defaultValue = definition.getDefaultValue();
     if (defaultValue != null) {
       variableDefinition.defaultValue(createValue(defaultValue.getValue()));
@@ -281,14 +330,14 @@ public final class GraphQLPsiDocumentBuilder {
   private @Nullable FragmentDefinition createFragmentDefinition(@NotNull GraphQLFragmentDefinition definition) {
     FragmentDefinition.Builder fragmentDefinition = FragmentDefinition.newFragmentDefinition();
     addCommonData(fragmentDefinition, definition);
-    fragmentDefinition.name(definition.getName());
+    fragmentDefinition.name(intern(definition.getName()));
 
     GraphQLTypeCondition typeCondition = definition.getTypeCondition();
     if (typeCondition != null) {
       GraphQLTypeName typeName = typeCondition.getTypeName();
       if (typeName != null) {
         fragmentDefinition.typeCondition(checkNode(
-          TypeName.newTypeName().name(typeName.getName()).build()));
+          TypeName.newTypeName().name(intern(typeName.getName())).build()));
       }
     }
 
@@ -332,10 +381,10 @@ public final class GraphQLPsiDocumentBuilder {
   private @Nullable Field createField(@NotNull GraphQLField field) {
     Field.Builder builder = Field.newField();
     addCommonData(builder, field);
-    builder.name(field.getName());
+    builder.name(intern(field.getName()));
     GraphQLAlias alias = field.getAlias();
     if (alias != null) {
-      builder.alias(alias.getIdentifier().getText());
+      builder.alias(intern(alias.getIdentifier().getText()));
     }
 
     builder.directives(createDirectives(field.getDirectives()));
@@ -443,7 +492,7 @@ public final class GraphQLPsiDocumentBuilder {
   private @Nullable TypeName createTypeName(@Nullable GraphQLTypeName typeName) {
     if (typeName == null) return null;
     TypeName.Builder builder = TypeName.newTypeName();
-    builder.name(typeName.getName());
+    builder.name(intern(typeName.getName()));
     addCommonData(builder, typeName);
     return checkNode(builder.build());
   }
@@ -474,7 +523,7 @@ public final class GraphQLPsiDocumentBuilder {
   private @Nullable Argument createArgument(@NotNull GraphQLArgument argument) {
     Argument.Builder builder = Argument.newArgument();
     addCommonData(builder, argument);
-    builder.name(argument.getName());
+    builder.name(intern(argument.getName()));
     builder.value(createValue(argument.getValue()));
     return checkNode(builder.build());
   }
@@ -493,7 +542,7 @@ public final class GraphQLPsiDocumentBuilder {
 
   private @Nullable Directive createDirective(@NotNull GraphQLDirective directive) {
     Directive.Builder builder = Directive.newDirective();
-    builder.name(directive.getName());
+    builder.name(intern(directive.getName()));
     addCommonData(builder, directive);
     builder.arguments(createArguments(directive.getArguments()));
     return checkNode(builder.build());
@@ -529,7 +578,7 @@ public final class GraphQLPsiDocumentBuilder {
     OperationTypeDefinition.Builder def = OperationTypeDefinition.newOperationTypeDefinition();
     GraphQLOperationType operationType = definition.getOperationType();
     if (operationType != null) {
-      def.name(operationType.getText());
+      def.name(intern(operationType.getText()));
     }
     def.typeName(createTypeName(definition.getTypeName()));
     addCommonData(def, definition);
@@ -540,7 +589,7 @@ public final class GraphQLPsiDocumentBuilder {
     ScalarTypeDefinition.Builder def = ScalarTypeDefinition.newScalarTypeDefinition();
     GraphQLTypeNameDefinition typeNameDefinition = typeDefinition.getTypeNameDefinition();
     if (typeNameDefinition != null) {
-      def.name(typeNameDefinition.getName());
+      def.name(intern(typeNameDefinition.getName()));
     }
     addCommonData(def, typeDefinition);
     def.description(newDescription(typeDefinition.getDescription()));
@@ -552,7 +601,7 @@ public final class GraphQLPsiDocumentBuilder {
     ScalarTypeExtensionDefinition.Builder def = ScalarTypeExtensionDefinition.newScalarTypeExtensionDefinition();
     GraphQLTypeName typeName = extensionDefinition.getTypeName();
     if (typeName != null) {
-      def.name(typeName.getName());
+      def.name(intern(typeName.getName()));
     }
     addCommonData(def, extensionDefinition);
     def.directives(createDirectives(extensionDefinition.getDirectives()));
@@ -563,7 +612,7 @@ public final class GraphQLPsiDocumentBuilder {
     ObjectTypeDefinition.Builder def = ObjectTypeDefinition.newObjectTypeDefinition();
     GraphQLTypeNameDefinition typeNameDefinition = typeDefinition.getTypeNameDefinition();
     if (typeNameDefinition != null) {
-      def.name(typeNameDefinition.getName());
+      def.name(intern(typeNameDefinition.getName()));
     }
     addCommonData(def, typeDefinition);
     def.description(newDescription(typeDefinition.getDescription()));
@@ -577,7 +626,7 @@ public final class GraphQLPsiDocumentBuilder {
     ObjectTypeExtensionDefinition.Builder def = ObjectTypeExtensionDefinition.newObjectTypeExtensionDefinition();
     GraphQLTypeName typeName = extensionDefinition.getTypeName();
     if (typeName != null) {
-      def.name(typeName.getName());
+      def.name(intern(typeName.getName()));
     }
     addCommonData(def, extensionDefinition);
     def.directives(createDirectives(extensionDefinition.getDirectives()));
@@ -599,7 +648,7 @@ public final class GraphQLPsiDocumentBuilder {
 
   private @Nullable FieldDefinition createFieldDefinition(@NotNull GraphQLFieldDefinition fieldDefinition) {
     FieldDefinition.Builder def = FieldDefinition.newFieldDefinition();
-    def.name(fieldDefinition.getName());
+    def.name(intern(fieldDefinition.getName()));
     def.type(createType(fieldDefinition.getType()));
     addCommonData(def, fieldDefinition);
     def.description(newDescription(fieldDefinition.getDescription()));
@@ -617,7 +666,7 @@ public final class GraphQLPsiDocumentBuilder {
 
   private @Nullable InputValueDefinition createInputValueDefinition(@NotNull GraphQLInputValueDefinition valueDefinition) {
     InputValueDefinition.Builder def = InputValueDefinition.newInputValueDefinition();
-    def.name(valueDefinition.getName());
+    def.name(intern(valueDefinition.getName()));
     def.type(createType(valueDefinition.getType()));
     addCommonData(def, valueDefinition);
     def.description(newDescription(valueDefinition.getDescription()));
@@ -633,7 +682,7 @@ public final class GraphQLPsiDocumentBuilder {
     InterfaceTypeDefinition.Builder def = InterfaceTypeDefinition.newInterfaceTypeDefinition();
     GraphQLTypeNameDefinition typeNameDefinition = typeDefinition.getTypeNameDefinition();
     if (typeNameDefinition != null) {
-      def.name(typeNameDefinition.getName());
+      def.name(intern(typeNameDefinition.getName()));
     }
     addCommonData(def, typeDefinition);
     def.description(newDescription(typeDefinition.getDescription()));
@@ -648,7 +697,7 @@ public final class GraphQLPsiDocumentBuilder {
     InterfaceTypeExtensionDefinition.Builder def = InterfaceTypeExtensionDefinition.newInterfaceTypeExtensionDefinition();
     GraphQLTypeName typeName = extensionDefinition.getTypeName();
     if (typeName != null) {
-      def.name(typeName.getName());
+      def.name(intern(typeName.getName()));
     }
     addCommonData(def, extensionDefinition);
     def.directives(createDirectives(extensionDefinition.getDirectives()));
@@ -662,7 +711,7 @@ public final class GraphQLPsiDocumentBuilder {
     UnionTypeDefinition.Builder def = UnionTypeDefinition.newUnionTypeDefinition();
     GraphQLTypeNameDefinition typeNameDefinition = typeDefinition.getTypeNameDefinition();
     if (typeNameDefinition != null) {
-      def.name(typeNameDefinition.getName());
+      def.name(intern(typeNameDefinition.getName()));
     }
     addCommonData(def, typeDefinition);
     def.description(newDescription(typeDefinition.getDescription()));
@@ -688,7 +737,7 @@ public final class GraphQLPsiDocumentBuilder {
     UnionTypeExtensionDefinition.Builder def = UnionTypeExtensionDefinition.newUnionTypeExtensionDefinition();
     GraphQLTypeName typeName = extensionDefinition.getTypeName();
     if (typeName != null) {
-      def.name(typeName.getName());
+      def.name(intern(typeName.getName()));
     }
     addCommonData(def, extensionDefinition);
     def.directives(createDirectives(extensionDefinition.getDirectives()));
@@ -713,7 +762,7 @@ public final class GraphQLPsiDocumentBuilder {
     EnumTypeDefinition.Builder def = EnumTypeDefinition.newEnumTypeDefinition();
     GraphQLTypeNameDefinition typeNameDefinition = enumTypeDefinition.getTypeNameDefinition();
     if (typeNameDefinition != null) {
-      def.name(typeNameDefinition.getName());
+      def.name(intern(typeNameDefinition.getName()));
     }
     addCommonData(def, enumTypeDefinition);
     def.description(newDescription(enumTypeDefinition.getDescription()));
@@ -730,7 +779,7 @@ public final class GraphQLPsiDocumentBuilder {
     EnumTypeExtensionDefinition.Builder def = EnumTypeExtensionDefinition.newEnumTypeExtensionDefinition();
     GraphQLTypeName typeName = extensionDefinition.getTypeName();
     if (typeName != null) {
-      def.name(typeName.getName());
+      def.name(intern(typeName.getName()));
     }
     addCommonData(def, extensionDefinition);
     def.directives(createDirectives(extensionDefinition.getDirectives()));
@@ -744,7 +793,7 @@ public final class GraphQLPsiDocumentBuilder {
 
   private @Nullable EnumValueDefinition createEnumValueDefinition(@NotNull GraphQLEnumValueDefinition valueDefinition) {
     EnumValueDefinition.Builder def = EnumValueDefinition.newEnumValueDefinition();
-    def.name(valueDefinition.getEnumValue().getName());
+    def.name(intern(valueDefinition.getEnumValue().getName()));
     addCommonData(def, valueDefinition);
     def.description(newDescription(valueDefinition.getDescription()));
     def.directives(createDirectives(valueDefinition.getDirectives()));
@@ -755,7 +804,7 @@ public final class GraphQLPsiDocumentBuilder {
     InputObjectTypeDefinition.Builder def = InputObjectTypeDefinition.newInputObjectDefinition();
     GraphQLTypeNameDefinition typeNameDefinition = typeDefinition.getTypeNameDefinition();
     if (typeNameDefinition != null) {
-      def.name(typeNameDefinition.getName());
+      def.name(intern(typeNameDefinition.getName()));
     }
     addCommonData(def, typeDefinition);
     def.description(newDescription(typeDefinition.getDescription()));
@@ -771,7 +820,7 @@ public final class GraphQLPsiDocumentBuilder {
     InputObjectTypeExtensionDefinition.Builder def = InputObjectTypeExtensionDefinition.newInputObjectTypeExtensionDefinition();
     GraphQLTypeName typeName = extensionDefinition.getTypeName();
     if (typeName != null) {
-      def.name(typeName.getName());
+      def.name(intern(typeName.getName()));
     }
     addCommonData(def, extensionDefinition);
     def.directives(createDirectives(extensionDefinition.getDirectives()));
@@ -786,7 +835,7 @@ public final class GraphQLPsiDocumentBuilder {
     DirectiveDefinition.Builder def = DirectiveDefinition.newDirectiveDefinition();
     GraphQLIdentifier nameIdentifier = directiveDefinition.getNameIdentifier();
     if (nameIdentifier != null) {
-      def.name(nameIdentifier.getText());
+      def.name(intern(nameIdentifier.getText()));
     }
     addCommonData(def, directiveDefinition);
     def.description(newDescription(directiveDefinition.getDescription()));
@@ -814,7 +863,7 @@ public final class GraphQLPsiDocumentBuilder {
 
   private @Nullable DirectiveLocation createDirectiveLocation(@NotNull GraphQLDirectiveLocation directiveLocation) {
     DirectiveLocation.Builder def = DirectiveLocation.newDirectiveLocation();
-    def.name(directiveLocation.getText());
+    def.name(intern(directiveLocation.getText()));
     addCommonData(def, directiveLocation);
     return checkNode(def.build());
   }
@@ -860,7 +909,7 @@ public final class GraphQLPsiDocumentBuilder {
       return stringValue.build();
     }
     else if (value instanceof GraphQLEnumValue) {
-      EnumValue.Builder enumValue = EnumValue.newEnumValue().name(((GraphQLEnumValue)value).getName());
+      EnumValue.Builder enumValue = EnumValue.newEnumValue().name(intern(((GraphQLEnumValue)value).getName()));
       addCommonData(enumValue, value);
       return checkNode(enumValue.build());
     }
@@ -882,7 +931,7 @@ public final class GraphQLPsiDocumentBuilder {
       List<ObjectField> objectFields = new ArrayList<>();
       for (GraphQLObjectField field : ((GraphQLObjectValue)value).getObjectFieldList()) {
         ObjectField objectField = checkNode(ObjectField.newObjectField()
-                                              .name(field.getName())
+                                              .name(intern(field.getName()))
                                               .value(createValue(field.getValue()))
                                               .build());
         if (objectField != null) {
@@ -893,29 +942,47 @@ public final class GraphQLPsiDocumentBuilder {
     }
     else if (value instanceof GraphQLVariable) {
       VariableReference.Builder variableReference = VariableReference.newVariableReference()
-        .name(((GraphQLVariable)value).getName());
+        .name(intern(((GraphQLVariable)value).getName()));
       addCommonData(variableReference, value);
       return checkNode(variableReference.build());
     }
     return assertShouldNeverHappen();
   }
 
+  private static @Nullable String intern(@Nullable String name) {
+    return GraphQLAstInterner.intern(name);
+  }
+
   private void addCommonData(NodeBuilder nodeBuilder, @NotNull GraphQLElement element) {
-    nodeBuilder.sourceLocation(GraphQLTypeDefinitionUtil.getSourceLocation(element));
+    nodeBuilder.sourceLocation(getSourceLocation(element));
 
     if (myIsInLibrary) {
       nodeBuilder.additionalData(IS_IN_LIBRARY_KEY, "");
     }
   }
 
-  private static @Nullable Description newDescription(@Nullable GraphQLDescription description) {
+  private @Nullable Description newDescription(@Nullable GraphQLDescription description) {
     if (description == null) return null;
     String content = description.getContent();
     boolean multiLine = description.isMultiLine();
-    SourceLocation sourceLocation = GraphQLTypeDefinitionUtil.getSourceLocation(description);
+    SourceLocation sourceLocation = getSourceLocation(description);
     return new Description(content, sourceLocation, multiLine);
   }
 
+  private @NotNull SourceLocation getSourceLocation(@NotNull GraphQLElement element) {
+    if (myLineStartOffsets == null) {
+      return GraphQLTypeDefinitionUtil.getSourceLocation(element);
+    }
+
+    // the same offset as in the PSI-based source locations, e.g. after the description of a definition
+    int offset = element.getNavigationElement().getTextRange().getStartOffset();
+    int line = Arrays.binarySearch(myLineStartOffsets, offset);
+    if (line < 0) {
+      line = -line - 2;
+    }
+    return new SourceLocation(line, offset - myLineStartOffsets[line], null);
+  }
+
   private @NotNull List<Type> getImplements(@Nullable GraphQLImplementsInterfaces implementsInterfaces) {
     if (implementsInterfaces == null) return Collections.emptyList();
 
@@ -10,10 +10,19 @@ package com.intellij.lang.jsgraphql.schema
 import com.intellij.lang.jsgraphql.types.GraphQLException
 import com.intellij.lang.jsgraphql.types.schema.idl.TypeDefinitionRegistry
 
-class GraphQLRegistryInfo(
+class GraphQLRegistryInfo @JvmOverloads constructor(
   val typeDefinitionRegistry: TypeDefinitionRegistry,
   val isTooComplex: Boolean = false,
+  /**
+   * The registry contains only the types reachable from the validated operations, see [GraphQLPartialRegistryBuilder].
+   */
+  val isPartial: Boolean = false,
 ) {
+  init {
+    // registries are shared between readers once built, so they don't need defensive copies anymore
+    typeDefinitionRegistry.freeze()
+  }
+
   val errors: List<GraphQLException>
     get() = typeDefinitionRegistry.errors
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Flight Recorder event emitted for each schema built from the sources, see {@link GraphQLSchemaBuildStatistics}.
+ */
+@Name("com.intellij.lang.jsgraphql.SchemaBuild")
+@Label("GraphQL Schema Build")
+@Category({"GraphQL"})
+@Description("Phases of a GraphQL schema build for a single scope")
+@StackTrace(false)
+final class GraphQLSchemaBuildEvent extends Event {
+
+  @Label("Scope")
+  String scope;
+
+  @Label("Modification Stamp")
+  long modificationStamp;
+
+  @Label("Files")
+  int files;
+
+  @Label("Definitions")
+  int definitions;
+
+  @Label("Extensions")
+  int extensions;
+
+  @Label("Too Complex")
+  boolean isTooComplex;
+
+  @Label("Documents Collection")
+  @Timespan(Timespan.NANOSECONDS)
+  long documentsCollection;
+
+  @Label("PSI to AST")
+  @Timespan(Timespan.NANOSECONDS)
+  long psiToAst;
+
+  @Label("Composite Merge")
+  @Timespan(Timespan.NANOSECONDS)
+  long compositeMerge;
+
+  @Label("Type Checking")
+  @Timespan(Timespan.NANOSECONDS)
+  long typeChecking;
+
+  @Label("Schema Generation")
+  @Timespan(Timespan.NANOSECONDS)
+  long schemaGeneration;
+
+  @Label("Schema Validation")
+  @Timespan(Timespan.NANOSECONDS)
+  long schemaValidation;
+
+  static void commit(@NotNull String scope,
+                     long modificationStamp,
+                     boolean isTooComplex,
+                     @NotNull GraphQLSchemaBuildStatistics statistics) {
+    GraphQLSchemaBuildEvent event = new GraphQLSchemaBuildEvent();
+    if (!event.isEnabled()) return;
+
+    event.scope = scope;
+    event.modificationStamp = modificationStamp;
+    event.files = statistics.getFilesCount();
+    event.definitions = statistics.getDefinitionsCount();
+    event.extensions = statistics.getExtensionsCount();
+    event.isTooComplex = isTooComplex;
+    event.documentsCollection = statistics.getPhaseNanos(GraphQLSchemaBuildPhase.DOCUMENTS_COLLECTION);
+    event.psiToAst = statistics.getPhaseNanos(GraphQLSchemaBuildPhase.PSI_TO_AST);
+    event.compositeMerge = statistics.getPhaseNanos(GraphQLSchemaBuildPhase.COMPOSITE_MERGE);
+    event.typeChecking = statistics.getPhaseNanos(GraphQLSchemaBuildPhase.TYPE_CHECKING);
+    event.schemaGeneration = statistics.getPhaseNanos(GraphQLSchemaBuildPhase.SCHEMA_GENERATION);
+    event.schemaValidation = statistics.getPhaseNanos(GraphQLSchemaBuildPhase.SCHEMA_VALIDATION);
+    event.commit();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema
+
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.withContext
+import java.util.concurrent.atomic.AtomicReference
+import kotlin.coroutines.AbstractCoroutineContextElement
+import kotlin.coroutines.CoroutineContext
+import kotlin.coroutines.coroutineContext
+
+/**
+ * Orders the schema computations of different scopes, so the scope of the file being edited isn't delayed by the others,
+ * e.g. when the configuration is reloaded and all the scopes are rebuilt at once.
+ *
+ * Priority builds start immediately. Background builds are limited to the given number of concurrent computations,
+ * and are suspended at the [checkpoint]s while any priority build is running, but not longer than it takes
+ * to finish [maxPriorityBuildsPerCheckpoint] priority builds, so a steady stream of them can't starve the background ones.
+ *
+ * The priority of a build isn't fixed, it's evaluated again while the build waits for a permit or at a checkpoint,
+ * each time the priorities change (see [onPrioritiesChanged]), so a background build is promoted once it becomes relevant.
+ */
+internal class GraphQLSchemaBuildScheduler(
+  backgroundParallelism: Int,
+  private val maxPriorityBuildsPerCheckpoint: Int = DEFAULT_MAX_PRIORITY_BUILDS_PER_CHECKPOINT,
+) {
+  companion object {
+    const val DEFAULT_MAX_PRIORITY_BUILDS_PER_CHECKPOINT = 3
+  }
+
+  private val backgroundParallelism = backgroundParallelism.coerceAtLeast(1)
+  private val state = MutableStateFlow(State())
+
+  /**
+   * Runs the [block] as a priority build if [isPriority] returns true, otherwise as a background one.
+   */
+  suspend fun <T> run(isPriority: suspend () -> Boolean, block: suspend () -> T): T {
+    val build = Build(isPriority)
+    try {
+      build.start()
+      return withContext(build) {
+        checkpoint()
+        block()
+      }
+    }
+    finally {
+      build.finish()
+    }
+  }
+
+  /**
+   * Should be called when the result of the priority predicates may have changed, e.g. when another editor is selected.
+   */
+  fun onPrioritiesChanged() {
+    state.update { it.copy(prioritiesVersion = it.prioritiesVersion + 1) }
+  }
+
+  /**
+   * Suspends a background build until all the priority builds are finished, does nothing for the priority builds.
+   * Should be called between the stages of a build, outside of read actions.
+   */
+  suspend fun checkpoint() {
+    coroutineContext[BuildKey]?.checkpoint()
+  }
+
+  private data class State(
+    val activePriorityBuilds: Int = 0,
+    val activeBackgroundBuilds: Int = 0,
+    val finishedPriorityBuilds: Long = 0,
+    val prioritiesVersion: Long = 0,
+  )
+
+  private enum class Role { PRIORITY, BACKGROUND }
+
+  private inner class Build(private val isPriority: suspend () -> Boolean) : AbstractCoroutineContextElement(BuildKey) {
+    private val role = AtomicReference<Role?>()
+
+    suspend fun start() {
+      while (true) {
+        val current = state.value
+        if (isPriority()) {
+          state.update { it.copy(activePriorityBuilds = it.activePriorityBuilds + 1) }
+          role.set(Role.PRIORITY)
+          return
+        }
+        if (tryAcquireBackgroundPermit()) {
+          role.set(Role.BACKGROUND)
+          return
+        }
+        state.first {
+          it.activeBackgroundBuilds < backgroundParallelism || it.prioritiesVersion != current.prioritiesVersion
+        }
+      }
+    }
+
+    suspend fun checkpoint() {
+      val waitStart = state.value.finishedPriorityBuilds
+      while (role.get() == Role.BACKGROUND) {
+        val current = state.value
+        if (isPriority()) {
+          promote()
+          return
+        }
+        if (!shouldWait(current, waitStart)) {
+          return
+        }
+        state.first { !shouldWait(it, waitStart) || it.prioritiesVersion != current.prioritiesVersion }
+      }
+    }
+
+    fun finish() {
+      when (role.getAndSet(null)) {
+        Role.PRIORITY -> state.update {
+          it.copy(activePriorityBuilds = it.activePriorityBuilds - 1, finishedPriorityBuilds = it.finishedPriorityBuilds + 1)
+        }
+        Role.BACKGROUND -> state.update { it.copy(activeBackgroundBuilds = it.activeBackgroundBuilds - 1) }
+        null -> {}
+      }
+    }
+
+    private fun tryAcquireBackgroundPermit(): Boolean {
+      while (true) {
+        val current = state.value
+        if (current.activeBackgroundBuilds >= backgroundParallelism) {
+          return false
+        }
+        if (state.compareAndSet(current, current.copy(activeBackgroundBuilds = current.activeBackgroundBuilds + 1))) {
+          return true
+        }
+      }
+    }
+
+    private fun promote() {
+      // the child coroutines of a build can reach the checkpoints concurrently
+      if (role.compareAndSet(Role.BACKGROUND, Role.PRIORITY)) {
+        state.update {
+          it.copy(activeBackgroundBuilds = it.activeBackgroundBuilds - 1, activePriorityBuilds = it.activePriorityBuilds + 1)
+        }
+      }
+    }
+
+    private fun shouldWait(state: State, waitStart: Long): Boolean {
+      return state.activePriorityBuilds > 0 && state.finishedPriorityBuilds - waitStart < maxPriorityBuildsPerCheckpoint
+    }
+  }
+
+  private object BuildKey : CoroutineContext.Key<Build>
+}
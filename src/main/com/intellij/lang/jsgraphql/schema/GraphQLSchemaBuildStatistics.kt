@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema
+
+import com.intellij.lang.jsgraphql.types.language.Document
+import com.intellij.lang.jsgraphql.types.language.EnumTypeExtensionDefinition
+import com.intellij.lang.jsgraphql.types.language.InputObjectTypeExtensionDefinition
+import com.intellij.lang.jsgraphql.types.language.InterfaceTypeExtensionDefinition
+import com.intellij.lang.jsgraphql.types.language.ObjectTypeExtensionDefinition
+import com.intellij.lang.jsgraphql.types.language.ScalarTypeExtensionDefinition
+import com.intellij.lang.jsgraphql.types.language.SchemaExtensionDefinition
+import com.intellij.lang.jsgraphql.types.language.UnionTypeExtensionDefinition
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.nanoseconds
+
+enum class GraphQLSchemaBuildPhase {
+  /**
+   * Finding the contributing files and assembling their documents, including [PSI_TO_AST].
+   */
+  DOCUMENTS_COLLECTION,
+
+  /**
+   * Converting PSI or index data of the individual files to documents, summed up over all the files,
+   * so it can exceed the wall time of [DOCUMENTS_COLLECTION] when the files are loaded in parallel.
+   */
+  PSI_TO_AST,
+  COMPOSITE_MERGE,
+  TYPE_CHECKING,
+
+  /**
+   * Building the schema objects, excluding [TYPE_CHECKING].
+   */
+  SCHEMA_GENERATION,
+  SCHEMA_VALIDATION,
+
+  /**
+   * Suppressing the errors in [GraphQLSchemaInfo.getErrors], the last measured call is kept.
+   */
+  ERRORS_FILTERING,
+}
+
+/**
+ * Timings and sizes of a single schema build. Phases are measured by different threads, so the values are updated atomically.
+ */
+class GraphQLSchemaBuildStatistics {
+  private val phaseNanos = AtomicLongArray(GraphQLSchemaBuildPhase.values().size)
+
+  var filesCount: Int = 0
+    internal set
+  var definitionsCount: Int = 0
+    internal set
+  var extensionsCount: Int = 0
+    internal set
+
+  fun getPhaseNanos(phase: GraphQLSchemaBuildPhase): Long = phaseNanos[phase.ordinal]
+
+  fun getDuration(phase: GraphQLSchemaBuildPhase): Duration = getPhaseNanos(phase).nanoseconds
+
+  val totalDuration: Duration
+    get() = GraphQLSchemaBuildPhase.values()
+      .filter { it != GraphQLSchemaBuildPhase.PSI_TO_AST && it != GraphQLSchemaBuildPhase.ERRORS_FILTERING }
+      .fold(Duration.ZERO) { total, phase -> total + getDuration(phase) }
+
+  internal fun addDuration(phase: GraphQLSchemaBuildPhase, nanos: Long) {
+    phaseNanos.addAndGet(phase.ordinal, nanos)
+  }
+
+  internal fun setDuration(phase: GraphQLSchemaBuildPhase, nanos: Long) {
+    phaseNanos.set(phase.ordinal, nanos)
+  }
+
+  internal inline fun <T> measure(phase: GraphQLSchemaBuildPhase, block: () -> T): T {
+    val start = System.nanoTime()
+    try {
+      return block()
+    }
+    finally {
+      addDuration(phase, System.nanoTime() - start)
+    }
+  }
+
+  internal fun countDocuments(documents: Collection<Document>) {
+    filesCount = documents.size
+    var definitions = 0
+    var extensions = 0
+    for (document in documents) {
+      for (definition in document.definitions) {
+        when (definition) {
+          is ObjectTypeExtensionDefinition,
+          is InterfaceTypeExtensionDefinition,
+          is UnionTypeExtensionDefinition,
+          is EnumTypeExtensionDefinition,
+          is ScalarTypeExtensionDefinition,
+          is InputObjectTypeExtensionDefinition,
+          is SchemaExtensionDefinition,
+            -> extensions++
+
+          else -> definitions++
+        }
+      }
+    }
+    definitionsCount = definitions
+    extensionsCount = extensions
+  }
+
+  override fun toString(): String {
+    val phases = GraphQLSchemaBuildPhase.values().joinToString { "${it.name.lowercase()}=${getDuration(it)}" }
+    return "files=$filesCount, definitions=$definitionsCount, extensions=$extensionsCount, $phases"
+  }
+}
+
+/**
+ * Counters of the schema cache requests for a single scope, accumulated during the session.
+ */
+class GraphQLSchemaCacheStatistics {
+  private val hits = AtomicLong()
+  private val misses = AtomicLong()
+  private val builds = AtomicLong()
+  private val cancellations = AtomicLong()
+  private val evictions = AtomicLong()
+
+  val hitsCount: Long
+    get() = hits.get()
+
+  val missesCount: Long
+    get() = misses.get()
+
+  /**
+   * The number of schema builds finished for the scope, compare with [cancellationsCount]
+   * to see how many builds are wasted because of the subsequent changes.
+   */
+  val buildsCount: Long
+    get() = builds.get()
+
+  val cancellationsCount: Long
+    get() = cancellations.get()
+
+  val evictionsCount: Long
+    get() = evictions.get()
+
+  internal fun hit() {
+    hits.incrementAndGet()
+  }
+
+  internal fun miss() {
+    misses.incrementAndGet()
+  }
+
+  internal fun built() {
+    builds.incrementAndGet()
+  }
+
+  internal fun cancelled() {
+    cancellations.incrementAndGet()
+  }
+
+  internal fun evicted() {
+    evictions.incrementAndGet()
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema
+
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+
+/**
+ * A map with the least recently used entries evicted once the total weight of the values exceeds the budget.
+ * The most recently used entry is always kept, even if it alone exceeds the budget.
+ *
+ * Unlike the soft maps, the eviction doesn't depend on the memory pressure, so the schemas of the active scopes
+ * are not dropped at random, while the ones of the scopes no longer requested don't stay in memory forever.
+ * The keys are weakly reachable, so the entries of the scopes replaced after a configuration change are dropped
+ * as soon as the scopes are collected, without waiting for the eviction.
+ */
+internal class GraphQLSchemaCache<K : Any, V : Any>(
+  private val budget: () -> Long,
+  private val weigher: (V) -> Long,
+  private val onEvicted: (K, V) -> Unit = { _, _ -> },
+) {
+  private val lock = Any()
+  private val entries = LinkedHashMap<KeyReference<K>, WeightedValue<V>>(16, 0.75f, true) // lock
+  private val collectedKeys = ReferenceQueue<K>()
+  private var totalWeight = 0L // lock
+  private var evictions = 0L // lock
+
+  val weight: Long
+    get() = synchronized(lock) {
+      removeCollectedKeys()
+      totalWeight
+    }
+
+  val evictionsCount: Long
+    get() = synchronized(lock) { evictions }
+
+  operator fun get(key: K): V? = synchronized(lock) {
+    removeCollectedKeys()
+    entries[KeyReference(key)]?.value
+  }
+
+  fun containsKey(key: K): Boolean = synchronized(lock) { entries.containsKey(KeyReference(key)) }
+
+  /**
+   * @return any value matching the [predicate], the order of the entries isn't affected
+   */
+  fun findValue(predicate: (V) -> Boolean): V? = synchronized(lock) {
+    removeCollectedKeys()
+    entries.values.firstOrNull { predicate(it.value) }?.value
+  }
+
+  operator fun set(key: K, value: V) {
+    val weightedValue = WeightedValue(value, weigher(value))
+    val evicted = synchronized(lock) {
+      removeCollectedKeys()
+      entries.put(KeyReference(key, collectedKeys), weightedValue)?.let { totalWeight -= it.weight }
+      totalWeight += weightedValue.weight
+      evictOverBudget()
+    }
+    notifyEvicted(evicted)
+  }
+
+  fun putIfAbsent(key: K, value: V): V? {
+    val weightedValue = WeightedValue(value, weigher(value))
+    val evicted = synchronized(lock) {
+      removeCollectedKeys()
+      entries[KeyReference(key)]?.let { return it.value }
+      entries[KeyReference(key, collectedKeys)] = weightedValue
+      totalWeight += weightedValue.weight
+      evictOverBudget()
+    }
+    notifyEvicted(evicted)
+    return null
+  }
+
+  /**
+   * Replaces the value only if the key is still mapped to [oldValue].
+   */
+  fun replace(key: K, oldValue: V, newValue: V): Boolean {
+    val weightedValue = WeightedValue(newValue, weigher(newValue))
+    val evicted = synchronized(lock) {
+      removeCollectedKeys()
+      val keyReference = KeyReference(key)
+      val current = entries[keyReference]
+      if (current == null || current.value !== oldValue) return false
+      entries[keyReference] = weightedValue
+      totalWeight += weightedValue.weight - current.weight
+      evictOverBudget()
+    }
+    notifyEvicted(evicted)
+    return true
+  }
+
+  fun clear() {
+    synchronized(lock) {
+      entries.clear()
+      totalWeight = 0
+      while (collectedKeys.poll() != null) {
+        // the references are already removed from the entries
+      }
+    }
+  }
+
+  private fun removeCollectedKeys() {
+    while (true) {
+      val keyReference = collectedKeys.poll() ?: return
+      // a collected reference is equal only to itself
+      @Suppress("UNCHECKED_CAST")
+      entries.remove(keyReference as KeyReference<K>)?.let { totalWeight -= it.weight }
+    }
+  }
+
+  private fun evictOverBudget(): List<Pair<K, V>> {
+    val maxWeight = budget()
+    if (totalWeight <= maxWeight) return emptyList()
+
+    val evicted = mutableListOf<Pair<K, V>>()
+    val iterator = entries.entries.iterator()
+    // the last entry is the most recently used one, so it is never evicted
+    while (totalWeight > maxWeight && entries.size > 1) {
+      val (keyReference, weightedValue) = iterator.next()
+      iterator.remove()
+      totalWeight -= weightedValue.weight
+      evictions++
+      keyReference.get()?.let { evicted.add(it to weightedValue.value) }
+    }
+    return evicted
+  }
+
+  private fun notifyEvicted(evicted: List<Pair<K, V>>) {
+    evicted.forEach { (key, value) -> onEvicted(key, value) }
+  }
+
+  private class KeyReference<K : Any>(key: K, queue: ReferenceQueue<K>? = null) : WeakReference<K>(key, queue) {
+    private val hashCode = key.hashCode()
+
+    override fun hashCode(): Int = hashCode
+
+    override fun equals(other: Any?): Boolean {
+      if (this === other) return true
+      if (other !is KeyReference<*>) return false
+      val key = get()
+      return key != null && key == other.get()
+    }
+  }
+
+  private class WeightedValue<V>(val value: V, val weight: Long)
+}
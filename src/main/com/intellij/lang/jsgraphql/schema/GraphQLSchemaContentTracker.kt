@@ -8,8 +8,10 @@
 package com.intellij.lang.jsgraphql.schema
 
 import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer
+import com.intellij.lang.injection.InjectedLanguageManager
 import com.intellij.lang.jsgraphql.ide.injection.GraphQLInjectedLanguage
 import com.intellij.lang.jsgraphql.ide.resolve.GraphQLScopeDependency
+import com.intellij.lang.jsgraphql.ide.search.GraphQLFileTypesProvider
 import com.intellij.lang.jsgraphql.psi.GraphQLFile
 import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLOperationDefinition
@@ -23,11 +25,20 @@ import com.intellij.openapi.diagnostic.traceThrowable
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.util.CompositeModificationTracker
 import com.intellij.openapi.util.ModificationTracker
+import com.intellij.openapi.util.text.StringUtil
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.openapi.vfs.newvfs.BulkFileListener
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent
+import com.intellij.psi.PsiComment
+import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiLanguageInjectionHost
 import com.intellij.psi.PsiManager
 import com.intellij.psi.PsiTreeChangeAdapter
 import com.intellij.psi.PsiTreeChangeEvent
+import com.intellij.psi.PsiWhiteSpace
 import com.intellij.psi.impl.PsiTreeChangeEventImpl
+import com.intellij.psi.search.GlobalSearchScope
 import com.intellij.psi.util.parentOfTypes
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.FlowPreview
@@ -35,6 +46,8 @@ import kotlinx.coroutines.channels.BufferOverflow
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.debounce
 import kotlinx.coroutines.launch
+import java.util.concurrent.TimeUnit
+import kotlin.time.Duration
 import kotlin.time.Duration.Companion.milliseconds
 
 
@@ -52,6 +65,19 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
 
     private const val EVENT_PUBLISH_TIMEOUT = 500
 
+    /**
+     * The upper bound of the quiet period extended for change bursts and slow schema builds.
+     */
+    private const val MAX_EVENT_PUBLISH_TIMEOUT = 3000
+
+    /**
+     * The number of distinct changed files, pending or in a single VFS event batch, after which the changes are considered a burst,
+     * e.g. a VCS update, a code generator or a replace in path. Repeated edits of the same file, e.g. typing, are never a burst.
+     */
+    private const val BURST_CHANGES_THRESHOLD = 20
+
+    private const val MAX_CHANGES_HISTORY_SIZE = 100
+
     @JvmStatic
     fun getInstance(project: Project): GraphQLSchemaContentTracker = project.service()
   }
@@ -59,12 +85,27 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
   private val changeNotificationsFlow = MutableSharedFlow<Unit>(replay = 1, onBufferOverflow = BufferOverflow.DROP_OLDEST)
   private val modificationTracker = CompositeModificationTracker(GraphQLScopeDependency.getInstance(project))
 
+  private val lock = Any()
+  private val pendingChangedFiles = mutableSetOf<VirtualFile>() // lock
+  private var hasPendingGlobalChange = false // lock
+  private val changesHistory = ArrayDeque<ContentChange>() // lock
+  private var lastBulkChangeNanos: Long? = null // lock
+
+  @Volatile
+  private var lastBuildDurationMs = 0L
+
   init {
     PsiManager.getInstance(project).addPsiTreeChangeListener(PsiChangeListener(), this)
 
+    project.messageBus.connect(this).subscribe(VirtualFileManager.VFS_CHANGES, object : BulkFileListener {
+      override fun after(events: List<VFileEvent>) {
+        onFilesChanged(events.mapNotNull { it.file })
+      }
+    })
+
     skipInTests {
       coroutineScope.launch {
-        changeNotificationsFlow.debounce(EVENT_PUBLISH_TIMEOUT.milliseconds).collect {
+        changeNotificationsFlow.debounce { getQuietPeriod() }.collect {
           notifySchemaContentChanged()
         }
       }
@@ -72,7 +113,15 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
   }
 
   fun update() {
+    update(null)
+  }
+
+  /**
+   * @param changedFile a file whose content was changed, or null if the change can affect any schema
+   */
+  fun update(changedFile: VirtualFile?) {
     LOG.traceThrowable { Throwable("GraphQL schema cache invalidated") }
+    addPendingChange(changedFile)
 
     if (ApplicationManager.getApplication().isUnitTestMode) {
       updateModificationTracker()
@@ -82,6 +131,56 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
     check(changeNotificationsFlow.tryEmit(Unit))
   }
 
+  /**
+   * Records the change until it's published, see [update].
+   */
+  internal fun addPendingChange(changedFile: VirtualFile?) {
+    synchronized(lock) {
+      if (changedFile != null) {
+        pendingChangedFiles.add(changedFile)
+      }
+      else {
+        hasPendingGlobalChange = true
+      }
+    }
+  }
+
+  /**
+   * VFS events come in batches, so a VCS update or a code generator touching many GraphQL files is a burst on its own.
+   * The changes made in write actions, e.g. a replace in path, are only approximated by the number of pending changed files.
+   */
+  internal fun onFilesChanged(files: Collection<VirtualFile>) {
+    val fileTypesProvider = GraphQLFileTypesProvider.getService()
+    val changedFilesCount = files.asSequence()
+      .filter { !it.isDirectory && fileTypesProvider.isAcceptedFile(it) }
+      .take(BURST_CHANGES_THRESHOLD)
+      .count()
+    if (changedFilesCount >= BURST_CHANGES_THRESHOLD) {
+      synchronized(lock) { lastBulkChangeNanos = System.nanoTime() }
+    }
+  }
+
+  /**
+   * Every published change cancels the schema computations in progress, so during a burst of changes,
+   * or if the schemas take long to build, it's cheaper to wait longer and rebuild them once.
+   */
+  internal fun getQuietPeriod(): Duration {
+    val isBurst = synchronized(lock) {
+      val bulkChangeNanos = lastBulkChangeNanos
+      pendingChangedFiles.size >= BURST_CHANGES_THRESHOLD ||
+      bulkChangeNanos != null && System.nanoTime() - bulkChangeNanos < TimeUnit.MILLISECONDS.toNanos(MAX_EVENT_PUBLISH_TIMEOUT.toLong())
+    }
+    val timeout = if (isBurst) MAX_EVENT_PUBLISH_TIMEOUT.toLong() else maxOf(EVENT_PUBLISH_TIMEOUT.toLong(), lastBuildDurationMs)
+    return timeout.coerceAtMost(MAX_EVENT_PUBLISH_TIMEOUT.toLong()).milliseconds
+  }
+
+  /**
+   * Called once a schema build is finished, its duration is taken into account when the next changes are published.
+   */
+  internal fun onSchemaBuilt(duration: Duration) {
+    lastBuildDurationMs = duration.inWholeMilliseconds
+  }
+
   private fun notifySchemaContentChanged() {
     updateModificationTracker()
     project.messageBus.syncPublisher(GraphQLSchemaContentChangeListener.TOPIC).onSchemaChanged()
@@ -89,15 +188,51 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
   }
 
   private fun updateModificationTracker() {
-    modificationTracker.incModificationCount()
+    synchronized(lock) {
+      val changedFiles = if (hasPendingGlobalChange) null else pendingChangedFiles.toSet()
+      pendingChangedFiles.clear()
+      hasPendingGlobalChange = false
+
+      val previousModificationCount = modificationTracker.modificationCount
+      modificationTracker.incModificationCount()
+      val currentModificationCount = modificationTracker.modificationCount
+
+      // if the scope dependency was changed concurrently, the change is not recorded and considered global
+      if (changedFiles != null && currentModificationCount == previousModificationCount + 1) {
+        changesHistory.addLast(ContentChange(previousModificationCount, currentModificationCount, changedFiles))
+        if (changesHistory.size > MAX_CHANGES_HISTORY_SIZE) {
+          changesHistory.removeFirst()
+        }
+      }
+    }
   }
 
   override fun getModificationCount(): Long {
     return modificationTracker.modificationCount
   }
 
+  /**
+   * Checks whether a schema built for the given scope at [modificationStamp] is still valid,
+   * i.e. all the changes made since then are known and none of them touched files from the scope.
+   * Scope dependency changes and changes without the known files are considered as affecting all scopes.
+   */
+  fun isUpToDate(scope: GlobalSearchScope, modificationStamp: Long): Boolean {
+    synchronized(lock) {
+      var stamp = modificationStamp
+      for (change in changesHistory) {
+        if (change.previousModificationCount < stamp) continue
+        if (change.previousModificationCount != stamp) return false
+        if (change.files.any { it.isValid && scope.contains(it) }) return false
+        stamp = change.modificationCount
+      }
+      return stamp == modificationTracker.modificationCount
+    }
+  }
+
   override fun dispose() {}
 
+  private class ContentChange(val previousModificationCount: Long, val modificationCount: Long, val files: Set<VirtualFile>)
+
   /**
    * always consider the schema changed when editing an endpoint file
    * change in injection target
@@ -112,7 +247,7 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
 
       if (event.file is GraphQLFile) {
         if (affectsGraphQLSchema(event)) {
-          update()
+          update(if (isFileMoveOrRename(event)) null else getChangedFile(event))
         }
       }
 
@@ -121,11 +256,22 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
         val injectionHelper = GraphQLInjectedLanguage.forElement(event.parent)
         if (injectionHelper != null && injectionHelper.isLanguageInjectionTarget(event.parent)) {
           // change in injection target
-          update()
+          update(getChangedFile(event))
         }
       }
     }
 
+    /**
+     * A moved file can leave a scope without being contained in it anymore, so such changes affect all scopes.
+     */
+    private fun isFileMoveOrRename(event: PsiTreeChangeEvent): Boolean =
+      PsiTreeChangeEvent.PROP_FILE_NAME == event.propertyName || PsiTreeChangeEvent.PROP_DIRECTORY_NAME == event.propertyName
+
+    private fun getChangedFile(event: PsiTreeChangeEvent): VirtualFile? {
+      val file = event.file ?: return null
+      return InjectedLanguageManager.getInstance(project).getTopLevelFile(file)?.virtualFile
+    }
+
     override fun propertyChanged(event: PsiTreeChangeEvent) {
       checkForSchemaChange(event)
     }
@@ -163,10 +309,15 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
      * @return true if the change can affect the declared schema
      */
     private fun affectsGraphQLSchema(event: PsiTreeChangeEvent): Boolean {
-      if (PsiTreeChangeEvent.PROP_FILE_NAME == event.propertyName || PsiTreeChangeEvent.PROP_DIRECTORY_NAME == event.propertyName) {
+      if (isFileMoveOrRename(event)) {
         // renamed and moves are likely to affect schema blobs etc.
         return true
       }
+      val oldChild = event.oldChild
+      val newChild = event.newChild
+      if (oldChild != null && newChild != null && isLayoutPreservingTriviaChange(oldChild, newChild)) {
+        return false
+      }
       val elements = sequenceOf(event.parent, event.child, event.newChild, event.oldChild)
       for (element in elements) {
         if (element == null) {
@@ -177,12 +328,38 @@ class GraphQLSchemaContentTracker(private val project: Project, coroutineScope:
           .parentOfTypes(GraphQLOperationDefinition::class, GraphQLFragmentDefinition::class, withSelf = true)
 
         if (containingDeclaration != null) {
-          // edits inside query, mutation, subscription, fragment etc. don't affect the schema
+          // edits inside query, mutation, subscription, fragment etc. don't affect the schema,
+          // the partial schemas used to validate them are derived from the current operations on demand
           return false
         }
       }
       // fallback to assume the schema can be affected by the edit
       return true
     }
+
+    /**
+     * Comments and whitespace don't define the schema, descriptions do and are rebuilt as any other change.
+     * Such replacements are skipped only if all the other elements keep their lines and columns,
+     * because source locations of the already built schema are used to find PSI elements for errors and navigation.
+     */
+    private fun isLayoutPreservingTriviaChange(oldChild: PsiElement, newChild: PsiElement): Boolean {
+      val oldText = oldChild.text
+      val newText = newChild.text
+      if (StringUtil.countNewLines(oldText) != StringUtil.countNewLines(newText)) {
+        return false
+      }
+
+      if (oldChild is PsiComment && newChild is PsiComment) {
+        // a comment lasts until the end of the line
+        return true
+      }
+
+      if (oldChild is PsiWhiteSpace && newChild is PsiWhiteSpace) {
+        // the elements on the last line of whitespace keep their columns
+        return oldText.substringAfterLast('\n') == newText.substringAfterLast('\n')
+      }
+
+      return false
+    }
   }
 }
@@ -5,8 +5,10 @@ import com.intellij.lang.jsgraphql.types.language.Document
 import com.intellij.openapi.diagnostic.logger
 import com.intellij.openapi.diagnostic.trace
 import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.project.Project
 import com.intellij.openapi.roots.ProjectFileIndex
 import com.intellij.openapi.util.registry.Registry
+import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.psi.PsiFile
 import com.intellij.util.Processor
 
@@ -25,9 +27,10 @@ internal val SCHEMA_SIZE_DEFINITIONS_LIMIT: Int
 private val LOG = logger<GraphQLSchemaDocumentProcessor>()
 
 internal class GraphQLSchemaDocumentProcessor : Processor<PsiFile?> {
-  val documents = HashSet<Document>()
+  val documents = LinkedHashSet<Document>()
 
   private val currentLimit = SCHEMA_SIZE_DEFINITIONS_LIMIT
+
   private var totalDefinitionsCount = 0
   private var limitOverflowReported = false
 
@@ -43,8 +46,25 @@ internal class GraphQLSchemaDocumentProcessor : Processor<PsiFile?> {
       return true
     }
 
-    val document = psiFile.document
+    addDocument(psiFile.document, psiFile.virtualFile)
+    return true
+  }
 
+  /**
+   * Processes a document obtained without PSI, e.g. from [com.intellij.lang.jsgraphql.ide.indexing.GraphQLSchemaDocumentIndex].
+   */
+  fun process(project: Project, file: VirtualFile, document: () -> Document?): Boolean {
+    ProgressManager.checkCanceled()
+
+    if (isTooComplex && !ProjectFileIndex.getInstance(project).isInLibrary(file)) {
+      return true
+    }
+
+    document()?.let { addDocument(it, file) }
+    return true
+  }
+
+  private fun addDocument(document: Document, file: VirtualFile?) {
     // We need to add it no matter if it's exceeding the limit to cover the case when there is only a single, but huge file.
     // Preventing limits from being exceeded is important only for cases when there are multiple files, especially when
     // there is no config defined, e.g., a whole project scope or an incorrect config for a monorepo.
@@ -55,7 +75,7 @@ internal class GraphQLSchemaDocumentProcessor : Processor<PsiFile?> {
     }
 
     if (isTooComplex && !limitOverflowReported) {
-      LOG.warn("Schema total definitions count limit exceeded: ${totalDefinitionsCount}, file: ${psiFile.virtualFile?.path.orEmpty()}")
+      LOG.warn("Schema total definitions count limit exceeded: ${totalDefinitionsCount}, file: ${file?.path.orEmpty()}")
       LOG.trace {
         documents.joinToString("\n") { document ->
           "file: ${document.filePath}, definitions: ${document.definitions.size}"
@@ -63,8 +83,6 @@ internal class GraphQLSchemaDocumentProcessor : Processor<PsiFile?> {
       }
       limitOverflowReported = true
     }
-
-    return true
   }
 
   private val Document.filePath: String
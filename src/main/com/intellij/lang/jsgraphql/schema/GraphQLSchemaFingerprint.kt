@@ -0,0 +1,65 @@
+@file:JvmName("GraphQLSchemaFingerprint")
+
+package com.intellij.lang.jsgraphql.schema
+
+import com.google.common.hash.Hasher
+import com.google.common.hash.Hashing
+import com.intellij.lang.jsgraphql.GraphQLFileType
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLInjectionIndex
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLSchemaDocumentIndex
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.impl.PsiManagerEx
+import com.intellij.psi.search.FileTypeIndex
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.util.concurrency.annotations.RequiresReadLock
+import com.intellij.util.indexing.FileBasedIndex
+import java.nio.charset.StandardCharsets
+
+/**
+ * Collects GraphQL files and files with injected GraphQL which contain type system definitions, sorted by url.
+ * A schema for the given scope is built only from them, the files with just operations and fragments are skipped,
+ * see [GraphQLSchemaDocumentIndex] and [GraphQLInjectionIndex.TYPE_SYSTEM_MARKER].
+ */
+@RequiresReadLock
+internal fun findSchemaContributingFiles(project: Project, scope: GlobalSearchScope): List<VirtualFile> {
+  val fileBasedIndex = FileBasedIndex.getInstance()
+  val files = mutableSetOf<VirtualFile>()
+  FileTypeIndex.processFiles(
+    GraphQLFileType.INSTANCE,
+    {
+      if (fileBasedIndex.getFileData(GraphQLSchemaDocumentIndex.NAME, it, project).isNotEmpty()) {
+        files.add(it)
+      }
+      true
+    },
+    GlobalSearchScope.getScopeRestrictedByFileTypes(scope, GraphQLFileType.INSTANCE)
+  )
+  fileBasedIndex.getFilesWithKey(
+    GraphQLInjectionIndex.NAME,
+    setOf(GraphQLInjectionIndex.TYPE_SYSTEM_MARKER),
+    { files.add(it) },
+    scope
+  )
+  return files.sortedBy { it.url }
+}
+
+/**
+ * A key identifying the current content of the files contributing to a schema for the given scope.
+ * Scopes with the same schema files get the same key regardless of their documents, and the key changes
+ * with any modification of the schema files, including the uncommitted ones. Only valid within the current session.
+ */
+@RequiresReadLock
+internal fun computeSchemaContentKey(project: Project, scope: GlobalSearchScope): String {
+  val fileManager = PsiManagerEx.getInstanceEx(project).fileManager
+  val hasher = Hashing.sha256().newHasher()
+  for (file in findSchemaContributingFiles(project, scope)) {
+    hasher
+      .putFile(file)
+      .putLong(file.modificationStamp)
+      .putLong(fileManager.getCachedPsiFile(file)?.modificationStamp ?: -1)
+  }
+  return hasher.hash().toString()
+}
+
+internal fun Hasher.putFile(file: VirtualFile): Hasher = putString(file.url, StandardCharsets.UTF_8)
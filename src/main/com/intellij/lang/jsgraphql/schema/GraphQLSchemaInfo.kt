@@ -11,6 +11,9 @@ import com.google.common.collect.Lists
 import com.intellij.lang.jsgraphql.ide.validation.GraphQLErrorFilter
 import com.intellij.lang.jsgraphql.types.GraphQLError
 import com.intellij.lang.jsgraphql.types.GraphQLException
+import com.intellij.lang.jsgraphql.types.schema.GraphQLEnumType
+import com.intellij.lang.jsgraphql.types.schema.GraphQLFieldsContainer
+import com.intellij.lang.jsgraphql.types.schema.GraphQLInputObjectType
 import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema
 import com.intellij.lang.jsgraphql.types.schema.idl.TypeDefinitionRegistry
 import com.intellij.lang.jsgraphql.types.schema.idl.errors.SchemaProblem
@@ -18,10 +21,21 @@ import com.intellij.lang.jsgraphql.types.schema.validation.InvalidSchemaExceptio
 import com.intellij.openapi.application.runReadAction
 import com.intellij.openapi.project.Project
 
-class GraphQLSchemaInfo(
+/**
+ * Approximate retained size of a named type with its AST definition, registry entry and schema object.
+ */
+private const val ESTIMATED_TYPE_SIZE = 2048L
+
+/**
+ * Approximate retained size of a field, argument or enum value with its AST definition and schema object.
+ */
+private const val ESTIMATED_MEMBER_SIZE = 768L
+
+class GraphQLSchemaInfo @JvmOverloads constructor(
   val schema: GraphQLSchema,
   private val additionalErrors: List<GraphQLException>,
   private val registryInfo: GraphQLRegistryInfo,
+  val statistics: GraphQLSchemaBuildStatistics = GraphQLSchemaBuildStatistics(),
 ) {
   val registry: TypeDefinitionRegistry
     get() = registryInfo.typeDefinitionRegistry
@@ -29,10 +43,33 @@ class GraphQLSchemaInfo(
   val isTooComplex: Boolean
     get() = registryInfo.isTooComplex
 
+  val isPartial: Boolean
+    get() = registryInfo.isPartial
+
+  /**
+   * A rough estimate of the memory retained by the schema in bytes, based on the number of its types and their members.
+   * Used only to compare the schemas with each other and with the cache budget.
+   */
+  val estimatedSize: Long by lazy(LazyThreadSafetyMode.PUBLICATION) {
+    var members = 0L
+    val types = schema.allTypesAsList
+    for (type in types) {
+      when (type) {
+        is GraphQLFieldsContainer -> type.fieldDefinitions.forEach { members += 1 + it.arguments.size }
+        is GraphQLInputObjectType -> members += type.fieldDefinitions.size
+        is GraphQLEnumType -> members += type.values.size
+      }
+    }
+    types.size * ESTIMATED_TYPE_SIZE + members * ESTIMATED_MEMBER_SIZE
+  }
+
   fun getErrors(project: Project): List<GraphQLError> {
     val rawErrors: MutableList<GraphQLException> = Lists.newArrayList(additionalErrors)
     rawErrors.addAll(registryInfo.errors)
-    rawErrors.addAll(schema.errors)
+    if (!isPartial) {
+      // the stubs of a partial schema are reported as invalid types
+      rawErrors.addAll(schema.errors)
+    }
 
     val errors = mutableListOf<GraphQLError>()
 
@@ -45,12 +82,15 @@ class GraphQLSchemaInfo(
       }
     }
 
+    val start = System.nanoTime()
     return runReadAction {
       errors.filter { error: GraphQLError ->
         GraphQLErrorFilter.EP_NAME.extensionList.none { filter: GraphQLErrorFilter ->
           filter.isGraphQLErrorSuppressed(project, error, error.findElement(project))
         }
       }
+    }.also {
+      statistics.setDuration(GraphQLSchemaBuildPhase.ERRORS_FILTERING, System.nanoTime() - start)
     }
   }
 }
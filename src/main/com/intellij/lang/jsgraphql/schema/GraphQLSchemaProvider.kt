@@ -9,19 +9,32 @@ package com.intellij.lang.jsgraphql.schema
 
 import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer
 import com.intellij.lang.jsgraphql.GraphQLFileType
+import com.intellij.lang.jsgraphql.asSafely
 import com.intellij.lang.jsgraphql.awaitFuture
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLSchemaDocumentIndex
 import com.intellij.lang.jsgraphql.ide.resolve.GraphQLScopeProvider
 import com.intellij.lang.jsgraphql.ide.search.GraphQLPsiSearchHelper
+import com.intellij.lang.jsgraphql.psi.GraphQLFile
 import com.intellij.lang.jsgraphql.schema.builder.GraphQLCompositeRegistry
+import com.intellij.lang.jsgraphql.schema.library.GraphQLLibraryManager
 import com.intellij.lang.jsgraphql.types.GraphQLException
+import com.intellij.lang.jsgraphql.types.language.Document
+import com.intellij.lang.jsgraphql.types.language.FragmentDefinition
+import com.intellij.lang.jsgraphql.types.language.NamedNode
+import com.intellij.lang.jsgraphql.types.language.SDLDefinition
 import com.intellij.lang.jsgraphql.types.schema.GraphQLObjectType
 import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema
+import com.intellij.lang.jsgraphql.types.schema.idl.SchemaGenerator
 import com.intellij.lang.jsgraphql.types.schema.idl.TypeDefinitionRegistry
 import com.intellij.lang.jsgraphql.types.schema.idl.UnExecutableSchemaGenerator
 import com.intellij.lang.jsgraphql.types.schema.validation.InvalidSchemaException
+import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidationCache
+import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidationError
 import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidator
 import com.intellij.openapi.Disposable
 import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.readAction
 import com.intellij.openapi.application.runReadAction
 import com.intellij.openapi.application.smartReadAction
 import com.intellij.openapi.components.Service
@@ -29,23 +42,41 @@ import com.intellij.openapi.components.service
 import com.intellij.openapi.diagnostic.debug
 import com.intellij.openapi.diagnostic.logger
 import com.intellij.openapi.diagnostic.trace
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.openapi.fileEditor.FileEditorManager
+import com.intellij.openapi.fileEditor.FileEditorManagerEvent
+import com.intellij.openapi.fileEditor.FileEditorManagerListener
 import com.intellij.openapi.progress.ProcessCanceledException
 import com.intellij.openapi.progress.checkCanceled
 import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectFileIndex
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.util.ModificationTracker
+import com.intellij.openapi.util.SimpleModificationTracker
 import com.intellij.openapi.util.registry.Registry
+import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.psi.PsiElement
-import com.intellij.psi.PsiManager
+import com.intellij.psi.impl.PsiManagerEx
 import com.intellij.psi.impl.source.resolve.ResolveCache
 import com.intellij.psi.search.FileTypeIndex
 import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.util.concurrency.annotations.RequiresReadLock
 import com.intellij.util.containers.ContainerUtil
+import com.intellij.util.indexing.FileBasedIndex
 import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
-import kotlinx.coroutines.future.asCompletableFuture
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import org.jetbrains.annotations.TestOnly
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ConcurrentHashMap
+import java.util.EnumSet
 import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.ForkJoinPool
 import kotlin.time.measureTimedValue
 
 private const val BUILD_TIMEOUT_MS = 500L
@@ -56,6 +87,32 @@ private const val BUILD_TIMEOUT_MS = 500L
  */
 private const val BUILD_TIMEOUT_TESTS_MS = 3000L
 
+/**
+ * Marks the entries restored from the on-disk snapshots, they are never up-to-date and always rebuilt from the sources.
+ */
+private const val SNAPSHOT_MODIFICATION_STAMP = -1L
+
+/**
+ * Marks the empty schema returned when the scope has no schema yet and the build isn't finished in time.
+ */
+private const val NO_SCHEMA_MODIFICATION_STAMP = -2L
+
+/**
+ * The number of files loaded in a single read action when the documents are collected in parallel.
+ */
+private const val PARALLEL_BUILD_CHUNK_SIZE = 16
+
+/**
+ * The kinds of the identifiers contributing to the definitions of a type or a directive, see [GraphQLSchemaProvider.getPartialSchemaInfo].
+ */
+private val SCHEMA_DEFINITION_KINDS = EnumSet.of(
+  GraphQLIdentifierIndex.IdentifierKind.TYPE_DEFINITION,
+  GraphQLIdentifierIndex.IdentifierKind.TYPE_EXTENSION,
+  GraphQLIdentifierIndex.IdentifierKind.DIRECTIVE_DEFINITION,
+)
+
+private const val SCHEMA_CACHE_BUDGET_MB = 256
+
 @Service(Service.Level.PROJECT)
 class GraphQLSchemaProvider(private val project: Project, private val coroutineScope: CoroutineScope) : Disposable {
 
@@ -75,8 +132,59 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
     GraphQLSchemaInfo(emptySchema.value, emptyList(), GraphQLRegistryInfo(TypeDefinitionRegistry(), false))
   }
 
+  private val documentsParallelism = Registry.intValue("graphql.schema.build.parallelism", 4).coerceAtLeast(1)
+
+  private val documentsDispatcher = Dispatchers.Default.limitedParallelism(documentsParallelism)
+
+  private val buildScheduler = GraphQLSchemaBuildScheduler(
+    Registry.intValue("graphql.schema.build.background.parallelism", 2)
+  )
+
+  init {
+    project.messageBus.connect(this).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, object : FileEditorManagerListener {
+      override fun selectionChanged(event: FileEditorManagerEvent) = buildScheduler.onPrioritiesChanged()
+    })
+  }
+
   private val scopeToTask = ConcurrentHashMap<GlobalSearchScope, SchemaComputation>()
-  private val scopeToSchemaCache: ConcurrentMap<GlobalSearchScope, SchemaEntry> = ContainerUtil.createConcurrentSoftKeySoftValueMap()
+
+  private val schemaModificationTracker = SimpleModificationTracker()
+
+  /**
+   * The schemas of the scopes, the least recently requested ones are evicted once their estimated size exceeds the budget.
+   * The same schema shared by several scopes is counted for each of them.
+   * Scopes of different graphql-config projects often contain the same schema files and differ only in the documents,
+   * a schema is shared with such scopes by the content key of the entry while any scope keeps it in the cache.
+   * The scopes are held weakly, so the schemas of the scopes recreated after a configuration change don't linger.
+   */
+  private val scopeToSchemaCache = GraphQLSchemaCache<GlobalSearchScope, SchemaEntry>(
+    budget = { Registry.intValue("graphql.schema.cache.size.mb", SCHEMA_CACHE_BUDGET_MB).coerceAtLeast(0) * 1024L * 1024L },
+    weigher = { it.schemaInfo.estimatedSize },
+    onEvicted = { scope, _ -> onSchemaEvicted(scope) },
+  )
+
+  /**
+   * Keeps the per-file contributions of the last successfully built registry for each scope,
+   * so the next build only needs to retract and re-add the definitions from the changed files.
+   */
+  private val scopeToCompositeRegistry: ConcurrentMap<GlobalSearchScope, GraphQLCompositeRegistry> =
+    ContainerUtil.createConcurrentSoftKeySoftValueMap()
+
+  /**
+   * Keeps the validation results of the types of the last built schema for each scope,
+   * so only the changed types are validated again, see [SchemaValidationCache].
+   */
+  private val scopeToValidationCache: ConcurrentMap<GlobalSearchScope, SchemaValidationCache> =
+    ContainerUtil.createConcurrentSoftKeySoftValueMap()
+
+  /**
+   * The partial schemas built for the schemas exceeding the definitions limit, see [getPartialSchemaInfo].
+   */
+  private val schemaToPartialSchemas =
+    ContainerUtil.createConcurrentWeakMap<GraphQLSchemaInfo, ConcurrentMap<GraphQLPartialRegistryBuilder.ReachableTypes, GraphQLSchemaInfo>>()
+
+  private val scopeToCacheStatistics: ConcurrentMap<GlobalSearchScope, GraphQLSchemaCacheStatistics> =
+    ContainerUtil.createConcurrentWeakMap()
 
   fun getSchemaInfo(context: PsiElement?): GraphQLSchemaInfo {
     val scope = runReadAction { GraphQLScopeProvider.getInstance(project).getResolveScope(context, true) }
@@ -84,7 +192,23 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
   }
 
   fun getSchemaInfo(scope: GlobalSearchScope): GraphQLSchemaInfo {
-    return getFromCacheOrSchedule(scope)
+    return getFromCacheOrSchedule(scope).schemaInfo
+  }
+
+  /**
+   * For the callers tolerating an outdated schema, e.g. completion or documentation.
+   * If the scope already has a schema, it's returned immediately while the actual one is built in the background,
+   * otherwise it waits for the build like [getSchemaInfo]. The callers should check [GraphQLSchemaResult.isStale]
+   * to avoid keeping the results computed from an outdated schema, e.g. completion computes its variants again
+   * on the next typed character instead of filtering them.
+   */
+  fun getSchemaInfoAllowStale(context: PsiElement?): GraphQLSchemaResult {
+    val scope = runReadAction { GraphQLScopeProvider.getInstance(project).getResolveScope(context, true) }
+    return getSchemaInfoAllowStale(scope)
+  }
+
+  fun getSchemaInfoAllowStale(scope: GlobalSearchScope): GraphQLSchemaResult {
+    return getFromCacheOrSchedule(scope, allowStale = true)
   }
 
   fun getCachedSchemaInfo(context: PsiElement?): GraphQLSchemaInfo {
@@ -93,27 +217,145 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
   }
 
   fun getCachedSchemaInfo(scope: GlobalSearchScope): GraphQLSchemaInfo {
-    return getFromCacheOrSchedule(scope, wait = false)
+    return getFromCacheOrSchedule(scope, wait = false).schemaInfo
   }
 
-  private fun getFromCacheOrSchedule(scope: GlobalSearchScope, wait: Boolean = true): GraphQLSchemaInfo {
-    val currentModificationStamp = GraphQLSchemaContentTracker.getInstance(project).modificationCount
+  private fun isUpToDate(scope: GlobalSearchScope, schemaEntry: SchemaEntry): Boolean {
+    val contentTracker = GraphQLSchemaContentTracker.getInstance(project)
+    return schemaEntry.modificationStamp == contentTracker.modificationCount ||
+           schemaEntry.modificationStamp >= 0 && contentTracker.isUpToDate(scope, schemaEntry.modificationStamp)
+  }
+
+  /**
+   * Cache hit, miss, build, cancellation and eviction counters of the schema requests for the given scope.
+   * Timings of the builds are available via [GraphQLSchemaInfo.statistics].
+   */
+  fun getCacheStatistics(scope: GlobalSearchScope): GraphQLSchemaCacheStatistics {
+    return scopeToCacheStatistics.computeIfAbsent(scope) { GraphQLSchemaCacheStatistics() }
+  }
+
+  /**
+   * Changes each time a new schema is put into the cache, so the values derived from the schemas,
+   * e.g. the type scopes of the selections, can be cached until the schema they were computed from is replaced.
+   */
+  val schemaCacheModificationTracker: ModificationTracker
+    get() = schemaModificationTracker
+
+  /**
+   * A schema built only from the types reachable from the operations and fragments of the file, see [GraphQLPartialRegistryBuilder].
+   * It's suitable only for validating the operations of the file, completion and resolve use the schema built within the limit.
+   * The reachable definitions are looked up in the whole scope using [GraphQLIdentifierIndex], so the definitions skipped
+   * because of the limit are loaded only when the operations of the file reach them.
+   * The partial schemas are shared by the files reaching the same types until the schema of the scope is replaced,
+   * so edits which don't change the reachable types don't build anything.
+   *
+   * @return null if the schema doesn't exceed the definitions limit or the partial schemas are disabled
+   */
+  @RequiresReadLock
+  fun getPartialSchemaInfo(file: GraphQLFile, schemaInfo: GraphQLSchemaInfo): GraphQLSchemaInfo? {
+    if (!schemaInfo.isTooComplex || schemaInfo.isPartial || !Registry.`is`(PARTIAL_SCHEMA_ENABLED_KEY, true)) return null
+
+    val scope = GraphQLScopeProvider.getInstance(project).getResolveScope(file, true)
+    val statistics = GraphQLSchemaBuildStatistics()
+    val builder = GraphQLPartialRegistryBuilder(
+      schemaInfo.registry,
+      { findSchemaDefinitions(scope, it, statistics) },
+      { findFragmentDefinition(file, it) },
+    ).collect(listOf(file.document))
+
+    val partialSchemas = schemaToPartialSchemas.computeIfAbsent(schemaInfo) { ContainerUtil.createConcurrentSoftValueMap() }
+    val reachableTypes = builder.reachableTypes
+    partialSchemas[reachableTypes]?.let { return it }
+
+    // built outside of the map, so the concurrent requests for the other types aren't blocked by a schema generation
+    val registryInfo = GraphQLRegistryInfo(builder.build(), isTooComplex = true, isPartial = true)
+    val schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registryInfo.typeDefinitionRegistry)
+    LOG.debug { "Partial schema built for ${file.name} (types=${schema.allTypesAsList.size})" }
+    val partialSchemaInfo = GraphQLSchemaInfo(schema, emptyList(), registryInfo, statistics)
+    return partialSchemas.putIfAbsent(reachableTypes, partialSchemaInfo) ?: partialSchemaInfo
+  }
+
+  /**
+   * The type definitions, type extensions and directive definitions with the given name in the files of the scope,
+   * in the same order of the files as they are processed by the schema builds.
+   */
+  private fun findSchemaDefinitions(
+    scope: GlobalSearchScope,
+    name: String,
+    statistics: GraphQLSchemaBuildStatistics,
+  ): List<SDLDefinition<*>> {
+    val files = mutableListOf<VirtualFile>()
+    FileBasedIndex.getInstance().processValues(GraphQLIdentifierIndex.NAME, name, null, { file, identifiers ->
+      if (identifiers.hasAnyOf(SCHEMA_DEFINITION_KINDS)) {
+        files.add(file)
+      }
+      true
+    }, scope)
+    files.sortBy { it.path }
+
+    val documents = mutableListOf<Document>()
+    for (file in files) {
+      if (file.fileType == GraphQLFileType.INSTANCE) {
+        loadSchemaDocument(file, statistics)?.let { documents.add(it) }
+      }
+      else {
+        GraphQLPsiSearchHelper.getInstance(project).processInjectedGraphQLFiles(project, GlobalSearchScope.fileScope(project, file)) {
+          documents.add(it.document)
+          true
+        }
+      }
+    }
+    return documents
+      .flatMap { it.getDefinitionsOfType(SDLDefinition::class.java) }
+      .filter { (it as? NamedNode<*>)?.name == name }
+  }
+
+  private fun findFragmentDefinition(context: GraphQLFile, name: String): FragmentDefinition? {
+    var result: FragmentDefinition? = null
+    GraphQLPsiSearchHelper.getInstance(project).processFragmentDefinitions(context, name) { fragmentDefinition ->
+      result = fragmentDefinition.containingFile.asSafely<GraphQLFile>()?.document
+        ?.getDefinitionsOfType(FragmentDefinition::class.java)
+        ?.firstOrNull { it.name == name }
+      result == null
+    }
+    return result
+  }
 
-    val currentSchemaEntry = scopeToSchemaCache[scope]
+  private fun getFromCacheOrSchedule(
+    scope: GlobalSearchScope,
+    wait: Boolean = true,
+    allowStale: Boolean = false,
+  ): GraphQLSchemaResult {
+    val contentTracker = GraphQLSchemaContentTracker.getInstance(project)
+    val cacheStatistics = getCacheStatistics(scope)
+    val currentModificationStamp = contentTracker.modificationCount
+
+    var currentSchemaEntry = scopeToSchemaCache[scope]
+    if (currentSchemaEntry != null &&
+        currentSchemaEntry.modificationStamp != currentModificationStamp &&
+        contentTracker.isUpToDate(scope, currentSchemaEntry.modificationStamp)
+    ) {
+      // only files outside the scope were changed
+      val actualSchemaEntry = SchemaEntry(currentSchemaEntry.schemaInfo, currentModificationStamp, currentSchemaEntry.contentKey)
+      scopeToSchemaCache.replace(scope, currentSchemaEntry, actualSchemaEntry)
+      currentSchemaEntry = actualSchemaEntry
+    }
     if (currentSchemaEntry?.modificationStamp == currentModificationStamp) {
+      cacheStatistics.hit()
       if (LOG.isTraceEnabled) {
         LOG.trace { "Schema from cache returned (scope=${scope.scopeId}, stamp=$currentModificationStamp)" }
       }
-      return currentSchemaEntry.schemaInfo
+      return GraphQLSchemaResult(currentSchemaEntry.schemaInfo, currentModificationStamp, false)
     }
 
-    val fallbackSchema = currentSchemaEntry?.schemaInfo ?: emptySchemaInfo.value
+    cacheStatistics.miss()
     val computation = scheduleComputationIfNeeded(scope, currentModificationStamp).apply { ensureStarted() }
 
     val job = computation.getJob()
     checkNotNull(job) { "Schema computation was not started (scope=${scope.scopeId}, stamp=${computation.startModificationStamp})" }
     try {
-      awaitFuture(job.asCompletableFuture(), if (wait) buildTimeout else 0)
+      val shouldWait = wait && !(allowStale && currentSchemaEntry != null && isStaleSchemaAllowed)
+      awaitFuture(computation.firstResult, if (shouldWait) buildTimeout else 0)
     }
     catch (e: ProcessCanceledException) {
       throw e
@@ -122,7 +364,9 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
       LOG.warn("Schema computation waiting completed with exception (scope=${scope.scopeId}, stamp=${computation.startModificationStamp})", e)
     }
 
-    return scopeToSchemaCache[scope]?.schemaInfo ?: fallbackSchema
+    val schemaEntry = scopeToSchemaCache[scope] ?: currentSchemaEntry
+                      ?: return GraphQLSchemaResult(emptySchemaInfo.value, NO_SCHEMA_MODIFICATION_STAMP, true)
+    return GraphQLSchemaResult(schemaEntry.schemaInfo, schemaEntry.modificationStamp, !isUpToDate(scope, schemaEntry))
   }
 
   private val buildTimeout: Long
@@ -134,6 +378,22 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
       return Registry.intValue("graphql.schema.build.timeout", BUILD_TIMEOUT_MS.toInt()).toLong()
     }
 
+  /**
+   * Tests wait for the actual schema unless enabled with [allowStaleSchemaInTests], otherwise the results would depend on the build timing.
+   */
+  private val isStaleSchemaAllowed: Boolean
+    get() = (isStaleSchemaAllowedInTests || !ApplicationManager.getApplication().isUnitTestMode) &&
+            Registry.`is`("graphql.schema.stale.while.revalidate", true)
+
+  @Volatile
+  private var isStaleSchemaAllowedInTests = false
+
+  @TestOnly
+  fun allowStaleSchemaInTests(parentDisposable: Disposable) {
+    isStaleSchemaAllowedInTests = true
+    Disposer.register(parentDisposable) { isStaleSchemaAllowedInTests = false }
+  }
+
   private fun scheduleComputationIfNeeded(scope: GlobalSearchScope, currentModificationStamp: Long): SchemaComputation {
     var computation = scopeToTask[scope]
     if (computation != null) {
@@ -144,6 +404,7 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
           if (!job.isCompleted) {
             LOG.debug { "Cancelling schema computation (scope=${scope.scopeId}, old=${computation.startModificationStamp}, new=${currentModificationStamp})" }
             job.cancel()
+            getCacheStatistics(scope).cancelled()
           }
           else if (job.isCancelled) {
             LOG.debug { "Restarting already cancelled job (scope=${scope.scopeId}, stamp=${currentModificationStamp})" }
@@ -174,22 +435,67 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
     return computation
   }
 
+  private suspend fun restoreSchemaFromSnapshot(scope: GlobalSearchScope): SchemaEntry? {
+    val snapshotStorage = GraphQLSchemaSnapshotStorage.getInstance(project)
+    if (!snapshotStorage.isEnabled || scopeToSchemaCache.containsKey(scope)) return null
+
+    return try {
+      val fingerprint = smartReadAction(project) { snapshotStorage.computeFingerprint(scope) } ?: return null
+      val registryInfo = withContext(Dispatchers.IO) { snapshotStorage.load(fingerprint) } ?: return null
+      checkCanceled()
+
+      val (schema, duration) = measureTimedValue {
+        UnExecutableSchemaGenerator.makeUnExecutableSchema(registryInfo.typeDefinitionRegistry)
+      }
+      LOG.info("Schema was restored from snapshot in ${duration} (scope=${scope.scopeId})")
+      // validation is skipped, the errors are reported once the schema is rebuilt from the sources
+      SchemaEntry(GraphQLSchemaInfo(schema, emptyList(), registryInfo), SNAPSHOT_MODIFICATION_STAMP)
+    }
+    catch (e: CancellationException) {
+      throw e
+    }
+    catch (e: Exception) {
+      LOG.warn("Unable to restore schema from snapshot (scope=${scope.scopeId})", e)
+      null
+    }
+  }
+
   private suspend fun computeSchema(scope: GlobalSearchScope, modificationStamp: Long): SchemaEntry {
     checkCanceled()
+    buildScheduler.checkpoint()
 
-    val registryInfo = getRegistryInfo(scope, modificationStamp)
+    val contentKey = smartReadAction(project) { computeSchemaContentKey(project, scope) }
+    val sharedSchemaEntry = scopeToSchemaCache.findValue { it.contentKey == contentKey }
+    if (sharedSchemaEntry != null) {
+      LOG.info("Schema with the same content reused (scope=${scope.scopeId}, stamp=$modificationStamp)")
+      return SchemaEntry(sharedSchemaEntry.schemaInfo, modificationStamp, contentKey)
+    }
+
+    val statistics = GraphQLSchemaBuildStatistics()
+    val registryInfo = getRegistryInfo(scope, modificationStamp, statistics)
+    buildScheduler.checkpoint()
     val schemaInfo = try {
       LOG.debug { "Schema build started (scope=${scope.scopeId}, stamp=$modificationStamp)" }
       val (schema, duration) = measureTimedValue {
-        val schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registryInfo.typeDefinitionRegistry)
-        val validationErrors = SchemaValidator().validateSchema(schema)
+        val schema = statistics.measure(GraphQLSchemaBuildPhase.SCHEMA_GENERATION) {
+          val options = SchemaGenerator.Options.defaultOptions().typeCheckingTimeConsumer {
+            statistics.addDuration(GraphQLSchemaBuildPhase.TYPE_CHECKING, it)
+            statistics.addDuration(GraphQLSchemaBuildPhase.SCHEMA_GENERATION, -it)
+          }
+          UnExecutableSchemaGenerator.makeUnExecutableSchema(registryInfo.typeDefinitionRegistry, options)
+        }
+        val validationErrors = statistics.measure(GraphQLSchemaBuildPhase.SCHEMA_VALIDATION) { validateSchema(scope, schema) }
         val errors = if (validationErrors.isEmpty())
           emptyList()
         else
           listOf<GraphQLException>(InvalidSchemaException(validationErrors))
-        GraphQLSchemaInfo(schema, errors, registryInfo)
+        GraphQLSchemaInfo(schema, errors, registryInfo, statistics)
       }
       LOG.info("Schema was built in ${duration} (scope=${scope.scopeId}, stamp=$modificationStamp)")
+      LOG.debug { "Schema build statistics: $statistics (scope=${scope.scopeId}, stamp=$modificationStamp)" }
+      GraphQLSchemaBuildEvent.commit(scope.scopeId, modificationStamp, registryInfo.isTooComplex, statistics)
+      getCacheStatistics(scope).built()
+      GraphQLSchemaContentTracker.getInstance(project).onSchemaBuilt(statistics.totalDuration)
       schema
     }
     catch (e: CancellationException) {
@@ -202,11 +508,13 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
       GraphQLSchemaInfo(
         emptySchema.value,
         listOfNotNull(e as? GraphQLException ?: GraphQLException(e)),
-        registryInfo
+        registryInfo,
+        statistics
       )
     }
 
-    return SchemaEntry(schemaInfo, modificationStamp)
+    // the files could be changed after the key has been computed, then the key is outdated and won't be requested anymore
+    return SchemaEntry(schemaInfo, modificationStamp, contentKey)
   }
 
   /**
@@ -216,52 +524,195 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
   @Suppress("unused")
   private suspend fun getRegistryInfo(context: PsiElement?): GraphQLRegistryInfo {
     val currentModificationStamp = GraphQLSchemaContentTracker.getInstance(project).modificationCount
-    return getRegistryInfo(GraphQLScopeProvider.getInstance(project).getResolveScope(context, true), currentModificationStamp)
+    return getRegistryInfo(
+      GraphQLScopeProvider.getInstance(project).getResolveScope(context, true),
+      currentModificationStamp,
+      GraphQLSchemaBuildStatistics()
+    )
   }
 
-  private suspend fun getRegistryInfo(scope: GlobalSearchScope, modificationStamp: Long): GraphQLRegistryInfo {
+  private suspend fun getRegistryInfo(
+    scope: GlobalSearchScope,
+    modificationStamp: Long,
+    statistics: GraphQLSchemaBuildStatistics,
+  ): GraphQLRegistryInfo {
     checkCanceled()
 
     LOG.debug { "Registry build started (scope=${scope.scopeId}, stamp=$modificationStamp)" }
+    val snapshotStorage = GraphQLSchemaSnapshotStorage.getInstance(project)
     val (registry, duration) = measureTimedValue {
-      val documentsProcessor = smartReadAction(project) { processSchemaDocuments(scope) }
+      val (documentsProcessor, fingerprint) = statistics.measure(GraphQLSchemaBuildPhase.DOCUMENTS_COLLECTION) {
+        collectSchemaDocuments(scope, statistics)
+      }
+      statistics.countDocuments(documentsProcessor.documents)
+
+      // take the ownership of the previous registry, so concurrent computations for the same scope never share it;
+      // if this computation is cancelled in the middle of an update, the partially updated registry is just dropped
+      val compositeRegistry = scopeToCompositeRegistry.remove(scope) ?: GraphQLCompositeRegistry()
+      val typeDefinitionRegistry = statistics.measure(GraphQLSchemaBuildPhase.COMPOSITE_MERGE) {
+        compositeRegistry.updateDocuments(documentsProcessor.documents)
+        compositeRegistry.build()
+      }
+      checkCanceled()
+      scopeToCompositeRegistry[scope] = compositeRegistry
 
-      val compositeRegistry = GraphQLCompositeRegistry()
-      documentsProcessor.documents.forEach {
-        compositeRegistry.addFromDocument(it)
+      val registryInfo = GraphQLRegistryInfo(typeDefinitionRegistry, documentsProcessor.isTooComplex)
+
+      if (fingerprint != null) {
+        coroutineScope.launch(Dispatchers.IO) { snapshotStorage.save(fingerprint, registryInfo) }
       }
-      GraphQLRegistryInfo(compositeRegistry.build(), documentsProcessor.isTooComplex)
+      registryInfo
     }
     LOG.info("Registry was built in ${duration} (scope=${scope.scopeId}, stamp=$modificationStamp)")
     return registry
   }
 
-  private fun processSchemaDocuments(scope: GlobalSearchScope): GraphQLSchemaDocumentProcessor {
+  private fun onSchemaEvicted(scope: GlobalSearchScope) {
+    // the state kept for the incremental builds is useless without the schema, the next build starts from scratch anyway
+    scopeToCompositeRegistry.remove(scope)
+    scopeToValidationCache.remove(scope)
+    getCacheStatistics(scope).evicted()
+    LOG.debug { "Schema evicted from cache (scope=${scope.scopeId})" }
+  }
+
+  private fun validateSchema(scope: GlobalSearchScope, schema: GraphQLSchema): Set<SchemaValidationError> {
+    val forkJoinPool = if (Registry.`is`("graphql.schema.validation.parallel", true)) ForkJoinPool.commonPool() else null
+    if (!Registry.`is`("graphql.schema.validation.incremental", true)) {
+      return SchemaValidator(null, forkJoinPool).validateSchema(schema)
+    }
+
+    // the same ownership rules as for the composite registry, a failed validation just drops the cache
+    val validationCache = scopeToValidationCache.remove(scope) ?: SchemaValidationCache()
+    val errors = SchemaValidator(validationCache, forkJoinPool).validateSchema(schema)
+    scopeToValidationCache[scope] = validationCache
+    LOG.debug {
+      "Schema validated (scope=${scope.scopeId}, reused=${validationCache.reusedTypesCount}, validated=${validationCache.validatedTypesCount})"
+    }
+    return errors
+  }
+
+  private suspend fun collectSchemaDocuments(
+    scope: GlobalSearchScope,
+    statistics: GraphQLSchemaBuildStatistics,
+  ): Pair<GraphQLSchemaDocumentProcessor, String?> {
+    val snapshotStorage = GraphQLSchemaSnapshotStorage.getInstance(project)
+    if (!Registry.`is`("graphql.schema.build.parallel", true)) {
+      return smartReadAction(project) {
+        processSchemaDocuments(scope, statistics) to if (snapshotStorage.isEnabled) snapshotStorage.computeFingerprint(scope) else null
+      }
+    }
+
+    // the fingerprint is taken before the documents are loaded, if any file is changed in between,
+    // the snapshot is stored under the outdated fingerprint and never matched again
+    val (files, fingerprint) = smartReadAction(project) {
+      findSchemaFiles(scope) to if (snapshotStorage.isEnabled) snapshotStorage.computeFingerprint(scope) else null
+    }
+
+    // the chunks are loaded in batches of the dispatcher size, so once the definitions limit is reached,
+    // only the library files are converted from the remaining chunks as it's done by the sequential build
+    val processor = GraphQLSchemaDocumentProcessor()
+    val fileIndex = ProjectFileIndex.getInstance(project)
+    for (batch in files.chunked(PARALLEL_BUILD_CHUNK_SIZE).chunked(documentsParallelism)) {
+      val librariesOnly = processor.isTooComplex
+      val documents = withContext(documentsDispatcher) {
+        batch.map { chunk ->
+          async {
+            buildScheduler.checkpoint()
+            smartReadAction(project) {
+              chunk.map { if (librariesOnly && !fileIndex.isInLibrary(it)) null else loadSchemaDocument(it, statistics) }
+            }
+          }
+        }.awaitAll().flatten()
+      }
+
+      // merge in the order of the files, so the result doesn't depend on the order in which the tasks are completed
+      smartReadAction(project) {
+        batch.flatten().forEachIndexed { index, file -> processor.process(project, file) { documents[index] } }
+      }
+    }
+
+    smartReadAction(project) { processInjectedSchemaDocuments(scope, processor) }
+    return processor to fingerprint
+  }
+
+  private fun processSchemaDocuments(
+    scope: GlobalSearchScope,
+    statistics: GraphQLSchemaBuildStatistics,
+  ): GraphQLSchemaDocumentProcessor {
     val processor = GraphQLSchemaDocumentProcessor()
 
     FileTypeIndex.processFiles(
       GraphQLFileType.INSTANCE,
-      {
-        val psiFile = PsiManager.getInstance(project).findFile(it)
-        if (psiFile != null) processor.process(psiFile) else true
-      },
+      { processor.process(project, it) { loadSchemaDocument(it, statistics) } },
       GlobalSearchScope.getScopeRestrictedByFileTypes(scope, GraphQLFileType.INSTANCE)
     )
+    processInjectedSchemaDocuments(scope, processor)
 
+    return processor
+  }
+
+  private fun processInjectedSchemaDocuments(scope: GlobalSearchScope, processor: GraphQLSchemaDocumentProcessor) {
     if (!processor.isTooComplex) {
       GraphQLPsiSearchHelper.getInstance(project).processInjectedGraphQLFiles(project, scope, processor)
     }
+  }
 
-    return processor
+  /**
+   * Whether the scope contains a file opened in the selected editor, its schema is needed for the code being edited.
+   */
+  private fun isSelectedEditorScope(scope: GlobalSearchScope): Boolean {
+    return FileEditorManager.getInstance(project).selectedFiles.any { it.isValid && scope.contains(it) }
+  }
+
+  private fun findSchemaFiles(scope: GlobalSearchScope): List<VirtualFile> {
+    val files = mutableListOf<VirtualFile>()
+    FileTypeIndex.processFiles(
+      GraphQLFileType.INSTANCE,
+      { files.add(it) },
+      GlobalSearchScope.getScopeRestrictedByFileTypes(scope, GraphQLFileType.INSTANCE)
+    )
+    files.sortBy { it.path }
+    return files
+  }
+
+  private fun loadSchemaDocument(file: VirtualFile, statistics: GraphQLSchemaBuildStatistics): Document? {
+    checkCanceled()
+
+    val isIndexEnabled = Registry.`is`("graphql.schema.documents.from.index", true)
+    return statistics.measure(GraphQLSchemaBuildPhase.PSI_TO_AST) {
+      if (isIndexEnabled && GraphQLLibraryManager.getInstance(project).isBundledLibraryRoot(file)) {
+        // never converted from PSI, so all the projects share the same document
+        return@measure GraphQLSchemaDocumentIndex.getTypeSystemDocument(project, file)
+      }
+
+      val psiManager = PsiManagerEx.getInstanceEx(project)
+      // files which are already loaded or have unsaved changes are taken from PSI, it's up-to-date and cheap for them
+      val cachedPsiFile = psiManager.fileManager.getCachedPsiFile(file)
+      if (cachedPsiFile == null &&
+          isIndexEnabled &&
+          !FileDocumentManager.getInstance().isFileModified(file)
+      ) {
+        GraphQLSchemaDocumentIndex.getTypeSystemDocument(project, file)
+      }
+      else {
+        (cachedPsiFile ?: psiManager.findFile(file)).asSafely<GraphQLFile>()?.document
+      }
+    }
   }
 
   override fun dispose() {
+    scopeToSchemaCache.clear()
   }
 
   private inner class SchemaComputation(val scope: GlobalSearchScope, val startModificationStamp: Long) {
     private val lock = Any()
     private var job: Job? = null // lock
 
+    /**
+     * Completed either when a schema restored from the snapshot is available or when the computation is finished.
+     */
+    val firstResult = CompletableFuture<Unit?>()
+
     fun ensureStarted() {
       synchronized(lock) {
         if (job != null) {
@@ -269,22 +720,36 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
         }
         else {
           job = coroutineScope.launch {
-            val schemaEntry = computeSchema(scope, startModificationStamp)
-
-            checkCanceled()
-            scopeToSchemaCache[scope] = schemaEntry
-            scopeToTask.remove(scope, this@SchemaComputation)
-
-            ResolveCache.getInstance(project).clearCache(true)
-            if (!ApplicationManager.getApplication().isUnitTestMode) {
-              DaemonCodeAnalyzer.getInstance(project).restart("GraphQLSchemaProvider.SchemaComputation.ensureStarted")
+            buildScheduler.run({ readAction { isSelectedEditorScope(scope) } }) {
+              val snapshotEntry = restoreSchemaFromSnapshot(scope)
+              if (snapshotEntry != null && scopeToSchemaCache.putIfAbsent(scope, snapshotEntry) == null) {
+                firstResult.complete(null)
+                notifySchemaChanged()
+              }
+
+              val schemaEntry = computeSchema(scope, startModificationStamp)
+
+              checkCanceled()
+              scopeToSchemaCache[scope] = schemaEntry
+              scopeToTask.remove(scope, this@SchemaComputation)
+              notifySchemaChanged()
             }
-            project.messageBus.syncPublisher(GraphQLSchemaCacheChangeListener.TOPIC).onSchemaCacheChanged()
+          }.apply {
+            invokeOnCompletion { firstResult.complete(null) }
           }
         }
       }
     }
 
+    private fun notifySchemaChanged() {
+      schemaModificationTracker.incModificationCount()
+      ResolveCache.getInstance(project).clearCache(true)
+      if (!ApplicationManager.getApplication().isUnitTestMode) {
+        DaemonCodeAnalyzer.getInstance(project).restart("GraphQLSchemaProvider.SchemaComputation.ensureStarted")
+      }
+      project.messageBus.syncPublisher(GraphQLSchemaCacheChangeListener.TOPIC).onSchemaCacheChanged()
+    }
+
     fun getJob(): Job? {
       synchronized(lock) {
         return job
@@ -292,7 +757,10 @@ class GraphQLSchemaProvider(private val project: Project, private val coroutineS
     }
   }
 
-  private class SchemaEntry(val schemaInfo: GraphQLSchemaInfo, val modificationStamp: Long)
+  /**
+   * @param contentKey the key of the files the schema was built from, see [computeSchemaContentKey], null if it's unknown
+   */
+  private class SchemaEntry(val schemaInfo: GraphQLSchemaInfo, val modificationStamp: Long, val contentKey: String? = null)
 
   private val GlobalSearchScope.scopeId: String
     get() = hashCode().toString()
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema
+
+/**
+ * A schema returned without waiting for the actual one, see [GraphQLSchemaProvider.getSchemaInfoAllowStale].
+ *
+ * @property modificationStamp the [GraphQLSchemaContentTracker] modification count the schema was built for,
+ * -1 for a schema restored from a snapshot, or -2 for an empty schema returned before the first build is finished
+ * @property isStale whether the files of the scope were changed since the schema was built
+ */
+class GraphQLSchemaResult(
+  val schemaInfo: GraphQLSchemaInfo,
+  val modificationStamp: Long,
+  val isStale: Boolean,
+)
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018-present, Jim Kynde Meyer
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.intellij.lang.jsgraphql.schema
+
+import com.google.common.hash.Hashing
+import com.intellij.lang.jsgraphql.GRAPHQL_CACHE_DIR_NAME
+import com.intellij.lang.jsgraphql.types.language.Definition
+import com.intellij.lang.jsgraphql.types.language.Document
+import com.intellij.lang.jsgraphql.types.schema.idl.ScalarInfo
+import com.intellij.lang.jsgraphql.types.schema.idl.SchemaParser
+import com.intellij.lang.jsgraphql.types.schema.idl.TypeDefinitionRegistry
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.PathManager
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.components.service
+import com.intellij.openapi.diagnostic.debug
+import com.intellij.openapi.diagnostic.logger
+import com.intellij.openapi.fileEditor.FileDocumentManager
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.project.locationHash
+import com.intellij.openapi.util.registry.Registry
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.util.concurrency.annotations.RequiresReadLock
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import kotlin.io.path.deleteIfExists
+import kotlin.io.path.exists
+import kotlin.io.path.getLastModifiedTime
+import kotlin.io.path.inputStream
+import kotlin.io.path.listDirectoryEntries
+import kotlin.io.path.outputStream
+
+/**
+ * Stores the type definition registries of the built schemas on disk, so after a restart the schema can be restored
+ * without waiting for the whole PSI of the project to be processed.
+ * A snapshot is identified by the fingerprint of the files contributing to a scope,
+ * so it's only reused when none of these files were changed, added or removed since it was written.
+ */
+@Service(Service.Level.PROJECT)
+class GraphQLSchemaSnapshotStorage(private val project: Project) {
+
+  companion object {
+    @JvmStatic
+    fun getInstance(project: Project) = project.service<GraphQLSchemaSnapshotStorage>()
+
+    private val LOG = logger<GraphQLSchemaSnapshotStorage>()
+
+    private const val SNAPSHOTS_DIR = "schemas"
+    private const val SNAPSHOT_EXTENSION = ".bin"
+    private const val MAX_SNAPSHOTS_PER_PROJECT = 20
+
+    private const val MAGIC = 0x47514C53 // GQLS
+    private const val VERSION = 3 + GraphQLDocumentExternalizer.VERSION * 100
+  }
+
+  val isEnabled: Boolean
+    get() = !ApplicationManager.getApplication().isUnitTestMode && Registry.`is`("graphql.schema.snapshots.enabled", true)
+
+  private val snapshotsDir: Path
+    get() = PathManager.getSystemDir().resolve(GRAPHQL_CACHE_DIR_NAME).resolve(SNAPSHOTS_DIR).resolve(project.locationHash)
+
+  /**
+   * @return a fingerprint of the files from which a schema for the given scope is built,
+   * or null if some of them have unsaved changes and their content on disk can't be trusted
+   */
+  @RequiresReadLock
+  fun computeFingerprint(scope: GlobalSearchScope): String? {
+    val files = findSchemaContributingFiles(project, scope)
+
+    val fileDocumentManager = FileDocumentManager.getInstance()
+    if (files.any { fileDocumentManager.isFileModified(it) }) {
+      return null
+    }
+
+    val hasher = Hashing.sha256().newHasher().putInt(VERSION)
+    for (file in files) {
+      hasher
+        .putFile(file)
+        .putLong(file.timeStamp)
+        .putLong(file.length)
+    }
+    return hasher.hash().toString()
+  }
+
+  fun load(fingerprint: String): GraphQLRegistryInfo? {
+    val path = snapshotsDir.resolve(fingerprint + SNAPSHOT_EXTENSION)
+    if (!path.exists()) return null
+
+    return try {
+      DataInputStream(path.inputStream().buffered()).use { input ->
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+          LOG.debug { "Outdated schema snapshot format: $path" }
+          return null
+        }
+        val isTooComplex = input.readBoolean()
+        val document = GraphQLDocumentExternalizer.INSTANCE.read(input)
+        GraphQLRegistryInfo(SchemaParser().buildRegistry(document), isTooComplex)
+      }
+    }
+    catch (e: ProcessCanceledException) {
+      throw e
+    }
+    catch (e: Exception) {
+      LOG.warn("Unable to read schema snapshot: $path", e)
+      path.deleteIfExists()
+      null
+    }
+  }
+
+  fun save(fingerprint: String, registryInfo: GraphQLRegistryInfo) {
+    val dir = snapshotsDir
+    val path = dir.resolve(fingerprint + SNAPSHOT_EXTENSION)
+    if (path.exists()) return
+
+    try {
+      Files.createDirectories(dir)
+      val tempFile = Files.createTempFile(dir, fingerprint, ".tmp")
+      try {
+        DataOutputStream(tempFile.outputStream().buffered()).use { output ->
+          output.writeInt(MAGIC)
+          output.writeInt(VERSION)
+          output.writeBoolean(registryInfo.isTooComplex)
+          GraphQLDocumentExternalizer.INSTANCE.save(output, toDocument(registryInfo.typeDefinitionRegistry))
+        }
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+      }
+      finally {
+        tempFile.deleteIfExists()
+      }
+      LOG.debug { "Schema snapshot saved: $path" }
+
+      removeOutdatedSnapshots(dir)
+    }
+    catch (e: ProcessCanceledException) {
+      throw e
+    }
+    catch (e: IOException) {
+      LOG.warn("Unable to save schema snapshot: $path", e)
+    }
+  }
+
+  private fun removeOutdatedSnapshots(dir: Path) {
+    val snapshots = dir.listDirectoryEntries("*$SNAPSHOT_EXTENSION")
+    if (snapshots.size <= MAX_SNAPSHOTS_PER_PROJECT) return
+
+    snapshots
+      .sortedByDescending { it.getLastModifiedTime() }
+      .drop(MAX_SNAPSHOTS_PER_PROJECT)
+      .forEach { it.deleteIfExists() }
+  }
+
+  private fun toDocument(registry: TypeDefinitionRegistry): Document {
+    val definitions = mutableListOf<Definition<*>>()
+    registry.schemaDefinition().ifPresent { definitions.add(it) }
+    definitions.addAll(registry.schemaExtensionDefinitions)
+    definitions.addAll(registry.directiveDefinitions.values)
+    definitions.addAll(registry.types().values)
+    // built-in scalars are always added by the registry itself
+    registry.scalars().values.filterTo(definitions) { ScalarInfo.GRAPHQL_SPECIFICATION_SCALARS_DEFINITIONS[it.name] !== it }
+    registry.objectTypeExtensions().values.flatMapTo(definitions) { it }
+    registry.interfaceTypeExtensions().values.flatMapTo(definitions) { it }
+    registry.unionTypeExtensions().values.flatMapTo(definitions) { it }
+    registry.enumTypeExtensions().values.flatMapTo(definitions) { it }
+    registry.scalarTypeExtensions().values.flatMapTo(definitions) { it }
+    registry.inputObjectTypeExtensions().values.flatMapTo(definitions) { it }
+    return Document(definitions)
+  }
+}
@@ -164,13 +164,31 @@ fun isFragmentApplicableInTypeScope(
   fragmentCandidate: GraphQLFragmentDefinition,
   requiredTypeScope: GraphQLType,
 ): Boolean {
-  // unwrap non-nullable and list types
-  val typeScope = unwrapType(requiredTypeScope) ?: return false
-
   val typeCondition = fragmentCandidate.typeCondition
   val typeName = typeCondition?.typeName ?: return false
 
-  val fragmentTypeName = typeName.name.orEmpty()
+  return isFragmentApplicableInTypeScope(typeDefinitionRegistry, typeName.name.orEmpty(), requiredTypeScope)
+}
+
+/**
+ * Gets whether a fragment with the specified type condition is valid to spread inside the specified required type scope
+ *
+ * @param typeDefinitionRegistry registry with available schema types, used to resolve union members and interface implementations
+ * @param fragmentTypeName       the name of the type that a candidate fragment applies to
+ * @param requiredTypeScope      the type scope in which the fragment is a candidate to spread
+ * @return true if the fragment candidate is valid to be spread inside the type scope
+ */
+fun isFragmentApplicableInTypeScope(
+  typeDefinitionRegistry: TypeDefinitionRegistry,
+  fragmentTypeName: String,
+  requiredTypeScope: GraphQLType,
+): Boolean {
+  // unwrap non-nullable and list types
+  val typeScope = unwrapType(requiredTypeScope) ?: return false
+
+  if (fragmentTypeName.isEmpty()) {
+    return false
+  }
   if (fragmentTypeName == getTypeName(typeScope)) {
     // direct match, e.g. User scope, fragment on User
     return true
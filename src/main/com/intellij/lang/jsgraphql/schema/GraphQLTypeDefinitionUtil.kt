@@ -57,7 +57,7 @@ val GraphQLElement.sourceLocation: SourceLocation
     val line = document.getLineNumber(offset)
     val col = offset - document.getLineStartOffset(line)
 
-    return SourceLocation(line, col, file.viewProvider.virtualFile.path)
+    return SourceLocation(line, col, GraphQLAstInterner.intern(file.viewProvider.virtualFile.path))
   }
 
 private val GraphQLElement.locationOffset: Int
@@ -25,6 +25,7 @@ public abstract class GraphQLCompositeDefinition<T extends SDLDefinition<T>> {
     else {
       myDefinitions.add(definition);
     }
+    myMergedDefinition = null;
   }
 
   public @NotNull List<T> getSourceDefinitions() {
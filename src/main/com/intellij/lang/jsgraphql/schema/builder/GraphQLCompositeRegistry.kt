@@ -30,25 +30,49 @@ import com.intellij.lang.jsgraphql.types.schema.idl.errors.SchemaProblem
 import com.intellij.lang.jsgraphql.types.schema.idl.errors.SchemaRedefinitionError
 import com.intellij.lang.jsgraphql.types.schema.idl.errors.TypeRedefinitionError
 import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.diagnostic.debug
 import com.intellij.openapi.diagnostic.logger
 import com.intellij.openapi.progress.ProgressManager
+import org.jetbrains.annotations.ApiStatus
+import java.util.IdentityHashMap
 
-internal class GraphQLCompositeRegistry {
+@ApiStatus.Internal
+class GraphQLCompositeRegistry {
 
   private val namedCompositeDefinitions = mutableMapOf<String, GraphQLCompositeDefinition<*>>()
-  private val schemaCompositeDefinition = GraphQLSchemaTypeCompositeDefinition()
+  private var schemaCompositeDefinition = GraphQLSchemaTypeCompositeDefinition()
+
+  /**
+   * All the added definitions by name, the composite definitions are rebuilt from them when the documents change,
+   * so the result doesn't depend on the order in which the documents were added or removed.
+   */
+  private val namedDefinitions = mutableMapOf<String, MutableList<SDLDefinition<*>>>()
+  private val schemaDefinitions = mutableListOf<SDLDefinition<*>>()
+  private val definitionLocations = IdentityHashMap<SDLDefinition<*>, DefinitionLocation>()
+
+  /**
+   * The documents with their positions in the list passed to [updateDocuments], the documents added later go after them.
+   */
+  private val documentOrder = IdentityHashMap<Document, Int>()
+  private var nextDocumentOrder = 0
+  private var nextMergedDefinitionIndex = 0
+
+  /**
+   * The keys of the added or removed definitions whose composite definitions aren't rebuilt yet, see [addFromDocument].
+   */
+  private val pendingKeys = mutableSetOf<String>()
 
   @Throws(GraphQLException::class)
   fun merge(source: TypeDefinitionRegistry) {
     if (source.schemaDefinition().isPresent) {
-      addTypeDefinition(source.schemaDefinition().get())
+      addMergedDefinition(source.schemaDefinition().get())
     }
 
-    source.types().values.forEach(::addTypeDefinition)
-    source.directiveDefinitions.values.forEach(::addTypeDefinition)
-    source.scalars().values.forEach(::addTypeDefinition)
+    source.types().values.forEach(::addMergedDefinition)
+    source.directiveDefinitions.values.forEach(::addMergedDefinition)
+    source.scalars().values.forEach(::addMergedDefinition)
 
-    source.schemaExtensionDefinitions.forEach(::addExtensionDefinition)
+    source.schemaExtensionDefinitions.forEach(::addMergedDefinition)
 
     sequenceOf(
       source.objectTypeExtensions(),
@@ -61,20 +85,25 @@ internal class GraphQLCompositeRegistry {
       .flatMap { it.values.asSequence() }
       .flatten()
       .forEach {
-        addExtensionDefinition(it)
+        addMergedDefinition(it)
       }
   }
 
+  /**
+   * The definitions merged from registries don't belong to any document, they go after all the documents in the order of merging.
+   */
+  private fun addMergedDefinition(definition: SDLDefinition<*>) {
+    if (trackDefinition(definition, DefinitionLocation(null, nextMergedDefinitionIndex++)) != null) {
+      addDefinition(definition)
+    }
+  }
+
   private fun getCompositeDefinition(definition: SDLDefinition<*>): GraphQLCompositeDefinition<*>? {
     if (definition is SchemaDefinition) {
       return schemaCompositeDefinition
     }
-    if (definition !is NamedNode<*>) {
-      return null
-    }
-    val name = (definition as NamedNode<*>).name
-    return if (name.isEmpty()) null
-    else namedCompositeDefinitions.computeIfAbsent(name) {
+    val name = getDefinitionName(definition) ?: return null
+    return namedCompositeDefinitions.computeIfAbsent(name) {
       createCompositeDefinition(definition)
     }
   }
@@ -125,16 +154,153 @@ internal class GraphQLCompositeRegistry {
     }
   }
 
-  fun addFromDocument(document: Document) {
-    val definitions = document.definitions
-    for (definition in definitions) {
+  /**
+   * @return the name of the definition or [SCHEMA_KEY] for the schema definitions, null if the definition is ignored
+   */
+  private fun trackDefinition(definition: SDLDefinition<*>, location: DefinitionLocation): String? {
+    val key = getDefinitionKey(definition) ?: return null
+    definitionLocations[definition] = location
+    if (key == SCHEMA_KEY) {
+      schemaDefinitions.add(definition)
+    }
+    else {
+      namedDefinitions.getOrPut(key) { mutableListOf() }.add(definition)
+    }
+    return key
+  }
+
+  private fun untrackDefinition(definition: SDLDefinition<*>): String? {
+    ProgressManager.checkCanceled()
+
+    val key = getDefinitionKey(definition) ?: return null
+    definitionLocations.remove(definition)
+    if (key == SCHEMA_KEY) {
+      schemaDefinitions.removeIf { it === definition }
+    }
+    else {
+      val definitions = namedDefinitions[key] ?: return key
+      definitions.removeIf { it === definition }
+      if (definitions.isEmpty()) {
+        namedDefinitions.remove(key)
+      }
+    }
+    return key
+  }
+
+  private fun getDefinitionOrder(definition: SDLDefinition<*>): Long {
+    val location = definitionLocations[definition] ?: return Long.MAX_VALUE
+    val documentIndex = location.document?.let { documentOrder[it] } ?: Int.MAX_VALUE
+    return (documentIndex.toLong() shl 32) or location.index.toLong()
+  }
+
+  /**
+   * Recreates the composite definitions of the given names from all their definitions in the document order,
+   * the same way as if the registry was built from scratch.
+   */
+  private fun rebuildDefinitions(keys: Set<String>) {
+    if (keys.isEmpty()) return
+
+    val comparator = compareBy<SDLDefinition<*>> { getDefinitionOrder(it) }
+    for (key in keys) {
+      if (key == SCHEMA_KEY) {
+        schemaCompositeDefinition = GraphQLSchemaTypeCompositeDefinition()
+        schemaDefinitions.sortWith(comparator)
+        schemaDefinitions.forEach(::addDefinition)
+        continue
+      }
+
+      namedCompositeDefinitions.remove(key)
+      val definitions = namedDefinitions[key] ?: continue
+      definitions.sortWith(comparator)
+      definitions.forEach(::addDefinition)
+    }
+
+    // the types are ordered by their first definitions, as they are added during a full build
+    val sortedCompositeDefinitions = namedCompositeDefinitions.entries
+      .map { it.key to it.value }
+      .sortedBy { (name, _) -> namedDefinitions[name]?.minOf { getDefinitionOrder(it) } ?: Long.MAX_VALUE }
+    namedCompositeDefinitions.clear()
+    namedCompositeDefinitions.putAll(sortedCompositeDefinitions)
+  }
+
+  private fun rebuildPendingDefinitions() {
+    rebuildDefinitions(pendingKeys)
+    pendingKeys.clear()
+  }
+
+  private fun addDocumentDefinitions(document: Document, affectedKeys: MutableSet<String>) {
+    document.definitions.forEachIndexed { index, definition ->
+      if (definition is SDLDefinition<*>) {
+        trackDefinition(definition, DefinitionLocation(document, index))?.let(affectedKeys::add)
+      }
+    }
+  }
+
+  private fun removeDocumentDefinitions(document: Document, affectedKeys: MutableSet<String>) {
+    for (definition in document.definitions) {
       if (definition is SDLDefinition<*>) {
-        addDefinition(definition)
+        untrackDefinition(definition)?.let(affectedKeys::add)
       }
     }
   }
 
+  /**
+   * Adds the document after the already added ones. The affected composite definitions are rebuilt once in [build],
+   * so adding many documents one by one costs the same as a single [updateDocuments] call.
+   */
+  fun addFromDocument(document: Document) {
+    if (documentOrder.containsKey(document)) {
+      return
+    }
+
+    documentOrder[document] = nextDocumentOrder++
+    addDocumentDefinitions(document, pendingKeys)
+  }
+
+  /**
+   * Brings the registry in sync with the provided list of documents. Only the composite definitions of the names defined
+   * in the removed and added documents are rebuilt, in the order of the provided documents, so the result is the same
+   * as of a fresh build. Documents are compared by identity, it's expected that unchanged files provide the same cached
+   * document instance, see [com.intellij.lang.jsgraphql.psi.GraphQLFile.getDocument].
+   *
+   * @return true if the registry content was changed
+   */
+  fun updateDocuments(newDocuments: Collection<Document>): Boolean {
+    val newDocumentOrder = IdentityHashMap<Document, Int>(newDocuments.size)
+    newDocuments.forEachIndexed { index, document -> newDocumentOrder.putIfAbsent(document, index) }
+    val removed = documentOrder.keys.filter { it !in newDocumentOrder }
+    val added = newDocumentOrder.keys.filter { it !in documentOrder }
+    val isReordered = isReordered(newDocuments)
+
+    removed.forEach { removeDocumentDefinitions(it, pendingKeys) }
+    documentOrder.clear()
+    documentOrder.putAll(newDocumentOrder)
+    nextDocumentOrder = newDocuments.size
+    added.forEach { addDocumentDefinitions(it, pendingKeys) }
+
+    if (isReordered) {
+      // the relative order of the unchanged documents is changed, so all the definitions can be affected
+      pendingKeys.addAll(namedDefinitions.keys)
+      pendingKeys.add(SCHEMA_KEY)
+    }
+    rebuildPendingDefinitions()
+
+    LOG.debug { "Registry documents updated: removed=${removed.size}, added=${added.size}, total=${documentOrder.size}" }
+    return removed.isNotEmpty() || added.isNotEmpty() || isReordered
+  }
+
+  private fun isReordered(newDocuments: Collection<Document>): Boolean {
+    var previousOrder = -1
+    for (document in newDocuments) {
+      val order = documentOrder[document] ?: continue
+      if (order < previousOrder) return true
+      previousOrder = order
+    }
+    return false
+  }
+
   fun build(): TypeDefinitionRegistry {
+    rebuildPendingDefinitions()
     val registry = TypeDefinitionRegistry()
 
     val schemaDefinition = schemaCompositeDefinition.buildDefinition()
@@ -209,9 +375,33 @@ internal class GraphQLCompositeRegistry {
     return errors
   }
 
+  /**
+   * @param index the index of the definition in the document, or the order of merging if the definition has no document
+   */
+  private class DefinitionLocation(val document: Document?, val index: Int)
+
   companion object {
     private val LOG: Logger = logger<GraphQLCompositeRegistry>()
 
+    /**
+     * The key of the schema definitions and extensions, which can't clash with the names of types and directives.
+     */
+    private const val SCHEMA_KEY = "@schema"
+
+    private fun getDefinitionName(definition: SDLDefinition<*>): String? {
+      if (definition !is NamedNode<*>) {
+        return null
+      }
+      return (definition as NamedNode<*>).name?.takeIf { it.isNotEmpty() }
+    }
+
+    private fun getDefinitionKey(definition: SDLDefinition<*>): String? {
+      if (definition is SchemaDefinition) {
+        return SCHEMA_KEY
+      }
+      return getDefinitionName(definition)
+    }
+
     private fun createCompositeDefinition(definition: SDLDefinition<*>): GraphQLCompositeDefinition<*> {
       return when (definition) {
         is InputObjectTypeDefinition -> GraphQLInputObjectTypeCompositeDefinition()
@@ -172,6 +172,12 @@ class GraphQLLibraryManager(private val project: Project) {
 
   fun isLibraryRoot(virtualFile: VirtualFile?): Boolean = virtualFile != null && virtualFile in getLibraryRoots()
 
+  /**
+   * Checks whether the file is one of the definitions bundled with the plugin, they are the same for all the projects.
+   */
+  fun isBundledLibraryRoot(virtualFile: VirtualFile?): Boolean =
+    virtualFile != null && bundledLibraries.values.any { virtualFile in it.sourceRoots && it.descriptor.isEnabled(project) }
+
   fun isLibraryRoot(virtualFile: VirtualFile?, vararg attachmentScopes: GraphQLLibraryAttachmentScope): Boolean =
     virtualFile != null && virtualFile in getLibraryRoots(*attachmentScopes)
 
@@ -20,6 +20,8 @@ package com.intellij.lang.jsgraphql.types.language;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.intellij.lang.jsgraphql.types.Assert;
 import com.intellij.lang.jsgraphql.types.PublicApi;
 import org.jetbrains.annotations.NotNull;
@@ -34,6 +36,12 @@ import static com.intellij.lang.jsgraphql.types.collect.ImmutableKit.map;
 @PublicApi
 public abstract class AbstractNode<T extends Node> implements Node<T> {
 
+  /**
+   * The additional data consists of a few flags, e.g. whether a node is from a library,
+   * so the same map is shared by all the nodes having it instead of keeping a copy per node.
+   */
+  private static final Interner<ImmutableMap<String, String>> ADDITIONAL_DATA_INTERNER = Interners.newWeakInterner();
+
   private final SourceLocation sourceLocation;
   private final ImmutableList<Comment> comments;
   private final IgnoredChars ignoredChars;
@@ -55,13 +63,18 @@ public abstract class AbstractNode<T extends Node> implements Node<T> {
     Assert.assertNotNull(additionalData, () -> "additionalData can't be null");
 
     this.sourceLocation = sourceLocation;
-    this.additionalData = ImmutableMap.copyOf(additionalData);
+    this.additionalData = internAdditionalData(additionalData);
     this.comments = ImmutableList.copyOf(comments);
     this.ignoredChars = ignoredChars;
 
     mySourceNodes = sourceNodes == null ? Collections.emptyList() : ImmutableList.copyOf(sourceNodes);
   }
 
+  private static ImmutableMap<String, String> internAdditionalData(Map<String, String> additionalData) {
+    ImmutableMap<String, String> copy = ImmutableMap.copyOf(additionalData);
+    return copy.isEmpty() ? copy : ADDITIONAL_DATA_INTERNER.intern(copy);
+  }
+
   @Override
   public SourceLocation getSourceLocation() {
     return sourceLocation;
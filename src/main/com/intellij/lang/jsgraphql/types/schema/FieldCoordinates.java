@@ -70,6 +70,21 @@ public class FieldCoordinates {
     }
   }
 
+  /**
+   * @return the schema coordinate of the field, e.g. {@code Query.user},
+   * the same form is used for the fields of input objects and the values of enums
+   */
+  public String toSchemaCoordinate() {
+    return typeName + '.' + fieldName;
+  }
+
+  /**
+   * @return the schema coordinate of the field argument, e.g. {@code Query.user(id:)}
+   */
+  public String toSchemaCoordinate(String argumentName) {
+    return typeName + '.' + fieldName + '(' + argumentName + ":)";
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
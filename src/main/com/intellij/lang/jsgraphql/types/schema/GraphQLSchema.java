@@ -70,7 +70,8 @@ public class GraphQLSchema {
 
   private final ImmutableMap<String, GraphQLNamedType> typeMap;
   private final ImmutableMap<String, ImmutableList<GraphQLObjectType>> interfaceNameToObjectTypes;
-  private final ImmutableMap<String, ImmutableList<String>> interfaceNameToObjectTypeNames;
+  private final ImmutableMap<String, ImmutableSet<String>> interfaceNameToObjectTypeNames;
+  private final ImmutableMap<String, ImmutableSet<String>> unionNameToObjectTypeNames;
 
   private final String description;
 
@@ -95,6 +96,7 @@ public class GraphQLSchema {
     this.typeMap = ImmutableMap.copyOf(schemaUtil.allTypes(this, additionalTypes, afterTransform));
     this.interfaceNameToObjectTypes = buildInterfacesToObjectTypes(schemaUtil.groupImplementations(this));
     this.interfaceNameToObjectTypeNames = buildInterfacesToObjectName(interfaceNameToObjectTypes);
+    this.unionNameToObjectTypeNames = buildUnionsToObjectName(typeMap);
     this.description = builder.description;
   }
 
@@ -107,15 +109,25 @@ public class GraphQLSchema {
     return map.build();
   }
 
-  private ImmutableMap<String, ImmutableList<String>> buildInterfacesToObjectName(ImmutableMap<String, ImmutableList<GraphQLObjectType>> byInterface) {
-    ImmutableMap.Builder<String, ImmutableList<String>> map = ImmutableMap.builder();
+  private ImmutableMap<String, ImmutableSet<String>> buildInterfacesToObjectName(ImmutableMap<String, ImmutableList<GraphQLObjectType>> byInterface) {
+    ImmutableMap.Builder<String, ImmutableSet<String>> map = ImmutableMap.builder();
     for (Map.Entry<String, ImmutableList<GraphQLObjectType>> e : byInterface.entrySet()) {
-      ImmutableList<String> objectTypeNames = map(e.getValue(), GraphQLObjectType::getName);
+      ImmutableSet<String> objectTypeNames = ImmutableSet.copyOf(map(e.getValue(), GraphQLObjectType::getName));
       map.put(e.getKey(), objectTypeNames);
     }
     return map.build();
   }
 
+  private ImmutableMap<String, ImmutableSet<String>> buildUnionsToObjectName(ImmutableMap<String, GraphQLNamedType> typeMap) {
+    ImmutableMap.Builder<String, ImmutableSet<String>> map = ImmutableMap.builder();
+    for (GraphQLNamedType type : typeMap.values()) {
+      if (type instanceof GraphQLUnionType) {
+        map.put(type.getName(), ImmutableSet.copyOf(map(((GraphQLUnionType)type).getTypes(), GraphQLNamedType::getName)));
+      }
+    }
+    return map.build();
+  }
+
   public Set<GraphQLType> getAdditionalTypes() {
     ProgressManager.checkCanceled();
     return additionalTypes;
@@ -178,17 +190,36 @@ public class GraphQLSchema {
    */
   public boolean isPossibleType(GraphQLNamedType abstractType, GraphQLObjectType concreteType) {
     ProgressManager.checkCanceled();
-    if (abstractType instanceof GraphQLInterfaceType) {
-      ImmutableList<String> objectNames = this.interfaceNameToObjectTypeNames.getOrDefault(abstractType.getName(), emptyList());
-      return objectNames.contains(concreteType.getName());
-    }
-    else if (abstractType instanceof GraphQLUnionType) {
-      return ((GraphQLUnionType)abstractType).isPossibleType(concreteType);
+    if (abstractType instanceof GraphQLInterfaceType || abstractType instanceof GraphQLUnionType) {
+      return getPossibleTypeNames(abstractType).contains(concreteType.getName());
     }
     return assertShouldNeverHappen("Unsupported abstract type %s. Abstract types supported are Union and Interface.",
                                    abstractType.getName());
   }
 
+  /**
+   * Returns the names of the object types which could be returned in place of the provided type,
+   * i.e. the implementations of an interface, the members of a union, or the object type itself.
+   *
+   * @param type an object, interface or union type
+   * @return the set of possible object type names, empty for the other kinds of types
+   */
+  public @NotNull Set<String> getPossibleTypeNames(@NotNull GraphQLNamedType type) {
+    ProgressManager.checkCanceled();
+    if (type instanceof GraphQLObjectType) {
+      return ImmutableSet.of(type.getName());
+    }
+    else if (type instanceof GraphQLInterfaceType) {
+      return interfaceNameToObjectTypeNames.getOrDefault(type.getName(), ImmutableSet.of());
+    }
+    else if (type instanceof GraphQLUnionType) {
+      ImmutableSet<String> memberNames = unionNameToObjectTypeNames.get(type.getName());
+      // a union which isn't a part of this schema
+      return memberNames != null ? memberNames : ImmutableSet.copyOf(map(((GraphQLUnionType)type).getTypes(), GraphQLNamedType::getName));
+    }
+    return ImmutableSet.of();
+  }
+
   public @Nullable GraphQLObjectType getQueryType() {
     ProgressManager.checkCanceled();
     return queryType;
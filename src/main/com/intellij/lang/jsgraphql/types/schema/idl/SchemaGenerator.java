@@ -26,11 +26,13 @@ import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLType;
 import com.intellij.lang.jsgraphql.types.schema.idl.errors.SchemaProblem;
 import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
 
 
 /**
@@ -45,12 +47,29 @@ public class SchemaGenerator {
    * These options control how the schema generation works
    */
   public static final class Options {
+    private final @Nullable LongConsumer typeCheckingTimeConsumer;
 
-    Options() {
+    Options(@Nullable LongConsumer typeCheckingTimeConsumer) {
+      this.typeCheckingTimeConsumer = typeCheckingTimeConsumer;
+    }
+
+    public @Nullable LongConsumer getTypeCheckingTimeConsumer() {
+      return typeCheckingTimeConsumer;
+    }
+
+    /**
+     * The consumer is called with the time in nanoseconds spent on checking the type registry,
+     * which is a part of the schema generation that can't be measured from the outside.
+     *
+     * @param typeCheckingTimeConsumer the consumer of the type checking time
+     * @return new options object to use
+     */
+    public Options typeCheckingTimeConsumer(@Nullable LongConsumer typeCheckingTimeConsumer) {
+      return new Options(typeCheckingTimeConsumer);
     }
 
     public static Options defaultOptions() {
-      return new Options();
+      return new Options(null);
     }
   }
 
@@ -91,8 +110,13 @@ public class SchemaGenerator {
     typeRegistryCopy.merge(typeRegistry);
 
     schemaGeneratorHelper.addDirectivesIncludedByDefault(typeRegistryCopy);
+    typeRegistryCopy.freeze();
 
+    long typeCheckingStart = System.nanoTime();
     List<GraphQLError> errors = typeChecker.checkTypeRegistry(typeRegistryCopy, wiring);
+    if (options.getTypeCheckingTimeConsumer() != null) {
+      options.getTypeCheckingTimeConsumer().accept(System.nanoTime() - typeCheckingStart);
+    }
 
     Map<String, OperationTypeDefinition> operationTypeDefinitions = SchemaExtensionsChecker.gatherOperationDefs(typeRegistry);
 
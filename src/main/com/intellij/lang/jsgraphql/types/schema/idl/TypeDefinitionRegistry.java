@@ -22,8 +22,10 @@ import com.intellij.lang.jsgraphql.types.GraphQLError;
 import com.intellij.lang.jsgraphql.types.GraphQLException;
 import com.intellij.lang.jsgraphql.types.PublicApi;
 import com.intellij.lang.jsgraphql.types.language.DirectiveDefinition;
+import com.intellij.lang.jsgraphql.types.language.EnumTypeDefinition;
 import com.intellij.lang.jsgraphql.types.language.EnumTypeExtensionDefinition;
 import com.intellij.lang.jsgraphql.types.language.ImplementingTypeDefinition;
+import com.intellij.lang.jsgraphql.types.language.InputObjectTypeDefinition;
 import com.intellij.lang.jsgraphql.types.language.InputObjectTypeExtensionDefinition;
 import com.intellij.lang.jsgraphql.types.language.InterfaceTypeDefinition;
 import com.intellij.lang.jsgraphql.types.language.InterfaceTypeExtensionDefinition;
@@ -53,11 +55,16 @@ import org.jetbrains.annotations.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -69,6 +76,11 @@ import static java.util.Optional.ofNullable;
 @SuppressWarnings({"rawtypes", "UnusedReturnValue"})
 @PublicApi
 public class TypeDefinitionRegistry {
+  private static final List<Class<?>> PRE_BUCKETED_TYPE_CLASSES = List.of(
+    ObjectTypeDefinition.class, InterfaceTypeDefinition.class, UnionTypeDefinition.class,
+    EnumTypeDefinition.class, InputObjectTypeDefinition.class, ImplementingTypeDefinition.class
+  );
+
   private final Map<String, List<ObjectTypeExtensionDefinition>> objectTypeExtensions = new LinkedHashMap<>();
   private final Map<String, List<InterfaceTypeExtensionDefinition>> interfaceTypeExtensions = new LinkedHashMap<>();
   private final Map<String, List<UnionTypeExtensionDefinition>> unionTypeExtensions = new LinkedHashMap<>();
@@ -84,6 +96,13 @@ public class TypeDefinitionRegistry {
 
   private final List<GraphQLException> myErrors = new ArrayList<>();
 
+  private volatile boolean myFrozen;
+  private Map<String, ScalarTypeDefinition> myFrozenScalars;
+  private final Map<Class<?>, List<?>> myTypesByClass = new ConcurrentHashMap<>();
+  private Map<String, List<ImplementingTypeDefinition>> myInterfaceImplementations;
+  private Map<String, Set<String>> myInterfaceImplementationNames;
+  private Map<String, Set<String>> myUnionMemberNames;
+
   public static <T extends Node> Stream<T> fromSourceNodes(@NotNull Stream<T> definitions, @NotNull Class<T> targetClass) {
     //noinspection unchecked
     return definitions
@@ -101,9 +120,98 @@ public class TypeDefinitionRegistry {
   }
 
   public void addError(@NotNull GraphQLException error) {
+    assertNotFrozen();
     myErrors.add(error);
   }
 
+  /**
+   * Makes the registry read-only. The accessors of a frozen registry return unmodifiable views instead of copies,
+   * and the types are bucketed by their class, so the readers, e.g. completion or the type checkers,
+   * don't copy the whole registry on each call.
+   * <p>
+   * Any attempt to add definitions or errors to a frozen registry fails.
+   *
+   * @return this registry
+   */
+  public TypeDefinitionRegistry freeze() {
+    if (myFrozen) return this;
+
+    freezeExtensions(objectTypeExtensions);
+    freezeExtensions(interfaceTypeExtensions);
+    freezeExtensions(unionTypeExtensions);
+    freezeExtensions(enumTypeExtensions);
+    freezeExtensions(scalarTypeExtensions);
+    freezeExtensions(inputObjectTypeExtensions);
+
+    LinkedHashMap<String, ScalarTypeDefinition> scalars = new LinkedHashMap<>(ScalarInfo.GRAPHQL_SPECIFICATION_SCALARS_DEFINITIONS);
+    scalars.putAll(scalarTypes);
+    myFrozenScalars = Collections.unmodifiableMap(scalars);
+
+    Map<Class<?>, List<TypeDefinition>> typesByClass = new LinkedHashMap<>();
+    for (Class<?> typeClass : PRE_BUCKETED_TYPE_CLASSES) {
+      typesByClass.put(typeClass, new ArrayList<>());
+    }
+    for (TypeDefinition type : types.values()) {
+      typesByClass.forEach((typeClass, bucket) -> {
+        if (typeClass.isInstance(type)) bucket.add(type);
+      });
+    }
+    typesByClass.forEach((typeClass, bucket) -> myTypesByClass.put(typeClass, Collections.unmodifiableList(bucket)));
+
+    buildImplementationsIndex(typesByClass.get(ImplementingTypeDefinition.class));
+    buildUnionMembersIndex(typesByClass.get(UnionTypeDefinition.class));
+
+    myFrozen = true;
+    return this;
+  }
+
+  private void buildImplementationsIndex(List<TypeDefinition> implementingTypes) {
+    Map<String, Set<ImplementingTypeDefinition>> implementations = new LinkedHashMap<>();
+    for (TypeDefinition type : implementingTypes) {
+      for (Type iFace : ((ImplementingTypeDefinition<?>)type).getImplements()) {
+        String interfaceName = TypeInfo.typeInfo(iFace).getName();
+        TypeDefinition interfaceDefinition = types.get(interfaceName);
+        if (interfaceDefinition != null && interfaceDefinition.getClass().equals(InterfaceTypeDefinition.class)) {
+          implementations.computeIfAbsent(interfaceName, __ -> new LinkedHashSet<>()).add((ImplementingTypeDefinition)type);
+        }
+      }
+    }
+
+    myInterfaceImplementations = new HashMap<>();
+    myInterfaceImplementationNames = new HashMap<>();
+    implementations.forEach((interfaceName, interfaceImplementations) -> {
+      myInterfaceImplementations.put(interfaceName, List.copyOf(interfaceImplementations));
+      myInterfaceImplementationNames.put(interfaceName, interfaceImplementations.stream().map(TypeDefinition::getName).collect(Collectors.toUnmodifiableSet()));
+    });
+  }
+
+  private void buildUnionMembersIndex(List<TypeDefinition> unionTypes) {
+    myUnionMemberNames = new HashMap<>();
+    for (TypeDefinition type : unionTypes) {
+      Set<String> memberNames = new HashSet<>();
+      for (Type memberType : ((UnionTypeDefinition)type).getMemberTypes()) {
+        String memberName = TypeInfo.typeInfo(memberType).getName();
+        TypeDefinition memberDefinition = types.get(memberName);
+        if (memberDefinition != null && memberDefinition.getClass().equals(ObjectTypeDefinition.class)) {
+          memberNames.add(memberName);
+        }
+      }
+      myUnionMemberNames.put(type.getName(), memberNames);
+    }
+  }
+
+  public boolean isFrozen() {
+    return myFrozen;
+  }
+
+  private static <T> void freezeExtensions(Map<String, List<T>> extensions) {
+    extensions.replaceAll((name, list) -> Collections.unmodifiableList(list));
+  }
+
+  private void assertNotFrozen() {
+    Assert.assertFalse(myFrozen, () -> "The registry is frozen and can't be modified");
+  }
+
   /**
    * This will merge these type registries together and return this one
    *
@@ -112,6 +220,7 @@ public class TypeDefinitionRegistry {
    * @throws SchemaProblem if there are problems merging the types such as redefinitions
    */
   public TypeDefinitionRegistry merge(TypeDefinitionRegistry typeRegistry) {
+    assertNotFrozen();
     Map<String, TypeDefinition> tempTypes = new LinkedHashMap<>();
     typeRegistry.types.values().forEach(newEntry -> define(this.types, tempTypes, newEntry));
 
@@ -206,6 +315,7 @@ public class TypeDefinitionRegistry {
    */
   public void add(SDLDefinition definition) {
     ProgressManager.checkCanceled();
+    assertNotFrozen();
 
     // extensions
     if (definition instanceof ObjectTypeExtensionDefinition newEntry) {
@@ -282,11 +392,14 @@ public class TypeDefinitionRegistry {
 
   public Map<String, TypeDefinition> types() {
     ProgressManager.checkCanceled();
-    return new LinkedHashMap<>(types);
+    return myFrozen ? Collections.unmodifiableMap(types) : new LinkedHashMap<>(types);
   }
 
   public Map<String, ScalarTypeDefinition> scalars() {
     ProgressManager.checkCanceled();
+    if (myFrozen) {
+      return myFrozenScalars;
+    }
     LinkedHashMap<String, ScalarTypeDefinition> scalars = new LinkedHashMap<>(ScalarInfo.GRAPHQL_SPECIFICATION_SCALARS_DEFINITIONS);
     scalars.putAll(scalarTypes);
     return scalars;
@@ -294,32 +407,32 @@ public class TypeDefinitionRegistry {
 
   public Map<String, List<ObjectTypeExtensionDefinition>> objectTypeExtensions() {
     ProgressManager.checkCanceled();
-    return new LinkedHashMap<>(objectTypeExtensions);
+    return myFrozen ? Collections.unmodifiableMap(objectTypeExtensions) : new LinkedHashMap<>(objectTypeExtensions);
   }
 
   public Map<String, List<InterfaceTypeExtensionDefinition>> interfaceTypeExtensions() {
     ProgressManager.checkCanceled();
-    return new LinkedHashMap<>(interfaceTypeExtensions);
+    return myFrozen ? Collections.unmodifiableMap(interfaceTypeExtensions) : new LinkedHashMap<>(interfaceTypeExtensions);
   }
 
   public Map<String, List<UnionTypeExtensionDefinition>> unionTypeExtensions() {
     ProgressManager.checkCanceled();
-    return new LinkedHashMap<>(unionTypeExtensions);
+    return myFrozen ? Collections.unmodifiableMap(unionTypeExtensions) : new LinkedHashMap<>(unionTypeExtensions);
   }
 
   public Map<String, List<EnumTypeExtensionDefinition>> enumTypeExtensions() {
     ProgressManager.checkCanceled();
-    return new LinkedHashMap<>(enumTypeExtensions);
+    return myFrozen ? Collections.unmodifiableMap(enumTypeExtensions) : new LinkedHashMap<>(enumTypeExtensions);
   }
 
   public Map<String, List<ScalarTypeExtensionDefinition>> scalarTypeExtensions() {
     ProgressManager.checkCanceled();
-    return new LinkedHashMap<>(scalarTypeExtensions);
+    return myFrozen ? Collections.unmodifiableMap(scalarTypeExtensions) : new LinkedHashMap<>(scalarTypeExtensions);
   }
 
   public Map<String, List<InputObjectTypeExtensionDefinition>> inputObjectTypeExtensions() {
     ProgressManager.checkCanceled();
-    return new LinkedHashMap<>(inputObjectTypeExtensions);
+    return myFrozen ? Collections.unmodifiableMap(inputObjectTypeExtensions) : new LinkedHashMap<>(inputObjectTypeExtensions);
   }
 
   public Optional<SchemaDefinition> schemaDefinition() {
@@ -329,7 +442,7 @@ public class TypeDefinitionRegistry {
 
   public List<SchemaExtensionDefinition> getSchemaExtensionDefinitions() {
     ProgressManager.checkCanceled();
-    return new ArrayList<>(schemaExtensionDefinitions);
+    return myFrozen ? Collections.unmodifiableList(schemaExtensionDefinitions) : new ArrayList<>(schemaExtensionDefinitions);
   }
 
   private void handleReDefinition(TypeDefinition oldEntry, TypeDefinition newEntry) {
@@ -347,7 +460,7 @@ public class TypeDefinitionRegistry {
 
   public Map<String, DirectiveDefinition> getDirectiveDefinitions() {
     ProgressManager.checkCanceled();
-    return new LinkedHashMap<>(directiveDefinitions);
+    return myFrozen ? Collections.unmodifiableMap(directiveDefinitions) : new LinkedHashMap<>(directiveDefinitions);
   }
 
   @SuppressWarnings("BooleanMethodIsAlwaysInverted")
@@ -380,7 +493,10 @@ public class TypeDefinitionRegistry {
     if (typeDefinition != null) {
       return Optional.of(typeDefinition);
     }
-    typeDefinition = scalars().get(typeName);
+    typeDefinition = scalarTypes.get(typeName);
+    if (typeDefinition == null) {
+      typeDefinition = ScalarInfo.GRAPHQL_SPECIFICATION_SCALARS_DEFINITIONS.get(typeName);
+    }
     if (typeDefinition != null) {
       return Optional.of(typeDefinition);
     }
@@ -448,6 +564,14 @@ public class TypeDefinitionRegistry {
    */
   public <T extends TypeDefinition> List<T> getTypes(Class<T> targetClass) {
     ProgressManager.checkCanceled();
+    if (myFrozen) {
+      //noinspection unchecked
+      return (List<T>)myTypesByClass.computeIfAbsent(targetClass, __ -> Collections.unmodifiableList(collectTypes(targetClass)));
+    }
+    return collectTypes(targetClass);
+  }
+
+  private <T extends TypeDefinition> List<T> collectTypes(Class<T> targetClass) {
     return types.values().stream()
       .filter(targetClass::isInstance)
       .map(targetClass::cast)
@@ -488,6 +612,9 @@ public class TypeDefinitionRegistry {
    * @see TypeDefinitionRegistry#getImplementationsOf(InterfaceTypeDefinition)
    */
   public List<ImplementingTypeDefinition> getAllImplementationsOf(InterfaceTypeDefinition targetInterface) {
+    if (myFrozen) {
+      return myInterfaceImplementations.getOrDefault(targetInterface.getName(), Collections.emptyList());
+    }
     List<ImplementingTypeDefinition> typeDefinitions = getTypes(ImplementingTypeDefinition.class);
     return typeDefinitions.stream().filter(typeDefinition -> {
       List<Type> implementsList = typeDefinition.getImplements();
@@ -535,6 +662,12 @@ public class TypeDefinitionRegistry {
     }
     TypeDefinition targetObjectTypeDef = getType(possibleType).get();
     TypeDefinition abstractTypeDef = getType(abstractType).get();
+    if (myFrozen) {
+      Map<String, Set<String>> possibleTypes = abstractTypeDef instanceof UnionTypeDefinition
+                                               ? myUnionMemberNames
+                                               : myInterfaceImplementationNames;
+      return possibleTypes.getOrDefault(abstractTypeDef.getName(), Collections.emptySet()).contains(targetObjectTypeDef.getName());
+    }
     if (abstractTypeDef instanceof UnionTypeDefinition) {
       List<Type> memberTypes = ((UnionTypeDefinition)abstractTypeDef).getMemberTypes();
       for (Type memberType : memberTypes) {
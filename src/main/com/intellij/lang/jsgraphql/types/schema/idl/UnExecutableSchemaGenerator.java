@@ -34,6 +34,10 @@ public final class UnExecutableSchemaGenerator {
    * be sensibly executed
    */
   public static GraphQLSchema makeUnExecutableSchema(TypeDefinitionRegistry registry) {
+    return makeUnExecutableSchema(registry, SchemaGenerator.Options.defaultOptions());
+  }
+
+  public static GraphQLSchema makeUnExecutableSchema(TypeDefinitionRegistry registry, SchemaGenerator.Options options) {
     RuntimeWiring runtimeWiring = EchoingWiringFactory.newEchoingWiring(wiring -> {
       Map<String, ScalarTypeDefinition> scalars = registry.scalars();
       scalars.forEach((name, v) -> {
@@ -53,6 +57,6 @@ public final class UnExecutableSchemaGenerator {
       });
     });
 
-    return new SchemaGenerator().makeExecutableSchema(registry, runtimeWiring);
+    return new SchemaGenerator().makeExecutableSchema(options, registry, runtimeWiring);
   }
 }
@@ -0,0 +1,126 @@
+package com.intellij.lang.jsgraphql.types.schema.validation;
+
+import com.intellij.lang.jsgraphql.types.Internal;
+import com.intellij.lang.jsgraphql.types.language.Node;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLEnumType;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLInputObjectType;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLInterfaceType;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLNamedType;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLObjectType;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLScalarType;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLUnionType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the results of the type and field checks of {@link SchemaValidator} between the validations of the subsequent schemas,
+ * so only the types whose definitions were changed are validated again.
+ * <p>
+ * A type is considered unchanged if it's built from the same definition and extension nodes, which holds for the types
+ * from unchanged files, because the merged definitions are reused by the registry. The types not built from the SDL,
+ * e.g. the introspection types, are compared by identity.
+ * Field checks additionally depend on the input types reachable from the field arguments, see {@link NoUnbrokenInputCycles}.
+ * <p>
+ * Not thread-safe, a cache should be used by a single validation at a time.
+ */
+@Internal
+public final class SchemaValidationCache {
+
+  private Map<String, TypeResult> results = Collections.emptyMap();
+
+  private int reusedTypesCount;
+  private int validatedTypesCount;
+
+  @NotNull Map<String, TypeResult> getResults() {
+    return results;
+  }
+
+  void update(@NotNull Map<String, TypeResult> results, int reusedTypesCount, int validatedTypesCount) {
+    this.results = results;
+    this.reusedTypesCount = reusedTypesCount;
+    this.validatedTypesCount = validatedTypesCount;
+  }
+
+  /**
+   * @return the number of types whose results were taken from the cache during the last validation
+   */
+  public int getReusedTypesCount() {
+    return reusedTypesCount;
+  }
+
+  /**
+   * @return the number of types which were validated again during the last validation
+   */
+  public int getValidatedTypesCount() {
+    return validatedTypesCount;
+  }
+
+  /**
+   * @return the nodes the type is built from, or the type itself if it isn't built from the SDL
+   */
+  static @NotNull List<Object> getSources(@NotNull GraphQLNamedType type) {
+    Node<?> definition = type.getDefinition();
+    if (definition == null) {
+      return Collections.singletonList(type);
+    }
+
+    List<? extends Node<?>> extensions;
+    if (type instanceof GraphQLObjectType objectType) {
+      extensions = objectType.getExtensionDefinitions();
+    }
+    else if (type instanceof GraphQLInterfaceType interfaceType) {
+      extensions = interfaceType.getExtensionDefinitions();
+    }
+    else if (type instanceof GraphQLUnionType unionType) {
+      extensions = unionType.getExtensionDefinitions();
+    }
+    else if (type instanceof GraphQLEnumType enumType) {
+      extensions = enumType.getExtensionDefinitions();
+    }
+    else if (type instanceof GraphQLInputObjectType inputObjectType) {
+      extensions = inputObjectType.getExtensionDefinitions();
+    }
+    else if (type instanceof GraphQLScalarType scalarType) {
+      extensions = scalarType.getExtensionDefinitions();
+    }
+    else {
+      extensions = Collections.emptyList();
+    }
+
+    List<Object> sources = new ArrayList<>(extensions.size() + 1);
+    sources.add(definition);
+    sources.addAll(extensions);
+    return sources;
+  }
+
+  static final class TypeResult {
+    private final @NotNull List<Object> sources;
+
+    @Nullable List<SchemaValidationError> typeErrors;
+    /**
+     * Errors of each field in the order of {@link com.intellij.lang.jsgraphql.types.schema.GraphQLFieldsContainer#getFieldDefinitions()}
+     */
+    @Nullable List<List<SchemaValidationError>> fieldErrors;
+
+    TypeResult(@NotNull List<Object> sources) {
+      this.sources = sources;
+    }
+
+    boolean isBuiltFrom(@NotNull List<Object> otherSources) {
+      if (sources.size() != otherSources.size()) {
+        return false;
+      }
+      for (int i = 0; i < sources.size(); i++) {
+        if (sources.get(i) != otherSources.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
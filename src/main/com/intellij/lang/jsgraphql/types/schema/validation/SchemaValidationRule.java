@@ -22,6 +22,9 @@ import com.intellij.lang.jsgraphql.types.schema.GraphQLFieldDefinition;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLType;
 
+/**
+ * Rules should be stateless, type checks of different types could be called concurrently, see {@link SchemaValidator}.
+ */
 @Internal
 public interface SchemaValidationRule {
 
@@ -18,31 +18,81 @@
 package com.intellij.lang.jsgraphql.types.schema.validation;
 
 import com.intellij.lang.jsgraphql.types.Internal;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLArgument;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLFieldDefinition;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLFieldsContainer;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLInputObjectField;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLInputObjectType;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLNamedType;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLOutputType;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema;
+import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidationCache.TypeResult;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.intellij.lang.jsgraphql.types.schema.GraphQLTypeUtil.unwrapAll;
+
+/**
+ * Validates the type system of a built schema.
+ * <p>
+ * Type checks of the rules must only depend on the checked type, and field checks on the field and the input types
+ * reachable from its arguments, so their results can be reused by the subsequent validations, see {@link SchemaValidationCache}.
+ * For the same reason, type checks of different types can run concurrently when a fork-join pool is provided,
+ * the errors are still reported in the order of {@link GraphQLSchema#getAllTypesAsList()}.
+ */
 @Internal
 public class SchemaValidator {
 
+  private static final int PARALLEL_CHUNK_SIZE = 128;
+
   private final Set<GraphQLOutputType> processed = new LinkedHashSet<>();
 
   private List<SchemaValidationRule> rules = new ArrayList<>();
 
+  private final @Nullable SchemaValidationCache cache;
+  private final @Nullable ForkJoinPool forkJoinPool;
+
+  private int reusedTypesCount;
+  private int validatedTypesCount;
+
   public SchemaValidator() {
+    this((SchemaValidationCache)null);
+  }
+
+  public SchemaValidator(@Nullable SchemaValidationCache cache) {
+    this(cache, null);
+  }
+
+  /**
+   * @param forkJoinPool a pool to run the type checks in parallel, or null to run them in the calling thread
+   */
+  public SchemaValidator(@Nullable SchemaValidationCache cache, @Nullable ForkJoinPool forkJoinPool) {
+    this.cache = cache;
+    this.forkJoinPool = forkJoinPool;
     rules.add(new NoUnbrokenInputCycles());
     rules.add(new TypeAndFieldRule());
   }
 
   SchemaValidator(List<SchemaValidationRule> rules) {
     this.rules = rules;
+    this.cache = null;
+    this.forkJoinPool = null;
   }
 
   public List<SchemaValidationRule> getRules() {
@@ -51,37 +101,171 @@ public class SchemaValidator {
 
   public Set<SchemaValidationError> validateSchema(GraphQLSchema schema) {
     SchemaValidationErrorCollector validationErrorCollector = new SchemaValidationErrorCollector();
+    reusedTypesCount = 0;
+    validatedTypesCount = 0;
+    Map<String, TypeResult> results = collectTypeResults(schema);
 
-    checkTypes(schema, validationErrorCollector);
+    checkTypes(schema, results, validationErrorCollector);
     checkSchema(schema, validationErrorCollector);
 
-    traverse(schema.getQueryType(), rules, validationErrorCollector);
+    traverse(schema.getQueryType(), results, validationErrorCollector);
     if (schema.isSupportingMutations()) {
-      traverse(schema.getMutationType(), rules, validationErrorCollector);
+      traverse(schema.getMutationType(), results, validationErrorCollector);
     }
     if (schema.isSupportingSubscriptions()) {
-      traverse(schema.getSubscriptionType(), rules, validationErrorCollector);
+      traverse(schema.getSubscriptionType(), results, validationErrorCollector);
+    }
+
+    if (cache != null) {
+      cache.update(results, reusedTypesCount, validatedTypesCount);
     }
     return validationErrorCollector.getErrors();
   }
 
+  /**
+   * Takes the results of the unchanged types from the cache and creates empty results for the others.
+   */
+  private @NotNull Map<String, TypeResult> collectTypeResults(@NotNull GraphQLSchema schema) {
+    Map<String, TypeResult> previousResults = cache != null ? cache.getResults() : Collections.emptyMap();
+    List<GraphQLNamedType> types = schema.getAllTypesAsList();
+    Map<String, TypeResult> results = new HashMap<>();
+    // removed types are also changed, an input type could be replaced by a type of another kind
+    Set<String> changedTypes = new HashSet<>(previousResults.keySet());
+
+    for (GraphQLNamedType type : types) {
+      List<Object> sources = SchemaValidationCache.getSources(type);
+      TypeResult previousResult = previousResults.get(type.getName());
+      if (previousResult != null && previousResult.isBuiltFrom(sources)) {
+        results.put(type.getName(), previousResult);
+        changedTypes.remove(type.getName());
+      }
+      else {
+        results.put(type.getName(), new TypeResult(sources));
+        changedTypes.add(type.getName());
+      }
+    }
+
+    if (changedTypes.isEmpty()) {
+      return results;
+    }
+
+    Set<String> staleInputTypes = collectStaleInputTypes(types, changedTypes);
+    for (GraphQLNamedType type : types) {
+      TypeResult result = results.get(type.getName());
+      if (result.fieldErrors != null && type instanceof GraphQLFieldsContainer container && hasArgumentOfType(container, staleInputTypes)) {
+        result.fieldErrors = null;
+      }
+    }
+    return results;
+  }
+
+  /**
+   * @return the changed types and the input types which reach any of them through their fields
+   */
+  private static @NotNull Set<String> collectStaleInputTypes(@NotNull List<GraphQLNamedType> types, @NotNull Set<String> changedTypes) {
+    Map<String, List<String>> dependentInputTypes = new HashMap<>();
+    for (GraphQLNamedType type : types) {
+      if (type instanceof GraphQLInputObjectType inputObjectType) {
+        for (GraphQLInputObjectField field : inputObjectType.getFieldDefinitions()) {
+          String fieldTypeName = unwrapAll(field.getType()).getName();
+          dependentInputTypes.computeIfAbsent(fieldTypeName, __ -> new ArrayList<>()).add(type.getName());
+        }
+      }
+    }
+
+    Set<String> staleTypes = new HashSet<>(changedTypes);
+    Deque<String> queue = new ArrayDeque<>(changedTypes);
+    while (!queue.isEmpty()) {
+      for (String dependent : dependentInputTypes.getOrDefault(queue.poll(), Collections.emptyList())) {
+        if (staleTypes.add(dependent)) {
+          queue.add(dependent);
+        }
+      }
+    }
+    return staleTypes;
+  }
+
+  private static boolean hasArgumentOfType(@NotNull GraphQLFieldsContainer container, @NotNull Set<String> typeNames) {
+    for (GraphQLFieldDefinition fieldDefinition : container.getFieldDefinitions()) {
+      for (GraphQLArgument argument : fieldDefinition.getArguments()) {
+        if (typeNames.contains(unwrapAll(argument.getType()).getName())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   private void checkSchema(GraphQLSchema schema, SchemaValidationErrorCollector validationErrorCollector) {
     for (SchemaValidationRule rule : rules) {
       rule.check(schema, validationErrorCollector);
     }
   }
 
-  private void checkTypes(GraphQLSchema schema, SchemaValidationErrorCollector validationErrorCollector) {
+  private void checkTypes(GraphQLSchema schema,
+                          Map<String, TypeResult> results,
+                          SchemaValidationErrorCollector validationErrorCollector) {
     List<GraphQLNamedType> types = schema.getAllTypesAsList();
-    types.forEach(type -> {
-      for (SchemaValidationRule rule : rules) {
-        rule.check(type, validationErrorCollector);
+    List<GraphQLNamedType> pendingTypes = ContainerUtil.filter(types, type -> results.get(type.getName()).typeErrors == null);
+    if (forkJoinPool != null && pendingTypes.size() > PARALLEL_CHUNK_SIZE) {
+      checkTypesInParallel(pendingTypes, results, forkJoinPool);
+    }
+    else {
+      for (GraphQLNamedType type : pendingTypes) {
+        checkType(type, results.get(type.getName()));
       }
-    });
+    }
+    validatedTypesCount += pendingTypes.size();
+    reusedTypesCount += types.size() - pendingTypes.size();
+
+    for (GraphQLNamedType type : types) {
+      results.get(type.getName()).typeErrors.forEach(validationErrorCollector::addError);
+    }
+  }
+
+  /**
+   * Each type is checked with its own collector, so the rules don't share any state between the threads,
+   * and the errors are merged afterward in the original order.
+   */
+  private void checkTypesInParallel(@NotNull List<GraphQLNamedType> types,
+                                    @NotNull Map<String, TypeResult> results,
+                                    @NotNull ForkJoinPool forkJoinPool) {
+    AtomicBoolean isCancelled = new AtomicBoolean();
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (int start = 0; start < types.size(); start += PARALLEL_CHUNK_SIZE) {
+      List<GraphQLNamedType> chunk = types.subList(start, Math.min(start + PARALLEL_CHUNK_SIZE, types.size()));
+      tasks.add(forkJoinPool.submit(() -> {
+        for (GraphQLNamedType type : chunk) {
+          if (isCancelled.get()) return;
+          checkType(type, results.get(type.getName()));
+        }
+      }));
+    }
+
+    try {
+      // the workers don't see the cancellation of the calling thread, so it's checked while waiting for them
+      for (ForkJoinTask<?> task : tasks) {
+        ProgressIndicatorUtils.awaitWithCheckCanceled(task);
+      }
+    }
+    catch (Throwable e) {
+      isCancelled.set(true);
+      throw e;
+    }
+  }
+
+  private void checkType(@NotNull GraphQLNamedType type, @NotNull TypeResult result) {
+    SchemaValidationErrorCollector typeErrorCollector = new SchemaValidationErrorCollector();
+    for (SchemaValidationRule rule : rules) {
+      rule.check(type, typeErrorCollector);
+    }
+    result.typeErrors = typeErrorCollector.getErrors().isEmpty()
+                        ? Collections.emptyList()
+                        : new ArrayList<>(typeErrorCollector.getErrors());
   }
 
   private void traverse(GraphQLOutputType root,
-                        List<SchemaValidationRule> rules,
+                        Map<String, TypeResult> results,
                         SchemaValidationErrorCollector validationErrorCollector) {
     if (processed.contains(root)) {
       return;
@@ -90,12 +274,35 @@ public class SchemaValidator {
     if (root instanceof GraphQLFieldsContainer) {
       // this deliberately has open field visibility here since its validating the schema
       // when completely open
-      for (GraphQLFieldDefinition fieldDefinition : ((GraphQLFieldsContainer)root).getFieldDefinitions()) {
-        for (SchemaValidationRule rule : rules) {
-          rule.check(fieldDefinition, validationErrorCollector);
-        }
-        traverse(fieldDefinition.getType(), rules, validationErrorCollector);
+      List<GraphQLFieldDefinition> fieldDefinitions = ((GraphQLFieldsContainer)root).getFieldDefinitions();
+      List<List<SchemaValidationError>> fieldErrors = getFieldErrors((GraphQLFieldsContainer)root, results);
+      for (int i = 0; i < fieldDefinitions.size(); i++) {
+        fieldErrors.get(i).forEach(validationErrorCollector::addError);
+        traverse(fieldDefinitions.get(i).getType(), results, validationErrorCollector);
       }
     }
   }
+
+  private @NotNull List<List<SchemaValidationError>> getFieldErrors(@NotNull GraphQLFieldsContainer container,
+                                                                    @NotNull Map<String, TypeResult> results) {
+    TypeResult result = results.get(container.getName());
+    if (result != null && result.fieldErrors != null) {
+      return result.fieldErrors;
+    }
+
+    List<List<SchemaValidationError>> fieldErrors = new ArrayList<>();
+    for (GraphQLFieldDefinition fieldDefinition : container.getFieldDefinitions()) {
+      SchemaValidationErrorCollector fieldErrorCollector = new SchemaValidationErrorCollector();
+      for (SchemaValidationRule rule : rules) {
+        rule.check(fieldDefinition, fieldErrorCollector);
+      }
+      fieldErrors.add(fieldErrorCollector.getErrors().isEmpty()
+                      ? Collections.emptyList()
+                      : new ArrayList<>(fieldErrorCollector.getErrors()));
+    }
+    if (result != null) {
+      result.fieldErrors = fieldErrors;
+    }
+    return fieldErrors;
+  }
 }
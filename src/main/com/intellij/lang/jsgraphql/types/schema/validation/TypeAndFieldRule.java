@@ -33,11 +33,8 @@ import com.intellij.lang.jsgraphql.types.schema.GraphQLScalarType;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLType;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLTypeUtil;
-import com.intellij.lang.jsgraphql.types.util.FpKit;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.function.Predicate;
 
 import static com.intellij.lang.jsgraphql.types.introspection.Introspection.isIntrospectionTypes;
 import static com.intellij.lang.jsgraphql.types.schema.idl.ScalarInfo.isGraphqlSpecifiedScalar;
@@ -57,22 +54,12 @@ public class TypeAndFieldRule implements SchemaValidationRule {
 
   @Override
   public void check(GraphQLSchema graphQLSchema, SchemaValidationErrorCollector validationErrorCollector) {
-
-    List<GraphQLNamedType> allTypesAsList = graphQLSchema.getAllTypesAsList();
-
-    List<GraphQLNamedType> filteredType = filterBuiltInTypes(allTypesAsList);
-
-    checkTypes(filteredType, validationErrorCollector);
   }
 
-
-  private void checkTypes(List<GraphQLNamedType> customizedType, SchemaValidationErrorCollector errorCollector) {
-    if (customizedType == null || customizedType.isEmpty()) {
-      return;
-    }
-
-    for (GraphQLType type : customizedType) {
-      checkType(type, errorCollector);
+  @Override
+  public void check(GraphQLType type, SchemaValidationErrorCollector validationErrorCollector) {
+    if (type instanceof GraphQLNamedType && !isBuiltInType((GraphQLNamedType)type)) {
+      checkType(type, validationErrorCollector);
     }
   }
 
@@ -246,30 +233,14 @@ public class TypeAndFieldRule implements SchemaValidationRule {
     }
   }
 
-  private List<GraphQLNamedType> filterBuiltInTypes(List<GraphQLNamedType> graphQLNamedTypes) {
-    if (graphQLNamedTypes == null || graphQLNamedTypes.isEmpty()) {
-      return Collections.emptyList();
-    }
-
-    Predicate<GraphQLNamedType> filterFunction = namedType -> {
-      if (isIntrospectionTypes(namedType)) {
-        return false;
-      }
-      if (namedType instanceof GraphQLScalarType && isGraphqlSpecifiedScalar((GraphQLScalarType)namedType)) {
-        return false;
-      }
+  private static boolean isBuiltInType(GraphQLNamedType namedType) {
+    if (isIntrospectionTypes(namedType)) {
       return true;
-    };
-
-    return FpKit.filterList(graphQLNamedTypes, filterFunction);
+    }
+    return namedType instanceof GraphQLScalarType && isGraphqlSpecifiedScalar((GraphQLScalarType)namedType);
   }
 
-
   @Override
   public void check(GraphQLFieldDefinition fieldDef, SchemaValidationErrorCollector validationErrorCollector) {
   }
-
-  @Override
-  public void check(GraphQLType type, SchemaValidationErrorCollector validationErrorCollector) {
-  }
 }
@@ -18,25 +18,22 @@
 package com.intellij.lang.jsgraphql.types.validation.rules;
 
 
-import com.intellij.lang.jsgraphql.types.Assert;
 import com.intellij.lang.jsgraphql.types.Internal;
 import com.intellij.lang.jsgraphql.types.execution.TypeFromAST;
 import com.intellij.lang.jsgraphql.types.language.FragmentDefinition;
 import com.intellij.lang.jsgraphql.types.language.FragmentSpread;
 import com.intellij.lang.jsgraphql.types.language.InlineFragment;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLCompositeType;
-import com.intellij.lang.jsgraphql.types.schema.GraphQLInterfaceType;
-import com.intellij.lang.jsgraphql.types.schema.GraphQLObjectType;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLOutputType;
+import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema;
 import com.intellij.lang.jsgraphql.types.schema.GraphQLType;
-import com.intellij.lang.jsgraphql.types.schema.GraphQLUnionType;
 import com.intellij.lang.jsgraphql.types.validation.AbstractRule;
 import com.intellij.lang.jsgraphql.types.validation.ValidationContext;
 import com.intellij.lang.jsgraphql.types.validation.ValidationErrorCollector;
 import com.intellij.lang.jsgraphql.types.validation.ValidationErrorType;
 
 import java.util.Collections;
-import java.util.List;
+import java.util.Set;
 
 import static com.intellij.lang.jsgraphql.types.schema.GraphQLTypeUtil.simplePrint;
 
@@ -82,29 +79,14 @@ public class PossibleFragmentSpreads extends AbstractRule {
       return true;
     }
 
-    List<? extends GraphQLType> possibleParentTypes = getPossibleType(parent);
-    List<? extends GraphQLType> possibleConditionTypes = getPossibleType(type);
+    // both are sets, so it's linear in the size of the smaller one
+    GraphQLSchema schema = getValidationContext().getSchema();
+    Set<String> possibleParentTypes = schema.getPossibleTypeNames(parent);
+    Set<String> possibleConditionTypes = schema.getPossibleTypeNames((GraphQLCompositeType)type);
 
     return !Collections.disjoint(possibleParentTypes, possibleConditionTypes);
   }
 
-  private List<? extends GraphQLType> getPossibleType(GraphQLType type) {
-    List<? extends GraphQLType> possibleConditionTypes = null;
-    if (type instanceof GraphQLObjectType) {
-      possibleConditionTypes = Collections.singletonList(type);
-    }
-    else if (type instanceof GraphQLInterfaceType) {
-      possibleConditionTypes = getValidationContext().getSchema().getImplementations((GraphQLInterfaceType)type);
-    }
-    else if (type instanceof GraphQLUnionType) {
-      possibleConditionTypes = ((GraphQLUnionType)type).getTypes();
-    }
-    else {
-      Assert.assertShouldNeverHappen();
-    }
-    return possibleConditionTypes;
-  }
-
   /**
    * Per spec: The target type of fragment (type condition)
    * must have kind UNION, INTERFACE, or OBJECT.
@@ -7,8 +7,18 @@
  */
 package com.intellij.lang.jsgraphql.completion
 
+import com.intellij.codeInsight.completion.CompletionType
+import com.intellij.codeInsight.lookup.impl.LookupImpl
+import com.intellij.lang.jsgraphql.GraphQLBundle
 import com.intellij.lang.jsgraphql.GraphQLCompletionTestCaseBase
+import com.intellij.lang.jsgraphql.schema.GraphQLSchemaProvider
+import com.intellij.openapi.application.EDT
+import com.intellij.openapi.application.edtWriteAction
+import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.progress.runBlockingCancellable
+import com.intellij.psi.PsiDocumentManager
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
 
 class GraphQLSchemaCompletionTest : GraphQLCompletionTestCaseBase() {
   override fun getBasePath(): String {
@@ -199,4 +209,24 @@ class GraphQLSchemaCompletionTest : GraphQLCompletionTestCaseBase() {
     val lookupElements = doTest()
     checkEqualsOrdered(lookupElements, "ASC", "DESC")
   }
+
+  fun testFieldTypeFromStaleSchema() = runBlockingCancellable {
+    val file = myFixture.configureByText("schema.graphql", "type Query { field: <caret> }\ntype Known { id: ID }\n")
+    val schemaProvider = GraphQLSchemaProvider.getInstance(project)
+    schemaProvider.allowStaleSchemaInTests(testRootDisposable)
+    assertNotNull(schemaProvider.getSchemaInfo(file).schema.getType("Known"))
+
+    edtWriteAction {
+      val document = FileDocumentManager.getInstance().getDocument(file.virtualFile)!!
+      document.insertString(document.textLength, "type Added { id: ID }\n")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+
+    // the previous schema is used right away, and the user is told the variants may be incomplete
+    val lookupElements = withContext(Dispatchers.EDT) { myFixture.complete(CompletionType.BASIC, 1) }
+    checkContainsAll(lookupElements, "Known")
+    checkDoesNotContain(lookupElements, "Added")
+    val advertisements = withContext(Dispatchers.EDT) { (myFixture.lookup as LookupImpl).advertisements }
+    assertContainsElements(advertisements, GraphQLBundle.message("graphql.completion.schema.is.being.updated"))
+  }
 }
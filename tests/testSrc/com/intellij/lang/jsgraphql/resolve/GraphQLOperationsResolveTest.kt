@@ -2,6 +2,7 @@ package com.intellij.lang.jsgraphql.resolve
 
 import com.intellij.lang.jsgraphql.GraphQLResolveTestCaseBase
 import com.intellij.lang.jsgraphql.psi.GraphQLDirectiveDefinition
+import com.intellij.lang.jsgraphql.psi.GraphQLEnumValueDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLFieldDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLInputValueDefinition
@@ -81,6 +82,14 @@ class GraphQLOperationsResolveTest : GraphQLResolveTestCaseBase() {
     doResolveWithOffsetTest(GraphQLInputValueDefinition::class.java, "after")
   }
 
+  fun testFieldArgumentExtension() = runBlockingCancellable<Unit> {
+    doResolveWithOffsetTest(GraphQLInputValueDefinition::class.java, "after")
+  }
+
+  fun testQueryFieldExtension() = runBlockingCancellable<Unit> {
+    doResolveWithOffsetTest(GraphQLFieldDefinition::class.java, "user")
+  }
+
   fun testDirectiveArgument() = runBlockingCancellable<Unit> {
     doResolveWithOffsetTest(GraphQLInputValueDefinition::class.java, "second")
   }
@@ -93,6 +102,14 @@ class GraphQLOperationsResolveTest : GraphQLResolveTestCaseBase() {
     doResolveWithOffsetTest(GraphQLInputValueDefinition::class.java, "address")
   }
 
+  fun testInputValueExtension() = runBlockingCancellable<Unit> {
+    doResolveWithOffsetTest(GraphQLInputValueDefinition::class.java, "email")
+  }
+
+  fun testEnumValueExtension() = runBlockingCancellable<Unit> {
+    doResolveWithOffsetTest(GraphQLEnumValueDefinition::class.java, "ADMIN")
+  }
+
   fun testInputValueNested() = runBlockingCancellable<Unit> {
     doResolveWithOffsetTest(GraphQLInputValueDefinition::class.java, "zip")
   }
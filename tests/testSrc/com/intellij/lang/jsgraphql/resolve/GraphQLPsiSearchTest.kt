@@ -1,13 +1,21 @@
 package com.intellij.lang.jsgraphql.resolve
 
 import com.intellij.lang.jsgraphql.GraphQLTestCaseBase
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex.Definition
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex.IdentifierKind
+import com.intellij.lang.jsgraphql.ide.indexing.GraphQLIdentifierIndex.Identifiers
 import com.intellij.lang.jsgraphql.ide.search.GraphQLPsiSearchHelper
 import com.intellij.lang.jsgraphql.psi.GraphQLFile
+import com.intellij.lang.jsgraphql.psi.GraphQLFragmentDefinition
+import com.intellij.lang.jsgraphql.psi.GraphQLIdentifier
 import com.intellij.openapi.application.smartReadAction
 import com.intellij.openapi.progress.runBlockingCancellable
 import com.intellij.psi.PsiNamedElement
 import com.intellij.psi.search.GlobalSearchScope
 import com.intellij.util.CommonProcessors
+import com.intellij.util.indexing.FileBasedIndex
+import java.util.EnumSet
 
 class GraphQLPsiSearchTest : GraphQLTestCaseBase() {
   override fun getBasePath(): String = "/resolve/search"
@@ -22,6 +30,32 @@ class GraphQLPsiSearchTest : GraphQLTestCaseBase() {
     assertSameElements(actual, listOf("SomeFragmentInJs", "SomeFragmentInTs", "FragmentInVue"))
   }
 
+  fun testFragmentsFromIndex() = runBlockingCancellable {
+    myFixture.addFileToProject("fragments.graphql", "fragment UserFields on User { id }\nfragment RoleFields on Role { id }")
+    val file = myFixture.configureByText("query.graphql", "query { user { ...UserFields } }")
+
+    val fragments = smartReadAction(project) {
+      val fragments = mutableListOf<Pair<String, String>>()
+      GraphQLPsiSearchHelper.getInstance(project).processFragments(file) { name, typeCondition ->
+        fragments.add(name to typeCondition)
+      }
+      fragments
+    }
+    assertSameElements(fragments, listOf("UserFields" to "User", "RoleFields" to "Role"))
+
+    val definitions = smartReadAction(project) {
+      val processor = CommonProcessors.CollectProcessor<GraphQLFragmentDefinition>()
+      GraphQLPsiSearchHelper.getInstance(project).processFragmentDefinitions(file, "UserFields", processor)
+      processor.results.map { it.name }
+    }
+    assertSameElements(definitions, listOf("UserFields"))
+
+    val allDefinitions = smartReadAction(project) {
+      GraphQLPsiSearchHelper.getInstance(project).findFragmentDefinitions(file).map { it.name }
+    }
+    assertSameElements(allDefinitions, listOf("UserFields", "RoleFields"))
+  }
+
   fun testNamedElements() = runBlockingCancellable {
     initTestProject()
     val expectedNames = listOf("User", "userId", "userName", "UserInput", "newUserId", "newUserName", "UserRole", "ADMIN", "USER")
@@ -38,6 +72,51 @@ class GraphQLPsiSearchTest : GraphQLTestCaseBase() {
     assertSameElements(actual, expectedNames)
   }
 
+  fun testIdentifierIndex() = runBlockingCancellable {
+    val text = "type User { id: ID, friend: User }\nenum Role { ADMIN }\nquery { user { id } }\nextend type User { name: String }"
+    val file = myFixture.addFileToProject("schema.graphql", text).virtualFile
+
+    val identifiers = smartReadAction(project) { FileBasedIndex.getInstance().getFileData(GraphQLIdentifierIndex.NAME, file, project) }
+    assertEquals(
+      Identifiers(
+        listOf(
+          Definition(IdentifierKind.TYPE_DEFINITION, text.indexOf("User")),
+          Definition(IdentifierKind.TYPE_EXTENSION, text.lastIndexOf("User")),
+        ),
+        true,
+      ),
+      identifiers["User"],
+    )
+    assertEquals(Identifiers(listOf(Definition(IdentifierKind.FIELD_DEFINITION, text.indexOf("id"))), true), identifiers["id"])
+    assertEquals(Identifiers(listOf(Definition(IdentifierKind.ENUM_VALUE_DEFINITION, text.indexOf("ADMIN"))), false), identifiers["ADMIN"])
+    // the usages are only flagged, their offsets aren't stored
+    assertEquals(Identifiers(emptyList(), true), identifiers["user"])
+    assertEquals(Identifiers(emptyList(), true), identifiers["ID"])
+  }
+
+  fun testNamedElementsOfKinds() = runBlockingCancellable {
+    myFixture.addFileToProject("schema.graphql", "type User { user: User }\ntype Query { user: User }")
+    myFixture.addFileToProject("query.graphql", "query { user { user { __typename } } }")
+
+    fun findIdentifiers(name: String, vararg kinds: IdentifierKind): List<String> {
+      val processor = CommonProcessors.CollectProcessor<GraphQLIdentifier>()
+      GraphQLPsiSearchHelper.getInstance(project)
+        .processNamedElements(project, name, EnumSet.copyOf(kinds.toList()), GlobalSearchScope.projectScope(project), processor)
+      return processor.results.map { "${it.containingFile.name}:${it.textOffset}" }
+    }
+
+    smartReadAction(project) {
+      assertSameElements(findIdentifiers("User", IdentifierKind.TYPE_DEFINITION), "schema.graphql:5")
+      assertSameElements(findIdentifiers("user", IdentifierKind.FIELD_DEFINITION), "schema.graphql:12", "schema.graphql:38")
+      assertEmpty(findIdentifiers("User", IdentifierKind.FIELD_DEFINITION, IdentifierKind.DIRECTIVE_DEFINITION))
+      assertSameElements(findIdentifiers("User", IdentifierKind.USAGE), "schema.graphql:18", "schema.graphql:44")
+      assertSameElements(
+        findIdentifiers("user", IdentifierKind.USAGE, IdentifierKind.FIELD_DEFINITION),
+        "schema.graphql:12", "schema.graphql:38", "query.graphql:8", "query.graphql:15",
+      )
+    }
+  }
+
   fun testInjections() = runBlockingCancellable {
     initTestProject()
     val actual = smartReadAction(project) {
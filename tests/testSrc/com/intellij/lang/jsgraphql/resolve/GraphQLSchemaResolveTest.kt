@@ -10,7 +10,10 @@ import com.intellij.lang.jsgraphql.psi.GraphQLInterfaceTypeDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLObjectTypeDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLScalarTypeDefinition
 import com.intellij.lang.jsgraphql.psi.GraphQLUnionTypeDefinition
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.progress.runBlockingCancellable
+import com.intellij.psi.PsiDocumentManager
 
 class GraphQLSchemaResolveTest : GraphQLResolveTestCaseBase() {
   override fun getBasePath(): String {
@@ -156,4 +159,25 @@ class GraphQLSchemaResolveTest : GraphQLResolveTestCaseBase() {
   fun testUnionTypeMemberCircular() = runBlockingCancellable<Unit> {
     doResolveWithOffsetTest(GraphQLUnionTypeDefinition::class.java, "U")
   }
+
+  fun testTypeNameAfterDefinitionChanges() {
+    val definitionFile = myFixture.addFileToProject("user.graphql", "type User { id: ID }")
+    myFixture.configureByText("schema.graphql", "type Query { user: Us<caret>er }")
+
+    fun resolve() = myFixture.getReferenceAtCaretPosition()!!.resolve()
+
+    fun setDefinitionText(text: String) {
+      WriteCommandAction.runWriteCommandAction(project) {
+        val document = FileDocumentManager.getInstance().getDocument(definitionFile.virtualFile)!!
+        document.setText(text)
+        PsiDocumentManager.getInstance(project).commitDocument(document)
+      }
+    }
+
+    assertEquals("User", resolve()?.text)
+    setDefinitionText("type Person { id: ID }")
+    assertNull(resolve())
+    setDefinitionText("type Person { id: ID }\ntype User { id: ID }")
+    assertEquals("User", resolve()?.text)
+  }
 }
@@ -0,0 +1,202 @@
+package com.intellij.lang.jsgraphql.schema
+
+import com.intellij.lang.jsgraphql.GraphQLFileType
+import com.intellij.lang.jsgraphql.GraphQLTestCaseBase
+import com.intellij.lang.jsgraphql.psi.GraphQLFile
+import com.intellij.lang.jsgraphql.schema.builder.GraphQLCompositeRegistry
+import com.intellij.lang.jsgraphql.types.language.Document
+import com.intellij.lang.jsgraphql.types.language.NamedNode
+import com.intellij.lang.jsgraphql.types.language.Node
+import com.intellij.lang.jsgraphql.types.schema.GraphQLSchema
+import com.intellij.lang.jsgraphql.types.schema.idl.TypeDefinitionRegistry
+import com.intellij.lang.jsgraphql.types.schema.idl.UnExecutableSchemaGenerator
+import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidator
+import com.intellij.openapi.application.readAction
+import com.intellij.openapi.diagnostic.logger
+import com.intellij.openapi.progress.runBlockingCancellable
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.psi.PsiFileFactory
+import com.intellij.psi.SyntaxTraverser
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.util.Collections
+import java.util.IdentityHashMap
+
+/**
+ * Measures the stages of a schema build on the large real-world schemas from the test data:
+ * parsing, PSI to AST conversion, composite registry build, schema generation and validation.
+ *
+ * The benchmarks are excluded from the default test run, enable them with `-Dgraphql.schema.benchmark=true`.
+ * By default, each stage runs once, so the test only checks that the pipeline works.
+ * To get the numbers, run it with `-Dgraphql.schema.benchmark.iterations=50 -Dgraphql.schema.benchmark.warmup=10`,
+ * they are reported to the test log.
+ */
+class GraphQLSchemaBuildBenchmarkTest : GraphQLTestCaseBase() {
+
+  companion object {
+    private val LOG = logger<GraphQLSchemaBuildBenchmarkTest>()
+
+    private const val STRING_SIZE = 24L
+    private const val ARRAY_HEADER_SIZE = 16
+
+    private val IS_ENABLED = java.lang.Boolean.getBoolean("graphql.schema.benchmark")
+    private val ITERATIONS = Integer.getInteger("graphql.schema.benchmark.iterations", 1)
+    private val WARMUP_ITERATIONS = Integer.getInteger("graphql.schema.benchmark.warmup", 0)
+  }
+
+  override fun getBasePath() = "/resolve/schema"
+
+  override fun shouldRunTest(): Boolean = IS_ENABLED && super.shouldRunTest()
+
+  fun testGithubSchema() = runBlockingCancellable {
+    doBenchmark("GithubSchema.graphql")
+  }
+
+  fun testBitQuerySchema() = runBlockingCancellable {
+    doBenchmark("BitQuerySchema.graphql")
+  }
+
+  fun testAniListSchema() = runBlockingCancellable {
+    doBenchmark("AniListSchema.graphql")
+  }
+
+  fun testGithubSchemaSharedStrings() = runBlockingCancellable {
+    val fileName = "GithubSchema.graphql"
+    val text = FileUtil.loadFile(File(testDataPath, fileName))
+
+    suspend fun createDocuments(): Pair<List<Node<*>>, List<Node<*>>> = readAction {
+      val (first, second) = List(2) {
+        val file = PsiFileFactory.getInstance(project).createFileFromText(fileName, GraphQLFileType.INSTANCE, text) as GraphQLFile
+        collectNodes(GraphQLPsiDocumentBuilder(file).createDocument())
+      }
+      first to second
+    }
+
+    val (first, second) = createDocuments()
+    assertEquals(first.size, second.size)
+    for ((firstNode, secondNode) in first.zip(second)) {
+      if (firstNode is NamedNode<*> && secondNode is NamedNode<*>) {
+        assertSame(firstNode.name, secondNode.name)
+      }
+      assertSame(firstNode.sourceLocation?.sourceName, secondNode.sourceLocation?.sourceName)
+      assertSame(firstNode.additionalData, secondNode.additionalData)
+    }
+
+    val disposable = Disposer.newDisposable()
+    val (firstNotInterned, secondNotInterned) = try {
+      GraphQLAstInterner.disableInTests(disposable)
+      createDocuments()
+    }
+    finally {
+      Disposer.dispose(disposable)
+    }
+
+    // two copies of the same schema, as it happens for the scopes with different documents
+    val internedSize = estimateStringsSize(first + second)
+    val notInternedSize = estimateStringsSize(firstNotInterned + secondNotInterned)
+    LOG.info("Strings retained by the nodes of two $fileName documents: " +
+             "interned ${internedSize / 1024} KB, not interned ${notInternedSize / 1024} KB")
+    assertTrue("interned: $internedSize, not interned: $notInternedSize", internedSize * 2 < notInternedSize)
+  }
+
+  /**
+   * The shallow size of the distinct names and source paths referenced by the nodes, assuming compact Latin-1 strings.
+   * The other objects of the nodes are the same with and without interning, so only the strings are compared.
+   */
+  private fun estimateStringsSize(nodes: List<Node<*>>): Long {
+    val strings = Collections.newSetFromMap(IdentityHashMap<String, Boolean>())
+    for (node in nodes) {
+      if (node is NamedNode<*>) node.name?.let { strings.add(it) }
+      node.sourceLocation?.sourceName?.let { strings.add(it) }
+    }
+    return strings.sumOf { STRING_SIZE + alignObjectSize(ARRAY_HEADER_SIZE + it.length) }
+  }
+
+  private fun alignObjectSize(size: Int): Long = ((size + 7) / 8 * 8).toLong()
+
+  private fun collectNodes(root: Node<*>): List<Node<*>> {
+    val nodes = mutableListOf<Node<*>>()
+    val pending = ArrayDeque<Node<*>>().apply { add(root) }
+    while (pending.isNotEmpty()) {
+      val node = pending.removeFirst()
+      nodes.add(node)
+      node.children.forEach { pending.add(it) }
+    }
+    return nodes
+  }
+
+  private suspend fun doBenchmark(fileName: String) {
+    val text = FileUtil.loadFile(File(testDataPath, fileName))
+    val stats = linkedMapOf<String, StageStatistics>()
+
+    fun <T> measure(stage: String, isWarmup: Boolean, block: () -> T): T {
+      val allocatedBefore = getAllocatedBytes()
+      val start = System.nanoTime()
+      val result = block()
+      val nanos = System.nanoTime() - start
+      val allocated = getAllocatedBytes() - allocatedBefore
+      if (!isWarmup) {
+        stats.getOrPut(stage) { StageStatistics() }.add(nanos, allocated)
+      }
+      return result
+    }
+
+    var schema: GraphQLSchema? = null
+    readAction {
+      repeat(WARMUP_ITERATIONS + ITERATIONS) { iteration ->
+        val isWarmup = iteration < WARMUP_ITERATIONS
+
+        val file = measure("parse", isWarmup) {
+          val file = PsiFileFactory.getInstance(project).createFileFromText(fileName, GraphQLFileType.INSTANCE, text) as GraphQLFile
+          SyntaxTraverser.astTraverser(file.node).traverse().size()
+          file
+        }
+        val document: Document = measure("psi to ast", isWarmup) {
+          GraphQLPsiDocumentBuilder(file).createDocument()
+        }
+        val registry: TypeDefinitionRegistry = measure("composite registry", isWarmup) {
+          GraphQLCompositeRegistry().apply { addFromDocument(document) }.build()
+        }
+        val currentSchema = measure("schema generation", isWarmup) {
+          UnExecutableSchemaGenerator.makeUnExecutableSchema(registry)
+        }
+        measure("schema validation", isWarmup) {
+          SchemaValidator().validateSchema(currentSchema)
+        }
+        schema = currentSchema
+      }
+    }
+
+    assertNotNull(schema!!.queryType)
+    assertTrue(schema!!.allTypesAsList.size > 100)
+
+    LOG.info(buildString {
+      append("Schema build benchmark: $fileName, iterations: $ITERATIONS, warmup: $WARMUP_ITERATIONS")
+      stats.forEach { (stage, statistics) -> append("\n  $stage: $statistics") }
+    })
+  }
+
+  private fun getAllocatedBytes(): Long {
+    val threadBean = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean ?: return 0
+    return threadBean.getThreadAllocatedBytes(Thread.currentThread().id)
+  }
+
+  private class StageStatistics {
+    private val nanos = mutableListOf<Long>()
+    private val allocatedBytes = mutableListOf<Long>()
+
+    fun add(nanos: Long, allocated: Long) {
+      this.nanos.add(nanos)
+      allocatedBytes.add(allocated)
+    }
+
+    override fun toString(): String {
+      val sorted = nanos.sorted()
+      val median = sorted[sorted.size / 2] / 1_000_000.0
+      val min = sorted.first() / 1_000_000.0
+      val allocated = allocatedBytes.average() / (1024 * 1024)
+      return "median %.2f ms, min %.2f ms, allocated %.2f MB/op".format(median, min, allocated)
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package com.intellij.lang.jsgraphql.schema
+
+import com.intellij.testFramework.UsefulTestCase
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+
+class GraphQLSchemaBuildSchedulerTest : UsefulTestCase() {
+
+  fun testBackgroundBuildsAreLimited() = runBlocking<Unit> {
+    val scheduler = GraphQLSchemaBuildScheduler(2)
+    val started = mutableListOf<Int>()
+    val gates = List(3) { CompletableDeferred<Unit>() }
+
+    gates.forEachIndexed { index, gate ->
+      launch {
+        scheduler.run({ false }) {
+          started.add(index)
+          gate.await()
+        }
+      }
+    }
+    settle()
+    assertEquals(listOf(0, 1), started)
+
+    gates[1].complete(Unit)
+    settle()
+    assertEquals(listOf(0, 1, 2), started)
+
+    gates[0].complete(Unit)
+    gates[2].complete(Unit)
+  }
+
+  fun testPriorityBuildsAreNotLimited() = runBlocking<Unit> {
+    val scheduler = GraphQLSchemaBuildScheduler(1)
+    val gate = CompletableDeferred<Unit>()
+    var startedCount = 0
+
+    repeat(3) {
+      launch {
+        scheduler.run({ true }) {
+          startedCount++
+          gate.await()
+        }
+      }
+    }
+    settle()
+    assertEquals(3, startedCount)
+    gate.complete(Unit)
+  }
+
+  fun testBackgroundBuildIsSuspendedAtCheckpoint() = runBlocking<Unit> {
+    val scheduler = GraphQLSchemaBuildScheduler(1)
+    val priorityGate = CompletableDeferred<Unit>()
+    val stages = mutableListOf<String>()
+
+    launch { scheduler.run({ true }) { priorityGate.await() } }
+    settle()
+    launch {
+      scheduler.run({ false }) {
+        stages.add("background")
+      }
+    }
+    settle()
+    assertEmpty(stages)
+
+    priorityGate.complete(Unit)
+    settle()
+    assertEquals(listOf("background"), stages)
+  }
+
+  fun testBackgroundBuildIsNotStarved() = runBlocking<Unit> {
+    val scheduler = GraphQLSchemaBuildScheduler(1, maxPriorityBuildsPerCheckpoint = 2)
+    val stages = mutableListOf<String>()
+    val priorityGates = mutableListOf<CompletableDeferred<Unit>>()
+
+    fun CoroutineScope.launchPriorityBuild(): Job {
+      val gate = CompletableDeferred<Unit>()
+      priorityGates.add(gate)
+      return launch { scheduler.run({ true }) { gate.await() } }
+    }
+
+    launchPriorityBuild()
+    settle()
+    launch {
+      scheduler.run({ false }) {
+        stages.add("first stage")
+        scheduler.checkpoint()
+        stages.add("second stage")
+      }
+    }
+    settle()
+    assertEmpty(stages)
+
+    // a new priority build is always started before the previous one is finished
+    launchPriorityBuild()
+    settle()
+    priorityGates[0].complete(Unit)
+    settle()
+    assertEmpty(stages)
+
+    launchPriorityBuild()
+    settle()
+    priorityGates[1].complete(Unit)
+    settle()
+    assertEquals(listOf("first stage"), stages)
+
+    launchPriorityBuild()
+    settle()
+    priorityGates[2].complete(Unit)
+    settle()
+    assertEmpty(stages.drop(1))
+
+    launchPriorityBuild()
+    settle()
+    priorityGates[3].complete(Unit)
+    settle()
+    assertEquals(listOf("first stage", "second stage"), stages)
+
+    priorityGates[4].complete(Unit)
+  }
+
+  fun testQueuedBuildIsPromoted() = runBlocking<Unit> {
+    val scheduler = GraphQLSchemaBuildScheduler(1)
+    val backgroundGate = CompletableDeferred<Unit>()
+    var isSelected = false
+    var isStarted = false
+
+    launch { scheduler.run({ false }) { backgroundGate.await() } }
+    settle()
+    launch { scheduler.run({ isSelected }) { isStarted = true } }
+    settle()
+    assertFalse(isStarted)
+
+    isSelected = true
+    scheduler.onPrioritiesChanged()
+    settle()
+    assertTrue(isStarted)
+
+    backgroundGate.complete(Unit)
+  }
+
+  fun testSuspendedBuildIsPromoted() = runBlocking<Unit> {
+    val scheduler = GraphQLSchemaBuildScheduler(1)
+    val priorityGate = CompletableDeferred<Unit>()
+    var isSelected = false
+    var isStarted = false
+
+    launch { scheduler.run({ true }) { priorityGate.await() } }
+    settle()
+    launch { scheduler.run({ isSelected }) { isStarted = true } }
+    settle()
+    assertFalse(isStarted)
+
+    isSelected = true
+    scheduler.onPrioritiesChanged()
+    settle()
+    assertTrue(isStarted)
+
+    priorityGate.complete(Unit)
+  }
+
+  /**
+   * The test coroutines run on the single thread of [runBlocking], so yielding lets all the resumed ones proceed.
+   */
+  private suspend fun settle() {
+    repeat(10) { yield() }
+  }
+}
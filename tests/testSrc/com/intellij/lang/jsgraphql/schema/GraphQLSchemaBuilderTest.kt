@@ -1,9 +1,31 @@
 package com.intellij.lang.jsgraphql.schema
 
+import com.intellij.lang.jsgraphql.GraphQLFileType
 import com.intellij.lang.jsgraphql.GraphQLTestCaseBase
+import com.intellij.lang.jsgraphql.ide.resolve.GraphQLScopeProvider
+import com.intellij.lang.jsgraphql.psi.GraphQLField
+import com.intellij.lang.jsgraphql.psi.GraphQLFile
+import com.intellij.lang.jsgraphql.schema.builder.GraphQLCompositeRegistry
+import com.intellij.lang.jsgraphql.types.language.AstPrinter
+import com.intellij.lang.jsgraphql.types.language.Document
+import com.intellij.lang.jsgraphql.types.language.ObjectTypeDefinition
 import com.intellij.lang.jsgraphql.types.schema.idl.SchemaPrinter
+import com.intellij.lang.jsgraphql.types.schema.idl.TypeDefinitionRegistry
+import com.intellij.lang.jsgraphql.types.schema.idl.UnExecutableSchemaGenerator
+import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidationCache
+import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidationError
+import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidationErrorType
+import com.intellij.lang.jsgraphql.types.schema.validation.SchemaValidator
+import com.intellij.openapi.application.edtWriteAction
+import com.intellij.openapi.application.readAction
+import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.progress.runBlockingCancellable
+import com.intellij.openapi.util.registry.Registry
+import com.intellij.psi.PsiDocumentManager
 import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiFileFactory
+import com.intellij.psi.util.PsiTreeUtil
+import java.util.concurrent.ForkJoinPool
 import java.util.function.UnaryOperator
 
 class GraphQLSchemaBuilderTest : GraphQLTestCaseBase() {
@@ -61,6 +83,270 @@ class GraphQLSchemaBuilderTest : GraphQLTestCaseBase() {
     doTest()
   }
 
+  fun testIncrementalUpdate() = runBlockingCancellable {
+    initTestProject()
+    val file = myFixture.configureFromTempProjectFile("type1.graphql")!!
+    GraphQLSchemaProvider.getInstance(project).getSchemaInfo(file)
+
+    val changedFile = myFixture.findFileInTempDir("type2.graphql")
+    edtWriteAction {
+      val document = FileDocumentManager.getInstance().getDocument(changedFile)!!
+      document.setText("extend type User {\n  phone: String\n}\n\ntype Added {\n  id: ID\n}\n")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+
+    checkByExpectedSchema(file, null)
+  }
+
+  fun testScopeLocalInvalidation() = runBlockingCancellable {
+    initTestProject()
+    val fooFile = myFixture.configureFromTempProjectFile("foo/schema.graphql")!!
+    val barFile = myFixture.configureFromTempProjectFile("bar/schema.graphql")!!
+    val schemaProvider = GraphQLSchemaProvider.getInstance(project)
+    val fooSchema = schemaProvider.getSchemaInfo(fooFile).schema
+    val barSchema = schemaProvider.getSchemaInfo(barFile).schema
+
+    edtWriteAction {
+      val document = FileDocumentManager.getInstance().getDocument(fooFile.virtualFile)!!
+      document.insertString(document.textLength, "\ntype Foo {\n  id: ID\n}\n")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+
+    assertNotSame(fooSchema, schemaProvider.getSchemaInfo(fooFile).schema)
+    assertSame(barSchema, schemaProvider.getSchemaInfo(barFile).schema)
+  }
+
+  fun testSharedSchema() = runBlockingCancellable {
+    initTestProject()
+    val oneFile = myFixture.configureFromTempProjectFile("one/query.graphql")!!
+    val twoFile = myFixture.configureFromTempProjectFile("two/query.graphql")!!
+    val schemaProvider = GraphQLSchemaProvider.getInstance(project)
+    val schema = schemaProvider.getSchemaInfo(oneFile).schema
+    // the scopes differ only in the documents
+    assertSame(schema, schemaProvider.getSchemaInfo(twoFile).schema)
+
+    edtWriteAction {
+      val document = FileDocumentManager.getInstance().getDocument(oneFile.virtualFile)!!
+      document.insertString(document.text.indexOf("id"), "__typename ")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+    assertSame(schema, schemaProvider.getSchemaInfo(oneFile).schema)
+  }
+
+  fun testTriviaChangesDontRebuildSchema() = runBlockingCancellable {
+    val file = myFixture.configureByText(
+      "schema.graphql",
+      "# comment\ntype Query {\n  \"description\"\n  field: String \n}\n"
+    )
+    val schemaProvider = GraphQLSchemaProvider.getInstance(project)
+    val schema = schemaProvider.getSchemaInfo(file).schema
+
+    suspend fun replace(text: String, replacement: String) {
+      edtWriteAction {
+        val document = FileDocumentManager.getInstance().getDocument(file.virtualFile)!!
+        val offset = document.text.indexOf(text)
+        document.replaceString(offset, offset + text.length, replacement)
+        PsiDocumentManager.getInstance(project).commitDocument(document)
+      }
+    }
+
+    replace("# comment", "# changed comment")
+    replace("String \n", "String\n")
+    assertSame(schema, schemaProvider.getSchemaInfo(file).schema)
+
+    replace("\"description\"", "\"changed description\"")
+    val describedSchema = schemaProvider.getSchemaInfo(file).schema
+    assertNotSame(schema, describedSchema)
+    assertEquals("changed description", describedSchema.queryType!!.getFieldDefinition("field")!!.description)
+
+    replace("field: String", "field: Int")
+    assertNotSame(describedSchema, schemaProvider.getSchemaInfo(file).schema)
+  }
+
+  fun testStaleSchemaServing() = runBlockingCancellable {
+    val file = myFixture.configureByText("schema.graphql", "type Query {\n  field: String\n}\n")
+    val schemaProvider = GraphQLSchemaProvider.getInstance(project)
+    schemaProvider.allowStaleSchemaInTests(testRootDisposable)
+    val scope = readAction { GraphQLScopeProvider.getInstance(project).getResolveScope(file, true) }
+    val schema = schemaProvider.getSchemaInfo(scope).schema
+
+    val actualResult = schemaProvider.getSchemaInfoAllowStale(scope)
+    assertSame(schema, actualResult.schemaInfo.schema)
+    assertFalse(actualResult.isStale)
+
+    edtWriteAction {
+      val document = FileDocumentManager.getInstance().getDocument(file.virtualFile)!!
+      document.insertString(document.textLength, "\ntype Foo {\n  id: ID\n}\n")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+
+    // the previous schema is returned right away while the actual one is being built
+    val staleResult = schemaProvider.getSchemaInfoAllowStale(scope)
+    assertSame(schema, staleResult.schemaInfo.schema)
+    assertTrue(staleResult.isStale)
+    assertEquals(actualResult.modificationStamp, staleResult.modificationStamp)
+
+    val actualSchema = schemaProvider.getSchemaInfo(scope).schema
+    assertNotSame(schema, actualSchema)
+    assertNotNull(actualSchema.getType("Foo"))
+
+    val updatedResult = schemaProvider.getSchemaInfoAllowStale(scope)
+    assertSame(actualSchema, updatedResult.schemaInfo.schema)
+    assertFalse(updatedResult.isStale)
+  }
+
+  fun testCachedTypeScope() = runBlockingCancellable {
+    val schemaFile = myFixture.addFileToProject("schema.graphql", "type Query { user: User }\ntype User { id: ID }\n")
+    val file = myFixture.configureByText("query.graphql", "query { user { id } }")
+    val field = readAction { PsiTreeUtil.findChildrenOfType(file, GraphQLField::class.java).first { it.name == "id" } }
+
+    val typeScope = readAction { field.typeScope }
+    assertEquals("ID", getTypeName(typeScope))
+    assertSame(typeScope, readAction { field.typeScope })
+
+    edtWriteAction {
+      val document = FileDocumentManager.getInstance().getDocument(schemaFile.virtualFile)!!
+      document.setText("type Query { user: User }\ntype User { id: String }\n")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+
+    assertEquals("String", getTypeName(readAction { field.typeScope }))
+  }
+
+  fun testPartialSchemaForTooComplexSchema() = runBlockingCancellable {
+    Registry.get("graphql.schema.size.definitions.limit").setValue(3, testRootDisposable)
+    myFixture.addFileToProject(
+      "schema.graphql",
+      "type Query { a: A, b: B }\ntype A { c: C }\ntype B { id: ID }\ntype C { id: ID, e: E }\nenum E { ONE }\ntype Unused { id: ID }\n"
+    )
+    // processed after the limit is reached
+    myFixture.addFileToProject("types.graphql", "type D { id: ID }\nextend type C { d: D }\ndirective @tag on FIELD")
+    myFixture.addFileToProject("fragments.graphql", "fragment CFields on C { id }")
+    val file = myFixture.configureByText("query.graphql", "query { a { c { ...CFields d @tag { id } } } }")
+
+    val schemaProvider = GraphQLSchemaProvider.getInstance(project)
+    val schemaInfo = schemaProvider.getSchemaInfo(file)
+    assertTrue(schemaInfo.isTooComplex)
+    assertFalse(schemaInfo.isPartial)
+    // the definitions limit is still in force for the schema of the scope
+    assertNotNull(schemaInfo.schema.getType("Unused"))
+    assertNull(schemaInfo.schema.getType("D"))
+    assertNull(schemaInfo.schema.getDirective("tag"))
+
+    val partialSchemaInfo = readAction { schemaProvider.getPartialSchemaInfo(file as GraphQLFile, schemaInfo) }!!
+    assertTrue(partialSchemaInfo.isPartial)
+
+    val schema = partialSchemaInfo.schema
+    assertNotNull(schema.getObjectType("A").getFieldDefinition("c"))
+    // reached through the fragment spread
+    assertNotNull(schema.getObjectType("C").getFieldDefinition("e"))
+    assertNotNull(schema.getType("E"))
+    // the skipped definitions are loaded from the index once they are reachable
+    assertNotNull(schema.getObjectType("C").getFieldDefinition("d"))
+    assertNotNull(schema.getObjectType("D").getFieldDefinition("id"))
+    assertNotNull(schema.getDirective("tag"))
+    assertEmpty(schema.getObjectType("B").fieldDefinitions)
+    assertNull(schema.getType("Unused"))
+
+    edtWriteAction {
+      val document = FileDocumentManager.getInstance().getDocument(file.virtualFile)!!
+      document.insertString(document.text.indexOf("...CFields"), "id ")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+    // operation edits don't rebuild the schema of the scope, and the same reachable types reuse the partial one
+    assertSame(schemaInfo, schemaProvider.getSchemaInfo(file))
+    assertSame(partialSchemaInfo, readAction { schemaProvider.getPartialSchemaInfo(file as GraphQLFile, schemaInfo) })
+  }
+
+  fun testIncrementalSchemaValidation() = runBlockingCancellable {
+    suspend fun createDocument(text: String): Document = readAction {
+      val file = PsiFileFactory.getInstance(project).createFileFromText("schema.graphql", GraphQLFileType.INSTANCE, text)
+      GraphQLPsiDocumentBuilder(file as GraphQLFile).createDocument()
+    }
+
+    val queryDocument = createDocument("type Query { a: A, b(arg: In): ID }\ntype A { id: ID }")
+    val inputDocument = createDocument("input In { self: In! }")
+    val registry = GraphQLCompositeRegistry()
+    val cache = SchemaValidationCache()
+
+    fun validate(vararg documents: Document): Set<SchemaValidationError> {
+      registry.updateDocuments(documents.toList())
+      val schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry.build())
+      return SchemaValidator(cache).validateSchema(schema)
+    }
+
+    val errors = validate(queryDocument, inputDocument)
+    assertTrue(errors.any { it.validationErrorType == SchemaValidationErrorType.UnbrokenInputCycle })
+    assertEquals(0, cache.reusedTypesCount)
+
+    assertEquals(errors, validate(queryDocument, inputDocument))
+    assertEquals(0, cache.validatedTypesCount)
+
+    val fixedInputDocument = createDocument("input In { self: In }")
+    assertEmpty(validate(queryDocument, fixedInputDocument))
+    assertTrue(cache.reusedTypesCount > 0)
+  }
+
+  fun testIncrementalUpdateMatchesFreshBuild() = runBlockingCancellable {
+    suspend fun createDocument(text: String): Document = readAction {
+      val file = PsiFileFactory.getInstance(project).createFileFromText("schema.graphql", GraphQLFileType.INSTANCE, text)
+      GraphQLPsiDocumentBuilder(file as GraphQLFile).createDocument()
+    }
+
+    fun describe(registry: TypeDefinitionRegistry): List<String> =
+      registry.types().map { (name, definition) -> "$name: ${AstPrinter.printAst(definition)}" } +
+      registry.objectTypeExtensions().map { (name, extensions) -> "$name: ${extensions.joinToString { AstPrinter.printAst(it) }}" } +
+      registry.errors.map { it.message.orEmpty() }
+
+    val first = createDocument("type A { f: String }\nenum E { X }\ntype B { id: ID }")
+    val second = createDocument("type A { f: Int, g: ID }\ntype E { id: ID }\nextend type A { h: ID }")
+    val changedFirst = createDocument("type A { f: Boolean }\nenum E { X }\ntype B { id: ID }")
+    val third = createDocument("type C { id: ID }\ntype A { f: Float }")
+
+    val registry = GraphQLCompositeRegistry()
+    registry.updateDocuments(listOf(first, second))
+    for (documents in listOf(
+      listOf(changedFirst, second), // the definitions of the changed document go before the unchanged ones again
+      listOf(third, changedFirst, second), // a new document goes first
+      listOf(second, third), // the definition of E of another kind takes over the name
+      listOf(first, second, third), // reordered
+    )) {
+      registry.updateDocuments(documents)
+      val freshRegistry = GraphQLCompositeRegistry().apply { updateDocuments(documents) }
+      assertEquals(describe(freshRegistry.build()), describe(registry.build()))
+    }
+  }
+
+  fun testIndexedDocumentSourceLocations() = runBlockingCancellable {
+    val text = "\"\"\"\nType description\n\"\"\"\ntype Query {\n  \"field description\"\n  field: String\n}\n"
+    val (psiDocument, indexedDocument) = readAction {
+      val file = PsiFileFactory.getInstance(project).createFileFromText("schema.graphql", GraphQLFileType.INSTANCE, text) as GraphQLFile
+      GraphQLPsiDocumentBuilder(file).createDocument() to GraphQLPsiDocumentBuilder.createTypeSystemDocument(file, text)
+    }
+
+    fun locations(document: Document): List<Pair<Int, Int>> =
+      document.getDefinitionsOfType(ObjectTypeDefinition::class.java).flatMap { listOf(it) + it.fieldDefinitions }
+        .map { it.sourceLocation.line to it.sourceLocation.column }
+
+    assertEquals(listOf(3 to 0, 5 to 2), locations(psiDocument))
+    assertEquals(locations(psiDocument), locations(indexedDocument))
+  }
+
+  fun testParallelSchemaValidation() = runBlockingCancellable {
+    val text = (0 until 1000).joinToString("\n", prefix = "type Query { id: ID }\n") { "type T$it { __field$it: ID }" }
+    val document = readAction {
+      val file = PsiFileFactory.getInstance(project).createFileFromText("schema.graphql", GraphQLFileType.INSTANCE, text)
+      GraphQLPsiDocumentBuilder(file as GraphQLFile).createDocument()
+    }
+    val registry = GraphQLCompositeRegistry().apply { addFromDocument(document) }.build()
+    val schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry)
+
+    val expected = SchemaValidator().validateSchema(schema).map { it.description }
+    val actual = SchemaValidator(null, ForkJoinPool.commonPool()).validateSchema(schema).map { it.description }
+    assertEquals(1000, expected.size)
+    assertEquals(expected, actual)
+  }
+
   private fun doTest(optionsBuilder: UnaryOperator<SchemaPrinter.Options>? = null) {
     myFixture.configureByFile(getTestName(true) + ".graphql")
 
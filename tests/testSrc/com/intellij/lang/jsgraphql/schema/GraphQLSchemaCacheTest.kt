@@ -0,0 +1,68 @@
+package com.intellij.lang.jsgraphql.schema
+
+import com.intellij.testFramework.GCWatcher
+import com.intellij.testFramework.UsefulTestCase
+
+class GraphQLSchemaCacheTest : UsefulTestCase() {
+
+  fun testEviction() {
+    val evicted = mutableListOf<String>()
+    val cache = GraphQLSchemaCache<String, Long>(budget = { 10 }, weigher = { it }, onEvicted = { key, _ -> evicted.add(key) })
+
+    cache["a"] = 4
+    cache["b"] = 4
+    assertEquals(4L, cache["a"]) // "b" becomes the least recently used one
+    cache["c"] = 4
+    assertEquals(listOf("b"), evicted)
+    assertEquals(8L, cache.weight)
+
+    cache["d"] = 20
+    assertEquals(listOf("b", "a", "c"), evicted)
+    assertEquals(20L, cache["d"])
+    assertEquals(3L, cache.evictionsCount)
+  }
+
+  fun testReplaceEvictsOverBudget() {
+    val evicted = mutableListOf<String>()
+    val cache = GraphQLSchemaCache<String, Long>(budget = { 10 }, weigher = { it }, onEvicted = { key, _ -> evicted.add(key) })
+
+    cache["a"] = 4
+    cache["b"] = 4
+    assertFalse(cache.replace("b", 5, 8))
+    assertEmpty(evicted)
+
+    assertTrue(cache.replace("b", 4, 8))
+    assertEquals(listOf("a"), evicted)
+    assertEquals(8L, cache.weight)
+  }
+
+  fun testFindValueKeepsOrder() {
+    val evicted = mutableListOf<String>()
+    val cache = GraphQLSchemaCache<String, Long>(budget = { 10 }, weigher = { it }, onEvicted = { key, _ -> evicted.add(key) })
+
+    cache["a"] = 4
+    cache["b"] = 5
+    assertEquals(4L, cache.findValue { it < 5 })
+    assertNull(cache.findValue { it > 5 })
+
+    cache["c"] = 4
+    assertEquals(listOf("a"), evicted)
+  }
+
+  fun testCollectedKeysAreRemoved() {
+    val cache = GraphQLSchemaCache<Any, Long>(budget = { 100 }, weigher = { it })
+    val retainedKey = Any()
+    cache[retainedKey] = 10
+    var collectedKey: Any? = Any()
+    cache[collectedKey!!] = 20
+    assertEquals(30L, cache.weight)
+
+    val watcher = GCWatcher.tracking(collectedKey)
+    collectedKey = null
+    watcher.ensureCollected()
+
+    assertEquals(10L, cache.weight)
+    assertEquals(10L, cache[retainedKey])
+    assertEquals(0L, cache.evictionsCount)
+  }
+}
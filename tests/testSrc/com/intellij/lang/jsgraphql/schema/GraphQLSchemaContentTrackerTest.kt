@@ -0,0 +1,61 @@
+package com.intellij.lang.jsgraphql.schema
+
+import com.intellij.lang.jsgraphql.GraphQLTestCaseBase
+import com.intellij.openapi.util.Disposer
+import com.intellij.testFramework.LightVirtualFile
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.cancel
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+
+class GraphQLSchemaContentTrackerTest : GraphQLTestCaseBase() {
+
+  fun testQuietPeriodFollowsBuildDuration() {
+    val tracker = createTracker()
+    assertEquals(500.milliseconds, tracker.getQuietPeriod())
+
+    tracker.onSchemaBuilt(100.milliseconds)
+    assertEquals(500.milliseconds, tracker.getQuietPeriod())
+
+    tracker.onSchemaBuilt(1200.milliseconds)
+    assertEquals(1200.milliseconds, tracker.getQuietPeriod())
+
+    tracker.onSchemaBuilt(10.seconds)
+    assertEquals(3000.milliseconds, tracker.getQuietPeriod())
+  }
+
+  fun testQuietPeriodOfFileBursts() {
+    val tracker = createTracker()
+
+    tracker.onFilesChanged(List(50) { LightVirtualFile("file$it.txt") })
+    tracker.onFilesChanged(List(19) { LightVirtualFile("schema$it.graphql") })
+    assertEquals(500.milliseconds, tracker.getQuietPeriod())
+
+    tracker.onFilesChanged(List(20) { LightVirtualFile("schema$it.graphql") })
+    assertEquals(3000.milliseconds, tracker.getQuietPeriod())
+  }
+
+  fun testQuietPeriodOfRepeatedEdits() {
+    val tracker = createTracker()
+
+    // typing in a single file
+    val file = LightVirtualFile("schema.graphql")
+    repeat(50) { tracker.addPendingChange(file) }
+    assertEquals(500.milliseconds, tracker.getQuietPeriod())
+
+    repeat(19) { tracker.addPendingChange(LightVirtualFile("schema$it.graphql")) }
+    assertEquals(3000.milliseconds, tracker.getQuietPeriod())
+  }
+
+  /**
+   * A separate instance, so the changes made by the other tests in the shared project don't affect the results.
+   */
+  private fun createTracker(): GraphQLSchemaContentTracker {
+    val coroutineScope = CoroutineScope(Job())
+    val tracker = GraphQLSchemaContentTracker(project, coroutineScope)
+    Disposer.register(testRootDisposable, tracker)
+    Disposer.register(testRootDisposable) { coroutineScope.cancel() }
+    return tracker
+  }
+}
@@ -0,0 +1,146 @@
+package com.intellij.lang.jsgraphql.schema
+
+import com.intellij.lang.jsgraphql.GraphQLFileType
+import com.intellij.lang.jsgraphql.GraphQLTestCaseBase
+import com.intellij.lang.jsgraphql.psi.GraphQLFile
+import com.intellij.lang.jsgraphql.types.AssertException
+import com.intellij.lang.jsgraphql.types.GraphQLException
+import com.intellij.lang.jsgraphql.types.language.EnumTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.ImplementingTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.InputObjectTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.InterfaceTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.ObjectTypeDefinition
+import com.intellij.lang.jsgraphql.types.language.TypeDefinition
+import com.intellij.lang.jsgraphql.types.language.TypeName
+import com.intellij.lang.jsgraphql.types.language.UnionTypeDefinition
+import com.intellij.lang.jsgraphql.types.schema.GraphQLNamedType
+import com.intellij.lang.jsgraphql.types.schema.idl.SchemaParser
+import com.intellij.lang.jsgraphql.types.schema.idl.TypeDefinitionRegistry
+import com.intellij.lang.jsgraphql.types.schema.idl.UnExecutableSchemaGenerator
+import com.intellij.psi.PsiFileFactory
+
+class GraphQLTypeDefinitionRegistryTest : GraphQLTestCaseBase() {
+
+  companion object {
+    private const val SCHEMA = """
+      interface Node { id: ID }
+      interface Entity implements Node { id: ID }
+      type User implements Entity & Node { id: ID }
+      type Post implements Node { id: ID }
+      type Comment { id: ID }
+      extend type Comment implements Node
+      union Content = User | Post | Entity | Missing
+      extend union Content = Comment
+      enum Role { ADMIN }
+      input Filter { id: ID }
+      scalar Date
+    """
+  }
+
+  fun testFrozenRegistryRejectsChanges() {
+    val registry = createRegistry(SCHEMA).freeze()
+    assertTrue(registry.isFrozen)
+
+    val definition = ObjectTypeDefinition.newObjectTypeDefinition().name("Extra").build()
+    assertThrows(AssertException::class.java) { registry.add(definition) }
+    assertThrows(AssertException::class.java) { registry.addError(GraphQLException("error")) }
+    assertThrows(AssertException::class.java) { registry.merge(TypeDefinitionRegistry()) }
+    assertFalse(registry.getType("Extra").isPresent)
+    assertEmpty(registry.errors)
+  }
+
+  fun testFrozenRegistryMatchesUnfrozen() {
+    val registry = createRegistry(SCHEMA)
+    val frozenRegistry = createRegistry(SCHEMA).freeze()
+
+    assertSameTypes(registry, frozenRegistry, TypeDefinition::class.java)
+    assertSameTypes(registry, frozenRegistry, ObjectTypeDefinition::class.java)
+    assertSameTypes(registry, frozenRegistry, InterfaceTypeDefinition::class.java)
+    assertSameTypes(registry, frozenRegistry, ImplementingTypeDefinition::class.java)
+    assertSameTypes(registry, frozenRegistry, UnionTypeDefinition::class.java)
+    assertSameTypes(registry, frozenRegistry, EnumTypeDefinition::class.java)
+    assertSameTypes(registry, frozenRegistry, InputObjectTypeDefinition::class.java)
+
+    assertEquals(registry.scalars().keys.toList(), frozenRegistry.scalars().keys.toList())
+    assertEquals(registry.objectTypeExtensions().keys, frozenRegistry.objectTypeExtensions().keys)
+    assertEquals(registry.unionTypeExtensions().keys, frozenRegistry.unionTypeExtensions().keys)
+  }
+
+  fun testImplementationsAndPossibleTypes() {
+    val registry = createRegistry(SCHEMA)
+    val frozenRegistry = createRegistry(SCHEMA).freeze()
+
+    for (interfaceName in listOf("Node", "Entity")) {
+      assertEquals(
+        interfaceName,
+        getImplementationNames(registry, interfaceName),
+        getImplementationNames(frozenRegistry, interfaceName),
+      )
+    }
+    // an interface implementing another one is its implementation too, unlike the types extended with it
+    assertSameElements(getImplementationNames(frozenRegistry, "Node"), "Entity", "User", "Post")
+
+    val typeNames = listOf("Node", "Entity", "User", "Post", "Comment", "Content", "Role", "Missing")
+    for (abstractTypeName in listOf("Node", "Entity", "Content")) {
+      for (typeName in typeNames) {
+        val abstractType = TypeName(abstractTypeName)
+        val type = TypeName(typeName)
+        assertEquals(
+          "$abstractTypeName: $typeName",
+          registry.isPossibleType(abstractType, type),
+          frozenRegistry.isPossibleType(abstractType, type),
+        )
+      }
+    }
+    assertTrue(frozenRegistry.isPossibleType(TypeName("Node"), TypeName("Entity")))
+    assertTrue(frozenRegistry.isPossibleType(TypeName("Content"), TypeName("Post")))
+    // only the object types are possible types of a union
+    assertFalse(frozenRegistry.isPossibleType(TypeName("Content"), TypeName("Entity")))
+  }
+
+  fun testSchemaPossibleTypeNames() {
+    val registry = createRegistry(
+      """
+      type Query { node: Node, content: Content }
+      interface Node { id: ID }
+      interface Entity implements Node { id: ID }
+      type User implements Entity & Node { id: ID }
+      type Post implements Node { id: ID }
+      type Comment { id: ID }
+      extend type Comment implements Node
+      union Content = User | Post
+      extend union Content = Comment
+      """
+    )
+    val schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry)
+
+    fun possibleTypeNames(typeName: String) = schema.getPossibleTypeNames(schema.getType(typeName) as GraphQLNamedType)
+
+    assertSameElements(possibleTypeNames("Node"), "User", "Post", "Comment")
+    assertSameElements(possibleTypeNames("Entity"), "User")
+    assertSameElements(possibleTypeNames("Content"), "User", "Post", "Comment")
+    assertSameElements(possibleTypeNames("User"), "User")
+    assertEmpty(possibleTypeNames("ID"))
+
+    assertTrue(schema.isPossibleType(schema.getType("Node") as GraphQLNamedType, schema.getObjectType("Comment")))
+    assertFalse(schema.isPossibleType(schema.getType("Entity") as GraphQLNamedType, schema.getObjectType("Post")))
+  }
+
+  private fun getImplementationNames(registry: TypeDefinitionRegistry, interfaceName: String): List<String> {
+    val interfaceDefinition = registry.getType(interfaceName, InterfaceTypeDefinition::class.java).get()
+    return registry.getAllImplementationsOf(interfaceDefinition).map { it.name }
+  }
+
+  private fun <T : TypeDefinition<*>> assertSameTypes(
+    registry: TypeDefinitionRegistry,
+    frozenRegistry: TypeDefinitionRegistry,
+    typeClass: Class<T>,
+  ) {
+    assertEquals(typeClass.simpleName, registry.getTypes(typeClass).map { it.name }, frozenRegistry.getTypes(typeClass).map { it.name })
+  }
+
+  private fun createRegistry(text: String): TypeDefinitionRegistry {
+    val file = PsiFileFactory.getInstance(project).createFileFromText("schema.graphql", GraphQLFileType.INSTANCE, text) as GraphQLFile
+    return SchemaParser().buildRegistry(GraphQLPsiDocumentBuilder(file).createDocument())
+  }
+}